@@ -0,0 +1,90 @@
+package com.library_user.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ Creates the search indexes of the books table. On PostgreSQL they are partial indexes over live rows only,
+ so deleted books waiting for compaction cost nothing in searches; databases without partial indexes get plain ones.
+ JPA index annotations cannot carry a predicate, which is why these are not declared on the entity.
+ */
+@Component
+@Slf4j
+public class BookIndexInitializer {
+
+    private static final String LIVE_ROWS = "deleted_at is null";
+
+    static final List<BookIndex> INDEXES = List.of(
+            new BookIndex("idx_books_title", "title, id", LIVE_ROWS),
+            new BookIndex("idx_books_availability_title", "availability, title, id", LIVE_ROWS),
+            new BookIndex("idx_books_genre_availability_title", "genre_id, availability, title, id", LIVE_ROWS),
+            new BookIndex("idx_books_availability_publication_date", "availability, publication_date", LIVE_ROWS),
+            new BookIndex("idx_books_publication_date", "publication_date", LIVE_ROWS),
+            new BookIndex("idx_books_isbn", "isbn", LIVE_ROWS),
+            new BookIndex("idx_books_deleted_at", "deleted_at", "deleted_at is not null")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    record BookIndex(String name, String columns, String predicate) {
+    }
+
+    /**
+     Creates missing indexes once the schema is in place. On PostgreSQL, full indexes of the same name that
+     earlier versions created are replaced by their partial form.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        boolean partial = supportsPartialIndexes();
+        for (BookIndex index : INDEXES) {
+            if (partial) {
+                createPartialIndex(index);
+            } else {
+                jdbcTemplate.execute("create index if not exists " + index.name() + " on books (" + index.columns() + ")");
+            }
+        }
+        log.info("Book indexes ready ({} indexes, partial: {})", INDEXES.size(), partial);
+    }
+
+    /**
+     Builds a partial index with create index concurrently, so writes to books go on while it builds. That statement
+     can not run in a transaction, so each one here runs on its own auto-committed connection.
+     A full index left by an earlier version, or an invalid one left by an interrupted build, is replaced by building
+     the new index under a temporary name and swapping it in, so searches keep an index the whole time.
+     */
+    private void createPartialIndex(BookIndex index) {
+        List<Map<String, Object>> existing = jdbcTemplate.queryForList(
+                "select i.indisvalid as valid, pg_get_indexdef(i.indexrelid) as definition from pg_index i"
+                        + " join pg_class c on c.oid = i.indexrelid where c.relname = ?", index.name());
+        if (!existing.isEmpty() && Boolean.TRUE.equals(existing.getFirst().get("valid"))
+                && existing.getFirst().get("definition").toString().toLowerCase(Locale.ROOT).contains(" where ")) {
+            return;
+        }
+        String building = index.name() + "_building";
+        jdbcTemplate.execute("drop index concurrently if exists " + building);
+        jdbcTemplate.execute("create index concurrently " + building + " on books (" + index.columns() + ") where " + index.predicate());
+        jdbcTemplate.execute("drop index concurrently if exists " + index.name());
+        jdbcTemplate.execute("alter index " + building + " rename to " + index.name());
+        log.info("Built partial index {} concurrently", index.name());
+    }
+
+    private boolean supportsPartialIndexes() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
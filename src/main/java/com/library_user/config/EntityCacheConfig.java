@@ -0,0 +1,64 @@
+package com.library_user.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.library_user.model.entity.Book;
+import com.library_user.model.entity.User;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ Second-level cache regions for entities that are read far more often than they change.
+ Every application context gets its own Caffeine backed JCache manager, which is handed to Hibernate
+ so that region sizes come from the application properties.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    /**
+     Suffix Hibernate appends to the entity name for the natural id region
+     */
+    public static final String NATURAL_ID_SUFFIX = "##NaturalId";
+
+    public static final String BOOK_REGION = Book.class.getName();
+    public static final String USER_REGION = User.class.getName();
+
+    /**
+     Every region of the second-level cache, entity regions followed by their natural id regions
+     */
+    public static final List<String> REGIONS = List.of(
+            BOOK_REGION, BOOK_REGION + NATURAL_ID_SUFFIX, USER_REGION, USER_REGION + NATURAL_ID_SUFFIX);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(@Value("${library.cache.books.maximum-size:10000}") long bookCacheSize,
+                                           @Value("${library.cache.users.maximum-size:10000}") long userCacheSize) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        createRegion(cacheManager, BOOK_REGION, bookCacheSize);
+        createRegion(cacheManager, BOOK_REGION + NATURAL_ID_SUFFIX, bookCacheSize);
+        createRegion(cacheManager, USER_REGION, userCacheSize);
+        createRegion(cacheManager, USER_REGION + NATURAL_ID_SUFFIX, userCacheSize);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    /**
+     Hibernate stores disassembled, immutable entries, so they are kept by reference instead of being copied
+     */
+    private static void createRegion(CacheManager cacheManager, String name, long maximumSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setStoreByValue(false);
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -0,0 +1,71 @@
+package com.library_user.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ Moves databases created before genres were dictionary-encoded from the books.genre varchar to books.genre_id.
+ Fills the genres table from the distinct names, points every book at its genre and drops the old column, in one
+ transaction. Runs once the schema update is done and before the web server accepts requests; databases without
+ the old column are left alone, so after the first successful run this is a single metadata query.
+ If some books have no usable genre name, the old column is only made nullable and those books are logged,
+ so they can be fixed by hand before the next start completes the migration.
+ */
+@Component
+@Slf4j
+public class GenreColumnMigration implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+
+    public GenreColumnMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate();
+    }
+
+    /**
+     Migrates the old genre column if it is still there and returns the number of books given a genre id
+     */
+    public int migrate() {
+        if (!hasOldGenreColumn()) {
+            return 0;
+        }
+        Integer migrated = transaction.execute(status -> {
+            jdbcTemplate.execute("alter table books add column if not exists genre_id integer");
+            jdbcTemplate.update("insert into genres (code, name)"
+                    + " select g.code, min(g.name) from (select lower(trim(genre)) as code, trim(genre) as name from books"
+                    + " where genre_id is null and trim(genre) <> '') g"
+                    + " where g.code not in (select code from genres) group by g.code");
+            int updated = jdbcTemplate.update("update books set genre_id ="
+                    + " (select g.id from genres g where g.code = lower(trim(books.genre)))"
+                    + " where genre_id is null and lower(trim(genre)) in (select code from genres)");
+            Integer missing = jdbcTemplate.queryForObject("select count(*) from books where genre_id is null", Integer.class);
+            if (missing == null || missing == 0) {
+                jdbcTemplate.execute("alter table books alter column genre_id set not null");
+                jdbcTemplate.execute("alter table books drop column genre");
+            } else {
+                jdbcTemplate.execute("alter table books alter column genre drop not null");
+                log.warn("{} books have no genre name to migrate, books.genre was kept and made nullable", missing);
+            }
+            return updated;
+        });
+        log.info("Migrated the genre of {} books to genre_id", migrated);
+        return migrated == null ? 0 : migrated;
+    }
+
+    private boolean hasOldGenreColumn() {
+        Integer columns = jdbcTemplate.queryForObject("select count(*) from information_schema.columns"
+                + " where lower(table_schema) = lower(current_schema) and lower(table_name) = 'books' and lower(column_name) = 'genre'",
+                Integer.class);
+        return columns != null && columns > 0;
+    }
+}
@@ -1,6 +1,14 @@
 package com.library_user.controller;
 
+import com.library_user.helper.BookETag;
 import com.library_user.model.dto.BookDto;
+import com.library_user.model.dto.BookVersion;
+import com.library_user.model.request.BookImportFormat;
+import com.library_user.model.request.BulkAvailabilityRequest;
+import com.library_user.model.response.BookImportReport;
+import com.library_user.model.response.BulkAvailabilityResponse;
+import com.library_user.service.BookExportService;
+import com.library_user.service.BookImportService;
 import com.library_user.service.BookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,9 +20,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/books")
@@ -22,10 +39,14 @@ import java.util.UUID;
 public class BookController {
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookImportService bookImportService, BookExportService bookExportService) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.bookExportService = bookExportService;
     }
 
     @Operation(
@@ -48,20 +69,69 @@ public class BookController {
 
 
 
+    @Operation(
+            summary = "Import books in bulk",
+            description = "Librarians can import many books at once from NDJSON (one book per line) or CSV with a header row. "
+                    + "Rows are validated like single adds; invalid rows and duplicate ISBNs are reported and skipped.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished, see the report for rejected rows",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookImportReport.class))),
+                    @ApiResponse(responseCode = "400", description = "Unreadable input or missing CSV columns"),
+                    @ApiResponse(responseCode = "415", description = "Content type is neither NDJSON nor CSV")
+            }
+    )
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BookImportFormat.CSV_VALUE})
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<BookImportReport> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                        InputStream body) throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try (Reader input = new InputStreamReader(body, charset)) {
+            return ResponseEntity.ok(bookImportService.importBooks(input, BookImportFormat.of(contentType)));
+        }
+    }
+
+
+
+
+    @Operation(
+            summary = "Export the whole catalog",
+            description = "Librarians can download every book as NDJSON, one book per line in id order. "
+                    + "The response is streamed from the database, so it starts immediately and has no size limit.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Catalog streamed",
+                            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = BookDto.class)))
+            }
+    )
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = bookExportService::exportBooks;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("books.ndjson").build().toString())
+                .body(body);
+    }
+
+
+
+
     @Operation(
             summary = "Update book information",
             description = "Librarians can update book details by book ID.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book updated successfully",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDto.class))),
-                    @ApiResponse(responseCode = "404", description = "Book not found")
+                    @ApiResponse(responseCode = "404", description = "Book not found"),
+                    @ApiResponse(responseCode = "409", description = "Copies would be removed, or the book would be available without a copy on the shelf"),
+                    @ApiResponse(responseCode = "412", description = "Book has changed since the ETag in If-Match")
             }
     )
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('LIBRARIAN')")
-    public ResponseEntity<BookDto> updateBook(@PathVariable UUID id,@Valid @RequestBody BookDto bookDto) {
-        BookDto updated = bookService.updateBook(id, bookDto);
-        return ResponseEntity.ok(updated);
+    public ResponseEntity<BookDto> updateBook(@PathVariable UUID id,@Valid @RequestBody BookDto bookDto,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        BookDto updated = bookService.updateBook(id, bookDto, ifMatch);
+        return withETag(updated);
     }
 
 
@@ -91,14 +161,16 @@ public class BookController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book found",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDto.class))),
+                    @ApiResponse(responseCode = "304", description = "Book has not changed since the ETag in If-None-Match"),
                     @ApiResponse(responseCode = "404", description = "Book not found")
             }
     )
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
-    public ResponseEntity<BookDto> getBookById(@PathVariable UUID id) {
-        BookDto book = bookService.getBookById(id);
-        return ResponseEntity.ok(book);
+    public ResponseEntity<BookDto> getBookById(@PathVariable UUID id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return notModified(ifNoneMatch, () -> bookService.findBookVersion(id))
+                .orElseGet(() -> withETag(bookService.getBookById(id)));
     }
 
 
@@ -110,14 +182,16 @@ public class BookController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book found",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDto.class))),
+                    @ApiResponse(responseCode = "304", description = "Book has not changed since the ETag in If-None-Match"),
                     @ApiResponse(responseCode = "404", description = "Book not found")
             }
     )
     @GetMapping("/isbn/{isbn}")
     @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
-    public ResponseEntity<BookDto> getBookByIsbn(@PathVariable String isbn) {
-        BookDto book = bookService.getBookByIsbn(isbn);
-        return ResponseEntity.ok(book);
+    public ResponseEntity<BookDto> getBookByIsbn(@PathVariable String isbn,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return notModified(ifNoneMatch, () -> bookService.findBookVersionByIsbn(isbn))
+                .orElseGet(() -> withETag(bookService.getBookByIsbn(isbn)));
     }
 
 
@@ -129,7 +203,8 @@ public class BookController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book availability updated",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDto.class))),
-                    @ApiResponse(responseCode = "404", description = "Book not found")
+                    @ApiResponse(responseCode = "404", description = "Book not found"),
+                    @ApiResponse(responseCode = "409", description = "Book has no copy on the shelf to make available")
             }
     )
     @PatchMapping("/{id}/availability/{availability}")
@@ -140,4 +215,69 @@ public class BookController {
         BookDto updated = bookService.updateBookAvailability(id, availability);
         return ResponseEntity.ok(updated);
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Add copies of a book",
+            description = "Librarians can add physical copies of a book. New copies are on the shelf and make the book available.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Copies added",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Copy count out of range"),
+                    @ApiResponse(responseCode = "404", description = "Book not found"),
+                    @ApiResponse(responseCode = "409", description = "Book was changed concurrently, for example borrowed")
+            }
+    )
+    @PostMapping("/{id}/copies/{count}")
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<BookDto> addCopies(
+            @PathVariable UUID id,
+            @PathVariable int count) {
+        return ResponseEntity.ok(bookService.addCopies(id, count));
+    }
+
+
+
+
+    @Operation(
+            summary = "Update the availability of many books",
+            description = "Librarians can set the availability of up to 10000 books in one call, e.g. after an inventory audit. "
+                    + "The response lists which books changed, which already had the requested state, which ids do not exist "
+                    + "and which books could not be made available because they have no copy on the shelf.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Availability updated",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkAvailabilityResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input")
+            }
+    )
+    @PatchMapping("/availability")
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<BulkAvailabilityResponse> updateBooksAvailability(@Valid @RequestBody BulkAvailabilityRequest request) {
+        return ResponseEntity.ok(bookService.updateBooksAvailability(request.changes()));
+    }
+
+    /**
+     Answers a conditional GET with 304 when the current version of the book is listed in If-None-Match,
+     without loading or serializing the book
+     */
+    private static Optional<ResponseEntity<BookDto>> notModified(String ifNoneMatch, Supplier<Optional<BookVersion>> version) {
+        if (ifNoneMatch == null) {
+            return Optional.empty();
+        }
+        return version.get().map(current -> BookETag.of(current.id(), current.version()))
+                .filter(eTag -> BookETag.isNotModified(ifNoneMatch, eTag))
+                .map(eTag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .cacheControl(CacheControl.noCache())
+                        .build());
+    }
+
+    /**
+     Clients may keep the book but have to revalidate it with its ETag before reusing it
+     */
+    private static ResponseEntity<BookDto> withETag(BookDto book) {
+        return ResponseEntity.ok()
+                .eTag(BookETag.of(book.getId(), book.getVersion()))
+                .cacheControl(CacheControl.noCache())
+                .body(book);
+    }
+}
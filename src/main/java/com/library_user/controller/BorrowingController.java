@@ -1,10 +1,16 @@
 package com.library_user.controller;
 
+import com.library_user.model.request.BatchBorrowingRequest;
 import com.library_user.model.request.BorrowingCreateRequest;
 import com.library_user.model.request.ReturnBookRequest;
+import com.library_user.model.response.BatchBorrowingResponse;
 import com.library_user.model.response.BorrowingResponse;
+import com.library_user.model.response.HoldResponse;
+import com.library_user.model.response.PageResponse;
 import com.library_user.model.dto.OverDueReportDto;
+import com.library_user.service.IdempotencyService;
 import com.library_user.service.Impl.BorrowingServiceImpl;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -27,42 +33,130 @@ import java.util.UUID;
 @Tag(name = "Borrowing", description = "Borrowing and Returning API")
 public class BorrowingController {
 
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final BorrowingServiceImpl borrowingServiceImpl;
+    private final IdempotencyService idempotencyService;
 
     @Operation(
             summary = "Borrow a book",
-            description = "Patrons can borrow an available book. Requires userId and bookId.",
+            description = "Patrons can borrow an available book. Requires userId and bookId. "
+                    + "A retry with the same Idempotency-Key gets the original response instead of borrowing again.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book borrowed successfully",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = BorrowingResponse.class))),
-                    @ApiResponse(responseCode = "400", description = "Invalid input"),
+                    @ApiResponse(responseCode = "400", description = "Invalid input or Idempotency-Key"),
                     @ApiResponse(responseCode = "404", description = "User or book not found"),
-                    @ApiResponse(responseCode = "409", description = "Book is not available or user has reached the borrowing limit")
+                    @ApiResponse(responseCode = "409", description = "Book is not available, user has reached the borrowing limit or the same request is still running"),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key was used for a different request")
             }
     )
     @PostMapping("/borrow")
     @PreAuthorize("hasRole('PATRON')")
-    public ResponseEntity<BorrowingResponse> borrowBook(@Valid @RequestBody BorrowingCreateRequest request) {
-        return ResponseEntity.ok(borrowingServiceImpl.borrowBook(request));
+    public ResponseEntity<BorrowingResponse> borrowBook(
+            @Parameter(description = "Client generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @Valid @RequestBody BorrowingCreateRequest request) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "borrow", request, BorrowingResponse.class,
+                () -> borrowingServiceImpl.borrowBook(request)));
+    }
+
+    @Operation(
+            summary = "Borrow several books at once",
+            description = "Patrons can check out up to 5 books in one request. Either every book is borrowed or none is; "
+                    + "when a book can not be borrowed, the failures list each such book with its reason. "
+                    + "A retry with the same Idempotency-Key gets the original response instead of borrowing again.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "All books borrowed successfully",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchBorrowingResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input or Idempotency-Key"),
+                    @ApiResponse(responseCode = "404", description = "User not found"),
+                    @ApiResponse(responseCode = "409", description = "Some books could not be borrowed, nothing was borrowed",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchBorrowingResponse.class))),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key was used for a different request")
+            }
+    )
+    @PostMapping("/borrow/batch")
+    @PreAuthorize("hasRole('PATRON')")
+    public ResponseEntity<BatchBorrowingResponse> borrowBooks(
+            @Parameter(description = "Client generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @Valid @RequestBody BatchBorrowingRequest request) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "borrow-batch", request, BatchBorrowingResponse.class,
+                () -> borrowingServiceImpl.borrowBooks(request)));
     }
 
     @Operation(
             summary = "Return a book",
-            description = "Patrons can return a borrowed book.",
+            description = "Patrons can return a borrowed book. "
+                    + "A retry with the same Idempotency-Key gets the original response instead of a conflict.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book returned successfully",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = BorrowingResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid Idempotency-Key"),
                     @ApiResponse(responseCode = "404", description = "Borrowing record not found"),
-                    @ApiResponse(responseCode = "409", description = "Book already returned")
+                    @ApiResponse(responseCode = "409", description = "Book already returned or the same request is still running"),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key was used for a different request")
             }
     )
     @PostMapping("/return/{borrowingId}")
     @PreAuthorize("hasRole('PATRON')")
-    public ResponseEntity<BorrowingResponse> returnBook(@PathVariable UUID borrowingId, @RequestBody ReturnBookRequest request) {
-        return ResponseEntity.ok(borrowingServiceImpl.returnBook(borrowingId , request));
+    public ResponseEntity<BorrowingResponse> returnBook(
+            @Parameter(description = "Client generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @PathVariable UUID borrowingId, @RequestBody ReturnBookRequest request) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "return", List.of(borrowingId, request), BorrowingResponse.class,
+                () -> borrowingServiceImpl.returnBook(borrowingId, request)));
+    }
+
+
+
+    @Operation(
+            summary = "Place a hold on a book",
+            description = "Patrons can queue for a book that has no copy on the shelf. "
+                    + "Holds are served in order: a returned copy is lent to the first patron in the queue right away.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Hold placed, the response carries the place in the queue",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = HoldResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Book not found"),
+                    @ApiResponse(responseCode = "409", description = "Book can be borrowed right away or the patron already holds it")
+            }
+    )
+    @PostMapping("/holds/{bookId}")
+    @PreAuthorize("hasRole('PATRON')")
+    public ResponseEntity<HoldResponse> placeHold(@PathVariable UUID bookId) {
+        return ResponseEntity.ok(borrowingServiceImpl.placeHold(bookId));
     }
 
+    @Operation(
+            summary = "Get the place in a hold queue",
+            description = "Patrons can see where they are in the hold queue of a book; position 1 gets the next returned copy.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Hold found",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = HoldResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "The patron has no hold on this book")
+            }
+    )
+    @GetMapping("/holds/{bookId}")
+    @PreAuthorize("hasRole('PATRON')")
+    public ResponseEntity<HoldResponse> getHold(@PathVariable UUID bookId) {
+        return ResponseEntity.ok(borrowingServiceImpl.getHold(bookId));
+    }
 
+    @Operation(
+            summary = "Cancel a hold",
+            description = "Patrons can leave the hold queue of a book; everyone behind them moves up one place.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Hold cancelled"),
+                    @ApiResponse(responseCode = "404", description = "The patron has no hold on this book")
+            }
+    )
+    @DeleteMapping("/holds/{bookId}")
+    @PreAuthorize("hasRole('PATRON')")
+    public ResponseEntity<Void> cancelHold(@PathVariable UUID bookId) {
+        borrowingServiceImpl.cancelHold(bookId);
+        return ResponseEntity.noContent().build();
+    }
 
     @Operation(
             summary = "Get user borrowing history",
@@ -83,6 +177,25 @@ public class BorrowingController {
         return ResponseEntity.ok(borrowingServiceImpl.getUserBorrowingHistory(pageable));
     }
 
+    @Operation(
+            summary = "Get user borrowing history with a cursor",
+            description = "Get one page of the user's borrowing history ordered by borrow date. Pass nextCursor back to get the following page.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Borrowing history retrieved",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = PageResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+                    @ApiResponse(responseCode = "404", description = "User not found")
+            }
+    )
+    @GetMapping("/history/user/seek")
+    @PreAuthorize("hasRole('PATRON') or hasRole('LIBRARIAN')")
+    public ResponseEntity<PageResponse<BorrowingResponse>> seekUserBorrowingHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(borrowingServiceImpl.seekUserBorrowingHistory(cursor, size));
+    }
+
     @Operation(
             summary = "Get all borrowing history",
             description = "Librarian gets all users' borrowing history.",
@@ -114,4 +227,22 @@ public class BorrowingController {
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.ok(borrowingServiceImpl.getOverdueBooks(pageable));
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Get overdue books with a cursor",
+            description = "Librarian gets one page of the overdue books report ordered by due date. Pass nextCursor back to get the following page.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Overdue books report retrieved",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = PageResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+            }
+    )
+    @GetMapping("/overdue/seek")
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<PageResponse<OverDueReportDto>> seekOverdueBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(borrowingServiceImpl.seekOverdueBooks(cursor, size));
+    }
+}
@@ -0,0 +1,33 @@
+package com.library_user.controller;
+
+import com.library_user.model.response.EntityCacheStats;
+import com.library_user.service.EntityCacheService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Tag(name = "Cache", description = "Cache monitoring API")
+public class CacheController {
+
+    private final EntityCacheService entityCacheService;
+
+    @Operation(
+            summary = "Get entity cache statistics",
+            description = "Librarians can see hit, miss and put counts of the book and user second-level cache regions."
+    )
+    @GetMapping("/entities")
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<List<EntityCacheStats>> getEntityCacheStats() {
+        return ResponseEntity.ok(entityCacheService.getStatistics());
+    }
+}
@@ -1,17 +1,27 @@
 package com.library_user.controller;
 
-import com.library_user.model.dto.BookDto;
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.request.BookSearchCriteria;
+import com.library_user.model.request.SearchMode;
+import com.library_user.model.response.FacetCounts;
+import com.library_user.model.response.PageResponse;
+import com.library_user.model.response.SearchCacheStats;
+import com.library_user.model.response.SuggestionResponse;
+import com.library_user.search.SearchResultCache;
 import com.library_user.service.ReactiveBookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @RestController
 @Tag(name = "Reactive Book Controller", description = "Provides reactive endpoints for searching books by title, author, genre, or availability.")
@@ -19,46 +29,51 @@ import reactor.core.publisher.Flux;
 public class ReactiveBookController {
 
     private final ReactiveBookService reactiveBookService;
+    private final SearchResultCache searchResultCache;
 
 
     @Autowired
-    public ReactiveBookController(@Qualifier("reactiveBookService") ReactiveBookService reactiveBookService) {
+    public ReactiveBookController(@Qualifier("cachingReactiveBookService") ReactiveBookService reactiveBookService,
+                                  SearchResultCache searchResultCache) {
         this.reactiveBookService = reactiveBookService;
+        this.searchResultCache = searchResultCache;
     }
 
 
     @Operation(
             summary = "Search books by title",
-            description = "Returns a list of books whose titles contain the given keyword."
+            description = "Returns a page of books whose titles contain the given keyword. With mode=FUZZY, small typos in each word are tolerated and the closest matches come first. hasMore tells whether another page exists."
     )
     @GetMapping("/search/title/{title}")
-    public Flux<BookDto> searchBooksByTitle(
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByTitle(
             @PathVariable String title,
+            @RequestParam(defaultValue = "CONTAINS") SearchMode mode,
             Pageable pageable
     ) {
-        return reactiveBookService.searchBooksByTitle(title, pageable);
+        return reactiveBookService.searchBooksByTitle(title, mode, pageable);
     }
 
 
     @Operation(
             summary = "Search books by author",
-            description = "Returns a list of books written by authors whose names contain the given keyword."
+            description = "Returns a page of books written by authors whose names contain the given keyword. With mode=FUZZY, small typos in each word are tolerated and the closest matches come first. hasMore tells whether another page exists."
     )
     @GetMapping("/search/author/{author}")
-    public Flux<BookDto> searchBooksByAuthor(
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByAuthor(
             @PathVariable String author,
+            @RequestParam(defaultValue = "CONTAINS") SearchMode mode,
             Pageable pageable
     ) {
-        return reactiveBookService.searchBooksByAuthor(author, pageable);
+        return reactiveBookService.searchBooksByAuthor(author, mode, pageable);
     }
 
 
     @Operation(
             summary = "Search books by genre",
-            description = "Returns a list of books that belong to the specified genre."
+            description = "Returns a page of books that belong to the specified genre. hasMore tells whether another page exists."
     )
     @GetMapping("/search/genre/{genre}")
-    public Flux<BookDto> searchBooksByGenre(
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByGenre(
             @PathVariable String genre,
             Pageable pageable
     ) {
@@ -68,13 +83,117 @@ public class ReactiveBookController {
 
     @Operation(
             summary = "Search books by availability",
-            description = "Returns a list of books based on their availability status (true = available, false = unavailable)."
+            description = "Returns a page of books based on their availability status (true = available, false = unavailable). hasMore tells whether another page exists."
     )
     @GetMapping("/search/availability/{availability}")
-    public Flux<BookDto> searchBooksByAvailability(
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByAvailability(
             @PathVariable boolean availability,
             Pageable pageable
     ) {
         return reactiveBookService.searchBooksByAvailability(availability, pageable);
     }
+
+
+    @Operation(
+            summary = "Search books by title with a cursor",
+            description = "Returns one page of books whose titles contain the given keyword, ordered by title. Pass nextCursor back to get the following page."
+    )
+    @GetMapping("/seek/title/{title}")
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByTitle(
+            @PathVariable String title,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return reactiveBookService.seekBooksByTitle(title, cursor, size);
+    }
+
+
+    @Operation(
+            summary = "Search books by author with a cursor",
+            description = "Returns one page of books written by authors whose names contain the given keyword, ordered by title. Pass nextCursor back to get the following page."
+    )
+    @GetMapping("/seek/author/{author}")
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByAuthor(
+            @PathVariable String author,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return reactiveBookService.seekBooksByAuthor(author, cursor, size);
+    }
+
+
+    @Operation(
+            summary = "Search books by genre with a cursor",
+            description = "Returns one page of books that belong to the specified genre, ordered by title. Pass nextCursor back to get the following page."
+    )
+    @GetMapping("/seek/genre/{genre}")
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByGenre(
+            @PathVariable String genre,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return reactiveBookService.seekBooksByGenre(genre, cursor, size);
+    }
+
+
+    @Operation(
+            summary = "Search books by availability with a cursor",
+            description = "Returns one page of books with the given availability status, ordered by title. Pass nextCursor back to get the following page."
+    )
+    @GetMapping("/seek/availability/{availability}")
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByAvailability(
+            @PathVariable boolean availability,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return reactiveBookService.seekBooksByAvailability(availability, cursor, size);
+    }
+
+
+    @Operation(
+            summary = "Search books by several criteria at once",
+            description = "Returns one page of books matching every given filter (title and author keywords, exact genre, availability, publishedFrom/publishedTo as yyyy-MM-dd), ordered by title, together with the catalog facet counts. Pass nextCursor back to get the following page."
+    )
+    @GetMapping("/search")
+    public Mono<PageResponse<BookSummaryDto>> searchBooks(
+            @ModelAttribute BookSearchCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return reactiveBookService.searchBooks(criteria, cursor, size);
+    }
+
+
+    @Operation(
+            summary = "Suggest titles and authors",
+            description = "Returns up to limit (max 10) titles and authors starting with the given prefix, most common first. Served from memory and meant for search-as-you-type."
+    )
+    @GetMapping("/suggest")
+    public Mono<SuggestionResponse> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return reactiveBookService.suggest(prefix, limit);
+    }
+
+
+    @Operation(
+            summary = "Get catalog facet counts",
+            description = "Returns the number of books per genre, availability status and publication year."
+    )
+    @GetMapping("/facets")
+    public Mono<FacetCounts> getFacets() {
+        return reactiveBookService.getFacets();
+    }
+
+
+    @Operation(
+            summary = "Get search cache statistics",
+            description = "Librarians can see hit, miss, eviction and invalidation counts of the search result cache."
+    )
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @GetMapping("/cache/stats")
+    public Mono<SearchCacheStats> getCacheStats() {
+        return Mono.fromSupplier(searchResultCache::stats);
+    }
 }
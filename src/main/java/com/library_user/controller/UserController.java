@@ -4,6 +4,7 @@ import com.library_user.model.request.AuthRequest;
 import com.library_user.model.request.RegisterRequest;
 import com.library_user.model.request.UpdateUserRequest;
 import com.library_user.model.response.AuthResponse;
+import com.library_user.model.response.PageResponse;
 import com.library_user.model.response.UserResponse;
 import com.library_user.service.Impl.UserServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
@@ -109,6 +110,27 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @Operation(
+            summary = "Get users with a cursor",
+            description = "Retrieves one page of users ordered by name. Pass nextCursor back to get the following page. Only librarians can access this endpoint.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Page of users",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = PageResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+            }
+    )
+    @GetMapping(
+            value = "/seek",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<PageResponse<UserResponse>> seekUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userServiceImpl.seekUsers(cursor, size));
+    }
+
     @Operation(
             summary = "Update user information",
             description = "Updates user information by user ID. Only librarians can update users.",
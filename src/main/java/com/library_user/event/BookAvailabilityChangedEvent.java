@@ -0,0 +1,10 @@
+package com.library_user.event;
+
+import java.util.UUID;
+
+/**
+ Published after a conditional update changed only the availability of a book.
+ The book itself is not loaded for these updates, so only its id and new availability are carried.
+ */
+public record BookAvailabilityChangedEvent(UUID bookId, boolean availability) {
+}
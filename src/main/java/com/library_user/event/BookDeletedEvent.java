@@ -0,0 +1,9 @@
+package com.library_user.event;
+
+import java.util.UUID;
+
+/**
+ Published after a book has been removed from the catalog
+ */
+public record BookDeletedEvent(UUID bookId) {
+}
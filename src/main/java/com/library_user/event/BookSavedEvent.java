@@ -0,0 +1,9 @@
+package com.library_user.event;
+
+import com.library_user.model.entity.Book;
+
+/**
+ Published after a book has been created or its details have been updated
+ */
+public record BookSavedEvent(Book book) {
+}
@@ -0,0 +1,21 @@
+package com.library_user.exceptions;
+
+import com.library_user.helper.ErrorMessages;
+import com.library_user.model.response.BatchBorrowingResponse;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+/**
+ Thrown when some books of a batch checkout can not be borrowed, so none of them are. Carries the reason for each of those books.
+ */
+@Getter
+public class BatchBorrowingException extends CustomException {
+    private final List<BatchBorrowingResponse.Failure> failures;
+
+    public BatchBorrowingException(List<BatchBorrowingResponse.Failure> failures) {
+        super(ErrorMessages.BATCH_BORROWING_FAILED, HttpStatus.CONFLICT);
+        this.failures = failures;
+    }
+}
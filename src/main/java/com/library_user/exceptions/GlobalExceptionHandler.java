@@ -1,6 +1,9 @@
 package com.library_user.exceptions;
 
+import com.library_user.helper.ErrorMessages;
+import com.library_user.model.response.BatchBorrowingResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -11,6 +14,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
@@ -25,6 +29,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new ExceptionResponse(apiException.getMessage(),apiException.getHttpStatus().value(), LocalDateTime.now()),apiException.getHttpStatus());
     }
 
+    /**
+     Handles BatchBorrowingException, answering with the failure of every book that could not be borrowed
+     */
+    @ExceptionHandler(BatchBorrowingException.class)
+    public ResponseEntity<BatchBorrowingResponse> handleBatchBorrowingException(BatchBorrowingException ex) {
+        log.warn("BatchBorrowingException occurred: {}", ex.getFailures());
+        return new ResponseEntity<>(new BatchBorrowingResponse(List.of(), ex.getFailures()), ex.getHttpStatus());
+    }
+
     /**
       Handles AuthorizationDeniedException, which occurs when the user is not authorized to perform an operation
       */
@@ -62,6 +75,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new ExceptionResponse(errorMessage, HttpStatus.UNAUTHORIZED.value(), LocalDateTime.now()), HttpStatus.UNAUTHORIZED);
     }
 
+    /**
+     Handles OptimisticLockingFailureException, which occurs when a versioned row was changed by another request
+     between reading and writing it
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ExceptionResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        log.warn("OptimisticLockingFailureException occurred: {}", ex.getMessage());
+        return new ResponseEntity<>(new ExceptionResponse(ErrorMessages.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT.value(), LocalDateTime.now()), HttpStatus.CONFLICT);
+    }
+
     /**
      Handles any general exception and returns an internal server error response
      */
@@ -0,0 +1,59 @@
+package com.library_user.helper;
+
+import java.util.UUID;
+
+/**
+ Strong entity tags of books, built from the book id and its version.
+ The id keeps tags of different books apart on URLs that can point to another book later, like an ISBN.
+ */
+public final class BookETag {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private BookETag() {
+    }
+
+    /**
+     Returns the quoted entity tag of the given book version
+     */
+    public static String of(UUID id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     Returns true if an If-None-Match header lists the tag or "*", comparing weakly as RFC 9110 requires for GET
+     */
+    public static boolean isNotModified(String ifNoneMatch, String eTag) {
+        return matches(ifNoneMatch, eTag, true);
+    }
+
+    /**
+     Returns true if there is no If-Match header, or it lists the tag or "*", comparing strongly as RFC 9110 requires
+     */
+    public static boolean satisfiesIfMatch(String ifMatch, String eTag) {
+        return ifMatch == null || matches(ifMatch, eTag, false);
+    }
+
+    private static boolean matches(String header, String eTag, boolean weak) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.strip();
+            if (tag.equals(ANY)) {
+                return true;
+            }
+            if (tag.startsWith(WEAK_PREFIX)) {
+                if (!weak) {
+                    continue;
+                }
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
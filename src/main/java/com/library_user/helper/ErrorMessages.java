@@ -16,5 +16,24 @@ public final class ErrorMessages {
     public static final String BOOK_ALREADY_RETURNED = "Book is already returned!";
     public static final String BORROWING_NOT_FOUND = "Borrowing book not found!";
     public static final String USER_AND_BORROW_ID_NOT_MATCH = "You can only return the book you purchased yourself.";
+    public static final String INVALID_CURSOR = "Invalid or expired page cursor!";
+    public static final String INVALID_PUBLICATION_RANGE = "publishedFrom must not be after publishedTo!";
+    public static final String IMPORT_DUPLICATE_ISBN = "ISBN appears more than once in this import: %s";
+    public static final String IMPORT_UNREADABLE_ROW = "Row could not be read: %s";
+    public static final String IMPORT_MISSING_COLUMNS = "CSV header is missing the columns: %s";
+    public static final String IMPORT_READ_FAILED = "Import input could not be read!";
+    public static final String BOOK_PRECONDITION_FAILED = "Book has changed since it was read, the If-Match header does not match!";
+    public static final String INVALID_COPY_COUNT = "Between 1 and %d copies can be added at once!";
+    public static final String BOOK_HAS_NO_COPY_ON_SHELF = "Book has no copy on the shelf, it can not be made available!";
+    public static final String COPIES_CAN_NOT_BE_REMOVED = "Copies of a book can only be added, not removed!";
+    public static final String CONCURRENT_MODIFICATION = "The record was changed by another request, reload it and try again!";
+    public static final String INVALID_IDEMPOTENCY_KEY = "Idempotency-Key must be between 1 and 255 characters!";
+    public static final String IDEMPOTENCY_KEY_REUSED = "Idempotency-Key was already used for a different request!";
+    public static final String BATCH_BORROWING_FAILED = "None of the books were borrowed, see the failures!";
+    public static final String BOOK_REQUESTED_TWICE = "Book appears more than once in this checkout!";
+    public static final String HOLD_NOT_FOUND = "The user has no hold on this book!";
+    public static final String HOLD_ALREADY_PLACED = "The user already has a hold on this book!";
+    public static final String BOOK_AVAILABLE_FOR_BORROWING = "Book has a copy on the shelf, borrow it instead of placing a hold!";
+    public static final String IDEMPOTENT_REQUEST_IN_PROGRESS = "A request with this Idempotency-Key is still being processed, retry later!";
 
 }
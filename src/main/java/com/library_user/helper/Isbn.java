@@ -0,0 +1,73 @@
+package com.library_user.helper;
+
+/**
+ Normalizes ISBN-10 and ISBN-13 strings to the numeric value of their ISBN-13 form.
+ Hyphens and spaces are ignored; strings that are not valid ISBNs map to INVALID.
+ */
+public final class Isbn {
+
+    public static final long INVALID = 0L;
+
+    private Isbn() {}
+
+    /**
+     Returns the ISBN-13 of the given ISBN as a number, or INVALID if it is not a valid ISBN-10 or ISBN-13
+     */
+    public static long toKey(String isbn) {
+        if (isbn == null) {
+            return INVALID;
+        }
+        String compact = isbn.replace("-", "").replace(" ", "");
+        if (compact.length() == 10) {
+            return fromIsbn10(compact);
+        }
+        if (compact.length() == 13) {
+            return fromIsbn13(compact);
+        }
+        return INVALID;
+    }
+
+    private static long fromIsbn10(String isbn) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = isbn.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (i == 9 && (c == 'X' || c == 'x')) {
+                digit = 10;
+            } else {
+                return INVALID;
+            }
+            sum += (10 - i) * digit;
+        }
+        if (sum % 11 != 0) {
+            return INVALID;
+        }
+        String isbn13 = "978" + isbn.substring(0, 9);
+        return Long.parseLong(isbn13) * 10 + isbn13CheckDigit(isbn13);
+    }
+
+    private static long fromIsbn13(String isbn) {
+        for (int i = 0; i < 13; i++) {
+            if (isbn.charAt(i) < '0' || isbn.charAt(i) > '9') {
+                return INVALID;
+            }
+        }
+        if (!isbn.startsWith("978") && !isbn.startsWith("979")) {
+            return INVALID;
+        }
+        if (isbn13CheckDigit(isbn.substring(0, 12)) != isbn.charAt(12) - '0') {
+            return INVALID;
+        }
+        return Long.parseLong(isbn);
+    }
+
+    private static int isbn13CheckDigit(String first12) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (first12.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,76 @@
+package com.library_user.helper;
+
+import com.library_user.exceptions.CustomException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ Position of the last row of a page in (sort key, id) order, exchanged with clients as an opaque token
+ */
+public record SeekCursor(String key, UUID id) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final char SEPARATOR = ':';
+
+    /**
+     Encodes the cursor as a URL safe token
+     */
+    public String encode() {
+        String raw = id.toString() + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     Decodes a token created by encode, returns empty for the first page
+     */
+    public static Optional<SeekCursor> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return Optional.of(new SeekCursor(raw.substring(separator + 1), UUID.fromString(raw.substring(0, separator))));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new CustomException(ErrorMessages.INVALID_CURSOR, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     Converts a token into a keyset scroll position over the given sort property followed by id
+     */
+    public static ScrollPosition position(String token, String sortProperty, Function<String, ?> keyParser) {
+        return decode(token)
+                .map(cursor -> {
+                    Map<String, Object> keys = new LinkedHashMap<>();
+                    keys.put(sortProperty, parseKey(cursor.key(), keyParser));
+                    keys.put("id", cursor.id());
+                    return (ScrollPosition) ScrollPosition.forward(keys);
+                })
+                .orElseGet(ScrollPosition::keyset);
+    }
+
+    private static Object parseKey(String key, Function<String, ?> keyParser) {
+        try {
+            return keyParser.apply(key);
+        } catch (RuntimeException e) {
+            throw new CustomException(ErrorMessages.INVALID_CURSOR, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     Clamps a requested page size to the supported range
+     */
+    public static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
@@ -1,5 +1,8 @@
 package com.library_user.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
@@ -46,4 +49,14 @@ public class BookDto {
     private String genre;
 
     private boolean availability;
+
+    @Min(value = 1, message = "A book must have at least one copy")
+    @Max(value = 1000, message = "A book can have at most 1000 copies")
+    private Integer copies;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer availableCopies;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
@@ -0,0 +1,9 @@
+package com.library_user.model.dto;
+
+import java.util.UUID;
+
+/**
+ Id and ISBN of a book, read without loading the rest of the row
+ */
+public record BookIsbn(UUID id, String isbn) {
+}
@@ -0,0 +1,19 @@
+package com.library_user.model.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ List view of a book: every BookDto field except the description.
+ Also used as a repository projection, so list queries select only these columns.
+ */
+public record BookSummaryDto(
+        UUID id,
+        String title,
+        String author,
+        String isbn,
+        LocalDate publicationDate,
+        String genre,
+        boolean availability
+) {
+}
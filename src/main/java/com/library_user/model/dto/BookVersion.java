@@ -0,0 +1,9 @@
+package com.library_user.model.dto;
+
+import java.util.UUID;
+
+/**
+ Id and version of a book, read without loading the rest of the row
+ */
+public record BookVersion(UUID id, Long version) {
+}
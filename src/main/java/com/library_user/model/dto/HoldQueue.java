@@ -0,0 +1,7 @@
+package com.library_user.model.dto;
+
+/**
+ Hold counters of a book: the tickets that left the front of the queue and the tickets issued so far
+ */
+public record HoldQueue(long head, long tail) {
+}
@@ -0,0 +1,9 @@
+package com.library_user.model.dto;
+
+import java.util.UUID;
+
+/**
+ A copy on the shelf and the book it belongs to
+ */
+public record ShelvedCopy(UUID bookId, UUID id) {
+}
@@ -1,8 +1,17 @@
 package com.library_user.model.entity;
 
 import jakarta.persistence.*;
+import com.library_user.helper.Isbn;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Check;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.SQLRestriction;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -12,12 +21,20 @@ import java.util.UUID;
 @Setter
 @Entity
 @Builder
-@Table(name = "books")
+@Table(name = "books", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_books_isbn_key", columnNames = "isbn_key")
+})
+@SQLRestriction("deleted_at is null")
+@Check(name = "ck_books_available_copies", constraints = "available_copies >= 0 and available_copies <= copies")
+@Check(name = "ck_books_genre_id", constraints = "genre_id > 0")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Book {
 
     @Id
     @Column(name = "id", updatable = false, nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidV7
     private UUID id;
 
     @Column(name = "title", nullable = false)
@@ -29,15 +46,81 @@ public class Book {
     @Column(name = "isbn", nullable = false)
     private String isbn;
 
+    /**
+     ISBN-13 form of the isbn as a number, null when the isbn is not a valid ISBN-10 or ISBN-13
+     */
+    @NaturalId(mutable = true)
+    @Column(name = "isbn_key")
+    private Long isbnKey;
+
     @Column(name = "description", nullable = false)
     private String description;
 
     @Column(name = "publication_date", nullable = false)
     private LocalDate publicationDate;
 
-    @Column(name = "genre", nullable = false)
+    @Convert(converter = GenreConverter.class)
+    @Column(name = "genre_id", nullable = false)
     private String genre;
 
     @Column(name = "availability", nullable = false)
     private boolean availability;
+
+    /**
+     Number of physical copies of the book, see BookCopy
+     */
+    @Builder.Default
+    @ColumnDefault("1")
+    @Column(name = "copies", nullable = false)
+    private int copies = 1;
+
+    /**
+     Copies on the shelf. Borrowing decrements it only while it is positive, and availability turns false with the last copy.
+     */
+    @Builder.Default
+    @ColumnDefault("1")
+    @Column(name = "available_copies", nullable = false)
+    private int availableCopies = 1;
+
+    /**
+     Hold tickets that left the front of the queue, see Hold. A waiting patron's place is their ticket minus this.
+     The hold counters are only moved by the statements of BookHoldTickets, so saving a book never writes them back.
+     */
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "hold_head", nullable = false, updatable = false)
+    private long holdHead = 0;
+
+    /**
+     Hold tickets issued so far minus the cancelled ones; the queue is empty when it equals holdHead
+     */
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "hold_tail", nullable = false, updatable = false)
+    private long holdTail = 0;
+
+    /**
+     Incremented on every update, guards concurrent writes and serves as the book's ETag
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     Set when the book is deleted. Deleted books are hidden from every query until the compaction job purges them,
+     search indexes are created in BookIndexInitializer so they can leave these rows out.
+     */
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    /**
+     Recomputes the numeric ISBN key whenever the book is written
+     */
+    @PrePersist
+    @PreUpdate
+    public void refreshIsbnKey() {
+        long key = Isbn.toKey(isbn);
+        isbnKey = key == Isbn.INVALID ? null : key;
+    }
 }
@@ -0,0 +1,43 @@
+package com.library_user.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ One physical, loanable copy of a book. The book keeps the number of copies on the shelf as a counter,
+ so borrowing claims a slot on the book first and then picks any copy that is still available.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "book_copies", indexes = @Index(name = "idx_book_copies_book_available", columnList = "book_id, available"))
+public class BookCopy {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "book_id", nullable = false)
+    private UUID bookId;
+
+    @Column(name = "available", nullable = false)
+    private boolean available;
+
+    /**
+     Creates the given number of copies of a book, all of them on the shelf
+     */
+    public static List<BookCopy> onShelf(UUID bookId, int count) {
+        List<BookCopy> copies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            copies.add(BookCopy.builder().bookId(bookId).available(true).build());
+        }
+        return copies;
+    }
+}
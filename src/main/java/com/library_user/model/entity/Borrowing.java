@@ -12,11 +12,15 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "borrowings")
+@Table(name = "borrowings", indexes = {
+        @Index(name = "idx_borrowings_user_borrow_date", columnList = "user_id, borrow_date, id"),
+        @Index(name = "idx_borrowings_due_date", columnList = "due_date, id"),
+        @Index(name = "idx_borrowings_book_id", columnList = "book_id")
+})
 public class Borrowing {
 
     @Id
-    @GeneratedValue
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -25,6 +29,12 @@ public class Borrowing {
     @Column(nullable = false)
     private UUID bookId;
 
+    /**
+     The copy that was handed out, null for borrowings of books that had no copies recorded
+     */
+    @Column
+    private UUID copyId;
+
     @Column(nullable = false)
     private LocalDate borrowDate;
 
@@ -0,0 +1,32 @@
+package com.library_user.model.entity;
+
+import com.library_user.search.GenreDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ Stores a genre name as the id of its genres row, so books only carry a small integer key.
+ Only looks ids up: genres are created by the services before a book is saved, and a query for a genre that does not
+ exist binds GenreDictionary.UNKNOWN_ID and finds nothing.
+ The dictionary is looked up lazily because converters are created while the entity manager is being built.
+ */
+@Converter
+public class GenreConverter implements AttributeConverter<String, Integer> {
+
+    private final ObjectProvider<GenreDictionary> genreDictionary;
+
+    public GenreConverter(ObjectProvider<GenreDictionary> genreDictionary) {
+        this.genreDictionary = genreDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String genre) {
+        return genre == null ? null : genreDictionary.getObject().id(genre);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer genreId) {
+        return genreId == null ? null : genreDictionary.getObject().name(genreId);
+    }
+}
@@ -0,0 +1,43 @@
+package com.library_user.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ A patron waiting for a book that has no copy on the shelf. Holds of a book are served in ticket order;
+ the book keeps the tickets issued and the tickets served as two counters, so the patron's place in the queue
+ is their ticket minus the served counter. A hold is deleted when it is served or cancelled.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "holds",
+        indexes = @Index(name = "idx_holds_book_ticket", columnList = "book_id, ticket"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_holds_user_book", columnNames = {"user_id", "book_id"}))
+public class Hold {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "book_id", nullable = false)
+    private UUID bookId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    /**
+     Place in the book's queue counted from the first hold ever placed on it; holds behind a cancelled one move up
+     */
+    @Column(name = "ticket", nullable = false)
+    private long ticket;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
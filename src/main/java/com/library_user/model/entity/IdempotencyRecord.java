@@ -0,0 +1,37 @@
+package com.library_user.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ The response a request with an Idempotency-Key produced, kept until it expires so a retry of that request
+ gets the same response without running again. The id is the SHA-256 of the caller, the operation and the key,
+ so it has a fixed length however long the email and the key are.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    /**
+     The request the key was first used with, a retry must send the same one
+     */
+    @Column(name = "request", nullable = false, length = 1000)
+    private String request;
+
+    @Column(name = "response", nullable = false, length = 4000)
+    private String response;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
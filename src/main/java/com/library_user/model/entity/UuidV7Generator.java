@@ -0,0 +1,57 @@
+package com.library_user.model.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+
+/**
+ UUIDv7 generator: 48 bits of Unix milliseconds, then a 12 bit counter, then 62 random bits.
+ The counter starts at a random value in the lower half every millisecond and is incremented within it,
+ so ids created by this JVM are strictly increasing even when the clock stalls or steps back.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int MAX_COUNTER = 0xFFF;
+
+    private static long lastMillis;
+    private static int counter;
+
+    /**
+     Returns a new UUIDv7, greater than every UUIDv7 returned before by this JVM
+     */
+    public static UUID next() {
+        long millis;
+        int sequence;
+        synchronized (UuidV7Generator.class) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                counter = RANDOM.nextInt(MAX_COUNTER / 2);
+            } else if (++counter > MAX_COUNTER) {
+                lastMillis++;
+                counter = 0;
+            }
+            millis = lastMillis;
+            sequence = counter;
+        }
+        long mostSignificant = (millis << 16) | 0x7000L | sequence;
+        long leastSignificant = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -22,6 +22,9 @@ public class BookMapper {
                 .publicationDate(book.getPublicationDate())
                 .genre(book.getGenre())
                 .availability(book.isAvailability())
+                .copies(book.getCopies())
+                .availableCopies(book.getAvailableCopies())
+                .version(book.getVersion())
                 .build();
     }
 
@@ -39,9 +42,15 @@ public class BookMapper {
         book.setPublicationDate(dto.getPublicationDate());
         book.setGenre(dto.getGenre());
         book.setAvailability(dto.isAvailability());
+        book.setCopies(dto.getCopies() == null ? 1 : dto.getCopies());
+        book.setAvailableCopies(book.getCopies());
         return book;
     }
 
+    /**
+     Copies the descriptive fields of the book. Availability and copies depend on the copies on the shelf,
+     so the service applies them with their checks.
+     */
     public static void updateEntity(Book book, BookDto dto) {
         book.setTitle(dto.getTitle());
         book.setAuthor(dto.getAuthor());
@@ -49,6 +58,5 @@ public class BookMapper {
         book.setDescription(dto.getDescription());
         book.setPublicationDate(dto.getPublicationDate());
         book.setGenre(dto.getGenre());
-        book.setAvailability(dto.isAvailability());
     }
 }
\ No newline at end of file
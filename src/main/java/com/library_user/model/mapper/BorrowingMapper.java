@@ -10,6 +10,7 @@ public class BorrowingMapper {
                 borrowing.getId(),
                 borrowing.getUserId(),
                 borrowing.getBookId(),
+                borrowing.getCopyId(),
                 borrowing.getBorrowDate(),
                 borrowing.getDueDate(),
                 borrowing.getReturnDate(),
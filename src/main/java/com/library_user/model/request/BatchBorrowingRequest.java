@@ -0,0 +1,18 @@
+package com.library_user.model.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchBorrowingRequest(
+        @NotNull(message = "User id can not null!")
+        UUID userId,
+
+        @NotEmpty(message = "Books can not be empty!")
+        @Size(max = 5, message = "At most 5 books can be borrowed at once")
+        List<@NotNull UUID> bookIds
+) {
+}
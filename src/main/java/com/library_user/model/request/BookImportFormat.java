@@ -0,0 +1,17 @@
+package com.library_user.model.request;
+
+import org.springframework.http.MediaType;
+
+/**
+ Input formats accepted by the bulk book import
+ */
+public enum BookImportFormat {
+    NDJSON,
+    CSV;
+
+    public static final String CSV_VALUE = "text/csv";
+
+    public static BookImportFormat of(MediaType contentType) {
+        return MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? NDJSON : CSV;
+    }
+}
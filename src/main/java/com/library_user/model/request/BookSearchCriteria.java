@@ -0,0 +1,15 @@
+package com.library_user.model.request;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+public record BookSearchCriteria(
+        String title,
+        String author,
+        String genre,
+        Boolean availability,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedTo
+) {
+}
@@ -0,0 +1,23 @@
+package com.library_user.model.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BulkAvailabilityRequest(
+        @NotEmpty(message = "Changes can not be empty!")
+        @Size(max = 10000, message = "At most 10000 changes can be sent at once")
+        List<@Valid @NotNull Change> changes
+) {
+
+    public record Change(
+            @NotNull(message = "Book id can not null!")
+            UUID bookId,
+            boolean availability
+    ) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.library_user.model.request;
+
+public enum SearchMode {
+    CONTAINS,
+    FUZZY
+}
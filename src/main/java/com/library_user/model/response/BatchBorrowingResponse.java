@@ -0,0 +1,20 @@
+package com.library_user.model.response;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchBorrowingResponse(
+        List<BorrowingResponse> borrowings,
+        List<Failure> failures
+) {
+
+    /**
+     Why one book of a checkout could not be borrowed, with the status a single borrow of it would have returned
+     */
+    public record Failure(
+            UUID bookId,
+            int status,
+            String message
+    ) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.library_user.model.response;
+
+import java.util.List;
+
+/**
+ Outcome of a bulk import. Rows are numbered from 1 in input order, not counting a CSV header;
+ at most the first MAX_REPORTED_ERRORS rejected rows are listed, the count covers all of them.
+ */
+public record BookImportReport(
+        int received,
+        int imported,
+        int rejected,
+        List<RowError> errors,
+        long elapsedMillis,
+        double booksPerSecond
+) {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    public record RowError(int row, String isbn, List<String> messages) {
+    }
+}
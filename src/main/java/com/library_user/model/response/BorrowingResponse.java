@@ -7,6 +7,7 @@ public record BorrowingResponse(
         UUID id,
         UUID userId,
         UUID bookId,
+        UUID copyId,
         LocalDate borrowDate,
         LocalDate dueDate,
         LocalDate returnDate,
@@ -0,0 +1,12 @@
+package com.library_user.model.response;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BulkAvailabilityResponse(
+        List<UUID> changed,
+        List<UUID> unchanged,
+        List<UUID> missing,
+        List<UUID> withoutCopies
+) {
+}
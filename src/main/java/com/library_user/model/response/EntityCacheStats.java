@@ -0,0 +1,10 @@
+package com.library_user.model.response;
+
+public record EntityCacheStats(
+        String region,
+        long hitCount,
+        long missCount,
+        long putCount,
+        double hitRate
+) {
+}
@@ -0,0 +1,10 @@
+package com.library_user.model.response;
+
+import java.util.Map;
+
+public record FacetCounts(
+        Map<String, Long> genres,
+        Map<Boolean, Long> availability,
+        Map<Integer, Long> publicationYears
+) {
+}
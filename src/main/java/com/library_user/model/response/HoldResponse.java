@@ -0,0 +1,16 @@
+package com.library_user.model.response;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ A hold with the patron's place in the queue, 1 for the patron who gets the next returned copy
+ */
+public record HoldResponse(
+        UUID id,
+        UUID userId,
+        UUID bookId,
+        long position,
+        Instant createdAt
+) {
+}
@@ -0,0 +1,36 @@
+package com.library_user.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.library_user.helper.SeekCursor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record PageResponse<T>(
+        List<T> content,
+        boolean hasMore,
+        String nextCursor,
+        @JsonInclude(JsonInclude.Include.NON_NULL) FacetCounts facets
+) {
+    public PageResponse(List<T> content, boolean hasMore, String nextCursor) {
+        this(content, hasMore, nextCursor, null);
+    }
+
+    public PageResponse<T> withFacets(FacetCounts facets) {
+        return new PageResponse<>(content, hasMore, nextCursor, facets);
+    }
+
+    public static <E, T> PageResponse<T> fromSlice(Slice<E> slice, Function<E, T> mapper) {
+        return new PageResponse<>(slice.map(mapper).getContent(), slice.hasNext(), null);
+    }
+
+    public static <E, T> PageResponse<T> fromWindow(Window<E> window, Function<E, T> mapper, Function<E, SeekCursor> cursor) {
+        List<T> content = window.stream().map(mapper).toList();
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? cursor.apply(window.getContent().getLast()).encode()
+                : null;
+        return new PageResponse<>(content, nextCursor != null, nextCursor);
+    }
+}
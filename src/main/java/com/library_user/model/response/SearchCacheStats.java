@@ -0,0 +1,12 @@
+package com.library_user.model.response;
+
+public record SearchCacheStats(
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount,
+        long evictionWeight,
+        long invalidationCount,
+        long estimatedSize
+) {
+}
@@ -0,0 +1,11 @@
+package com.library_user.model.response;
+
+import com.library_user.search.RadixTrie;
+
+import java.util.List;
+
+public record SuggestionResponse(
+        List<RadixTrie.Suggestion> titles,
+        List<RadixTrie.Suggestion> authors
+) {
+}
@@ -0,0 +1,31 @@
+package com.library_user.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ Takes copies off the shelf and puts them back in single statements that check the shelf at the same time.
+ Each statement increments the version of the changed books like an entity update would, and only those books
+ are evicted from the second-level cache.
+ */
+public interface BookCopyCounts {
+
+    /**
+     Takes one copy off the shelf of an available book; taking the last one makes the book unavailable.
+     Returns 0 if the book is missing, not available or has no copy left.
+     */
+    int claimCopy(UUID id);
+
+    /**
+     Takes one copy of each given book off the shelf in one statement, like claimCopy does for a single book.
+     Returns how many of the books had a copy to take.
+     */
+    int claimCopies(Collection<UUID> ids);
+
+    /**
+     Puts a copy back on the shelf, never above the number of copies. Putting back the first copy of a book that
+     had none left makes it available again, as does a return to a full shelf, which only happens for books lent
+     before copies were counted. Returns 0 only if the book is missing.
+     */
+    int releaseCopy(UUID id);
+}
@@ -0,0 +1,55 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.Book;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Transactional
+public class BookCopyCountsImpl implements BookCopyCounts {
+
+    private final EntityManager entityManager;
+
+    public BookCopyCountsImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int claimCopy(UUID id) {
+        return claimCopies(List.of(id));
+    }
+
+    @Override
+    public int claimCopies(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return update(ids, EntityRowUpdates.mutation(entityManager,
+                        "update books set available_copies = available_copies - 1, availability = (available_copies > 1),"
+                                + " version = version + 1"
+                                + " where id in (:ids) and availability = true and available_copies > 0 and deleted_at is null")
+                .setParameterList("ids", ids)
+                .executeUpdate());
+    }
+
+    @Override
+    public int releaseCopy(UUID id) {
+        return update(List.of(id), EntityRowUpdates.mutation(entityManager,
+                        "update books set available_copies = case when available_copies < copies then available_copies + 1 else copies end,"
+                                + " availability = case when available_copies = 0 or available_copies = copies then true else availability end,"
+                                + " version = version + 1"
+                                + " where id = :id and deleted_at is null")
+                .setParameter("id", id)
+                .executeUpdate());
+    }
+
+    private int update(Collection<UUID> ids, int updated) {
+        if (updated > 0) {
+            EntityRowUpdates.evict(entityManager, Book.class, ids);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,41 @@
+package com.library_user.repository;
+
+import com.library_user.model.dto.ShelvedCopy;
+import com.library_user.model.entity.BookCopy;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface BookCopyRepository extends JpaRepository<BookCopy, UUID> {
+
+    @Query("select c.id from BookCopy c where c.bookId = :bookId and c.available = true")
+    List<UUID> findAvailableIds(@Param("bookId") UUID bookId, Limit limit);
+
+    @Query("select new com.library_user.model.dto.ShelvedCopy(c.bookId, c.id) from BookCopy c"
+            + " where c.bookId in :bookIds and c.available = true")
+    List<ShelvedCopy> findAvailableCopies(@Param("bookIds") Collection<UUID> bookIds);
+
+    /**
+     Takes the copy off the shelf if it is still there, returns 0 if another borrower took it first
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update BookCopy c set c.available = false where c.id = :id and c.available = true")
+    int claim(@Param("id") UUID id);
+
+    /**
+     Takes the copies off the shelf in one statement, returns how many were still there
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update BookCopy c set c.available = false where c.id in :ids and c.available = true")
+    int claimAll(@Param("ids") Collection<UUID> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update BookCopy c set c.available = true where c.id = :id and c.available = false")
+    int release(@Param("id") UUID id);
+}
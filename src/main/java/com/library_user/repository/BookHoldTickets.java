@@ -0,0 +1,27 @@
+package com.library_user.repository;
+
+import java.util.UUID;
+
+/**
+ Moves the hold queue counters of a book. The counters are not part of the book a librarian edits, so these
+ statements leave its version alone and only evict the changed book from the second-level cache.
+ */
+public interface BookHoldTickets {
+
+    /**
+     Issues the next hold ticket of a book that has no copy to borrow. Returns 0 if the book is missing
+     or can be borrowed right away.
+     */
+    int issueHoldTicket(UUID id);
+
+    /**
+     Takes the ticket at the front of the hold queue. Returns 0 if nobody is waiting for the book.
+     */
+    int advanceHoldHead(UUID id);
+
+    /**
+     Takes back the last hold ticket when a hold is cancelled and the holds behind it move up.
+     Returns 0 if nobody is waiting for the book.
+     */
+    int withdrawHoldTicket(UUID id);
+}
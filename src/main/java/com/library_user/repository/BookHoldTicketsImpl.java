@@ -0,0 +1,43 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.Book;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Transactional
+public class BookHoldTicketsImpl implements BookHoldTickets {
+
+    private final EntityManager entityManager;
+
+    public BookHoldTicketsImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int issueHoldTicket(UUID id) {
+        return update(id, "update books set hold_tail = hold_tail + 1"
+                + " where id = :id and (availability = false or available_copies = 0) and deleted_at is null");
+    }
+
+    @Override
+    public int advanceHoldHead(UUID id) {
+        return update(id, "update books set hold_head = hold_head + 1 where id = :id and hold_head < hold_tail and deleted_at is null");
+    }
+
+    @Override
+    public int withdrawHoldTicket(UUID id) {
+        return update(id, "update books set hold_tail = hold_tail - 1 where id = :id and hold_head < hold_tail and deleted_at is null");
+    }
+
+    private int update(UUID id, String sql) {
+        int updated = EntityRowUpdates.mutation(entityManager, sql)
+                .setParameter("id", id)
+                .executeUpdate();
+        if (updated > 0) {
+            EntityRowUpdates.evict(entityManager, Book.class, id);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,17 @@
+package com.library_user.repository;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ Fills in isbn_key for books written before the column existed. The statements leave the version alone, so a book
+ edited at the same time neither loses its edit nor fails it, and only the keyed books are evicted from the cache.
+ */
+public interface BookIsbnKeys {
+
+    /**
+     Sets the given keys on books that still have none, in one transaction, skipping keys another book already holds.
+     Returns how many books got their key.
+     */
+    int backfillIsbnKeys(Map<UUID, Long> keys);
+}
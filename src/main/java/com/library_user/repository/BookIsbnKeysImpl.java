@@ -0,0 +1,41 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.Book;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Transactional
+public class BookIsbnKeysImpl implements BookIsbnKeys {
+
+    private final EntityManager entityManager;
+
+    public BookIsbnKeysImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int backfillIsbnKeys(Map<UUID, Long> keys) {
+        List<UUID> keyed = new ArrayList<>();
+        for (Map.Entry<UUID, Long> entry : keys.entrySet()) {
+            int updated = EntityRowUpdates.mutation(entityManager,
+                            "update books set isbn_key = :key"
+                                    + " where id = :id and isbn_key is null and deleted_at is null"
+                                    + " and not exists (select 1 from books other where other.isbn_key = :key)")
+                    .setParameter("key", entry.getValue())
+                    .setParameter("id", entry.getKey())
+                    .executeUpdate();
+            if (updated > 0) {
+                keyed.add(entry.getKey());
+            }
+        }
+        if (!keyed.isEmpty()) {
+            EntityRowUpdates.evict(entityManager, Book.class, keyed);
+        }
+        return keyed.size();
+    }
+}
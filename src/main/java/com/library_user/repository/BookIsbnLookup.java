@@ -0,0 +1,13 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.Book;
+
+import java.util.Optional;
+
+/**
+ Looks books up by their numeric ISBN natural id, so repeated lookups are answered from the second-level cache
+ */
+public interface BookIsbnLookup {
+
+    Optional<Book> findByIsbnKey(Long isbnKey);
+}
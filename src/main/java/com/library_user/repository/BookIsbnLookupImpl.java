@@ -0,0 +1,26 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.Book;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public class BookIsbnLookupImpl implements BookIsbnLookup {
+
+    private final EntityManager entityManager;
+
+    public BookIsbnLookupImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Book> findByIsbnKey(Long isbnKey) {
+        if (isbnKey == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Book.class).loadOptional(isbnKey);
+    }
+}
@@ -1,27 +1,136 @@
 package com.library_user.repository;
 
+import com.library_user.model.dto.BookIsbn;
+import com.library_user.model.dto.BookVersion;
+import com.library_user.model.dto.HoldQueue;
 import com.library_user.model.entity.Book;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, UUID> {
+public interface BookRepository extends JpaRepository<Book, UUID>, JpaSpecificationExecutor<Book>, BookSummaryQueries, BookIsbnLookup,
+        BookTombstones, BookCopyCounts, BookHoldTickets, BookIsbnKeys {
 
-    Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
+    <T> Slice<T> findByTitleContainingIgnoreCase(String title, Pageable pageable, Class<T> type);
 
-    Page<Book> findByAuthorContainingIgnoreCase(String author, Pageable pageable);
+    <T> Slice<T> findByAuthorContainingIgnoreCase(String author, Pageable pageable, Class<T> type);
 
     Optional<Book> findByIsbn(String isbn);
 
-    Page<Book> findByGenreContainingIgnoreCase(String genre, Pageable pageable);
+    boolean existsByIsbn(String isbn);
 
-    Page<Book> findByAvailability(boolean availability, Pageable pageable);
+    Optional<BookVersion> findVersionById(UUID id);
+
+    Optional<BookVersion> findVersionByIsbnKey(Long isbnKey);
+
+    Optional<BookVersion> findVersionByIsbn(String isbn);
+
+    @Query("select b.isbnKey from Book b where b.isbnKey in :isbnKeys")
+    List<Long> findExistingIsbnKeys(@Param("isbnKeys") Collection<Long> isbnKeys);
+
+    /**
+     Ids and ISBNs of books without an isbn key in id order, so rows written before the key existed can be keyed in chunks
+     */
+    @Query("select new com.library_user.model.dto.BookIsbn(b.id, b.isbn) from Book b where b.isbnKey is null order by b.id")
+    List<BookIsbn> findIsbnsWithoutKey(Limit limit);
+
+    @Query("select new com.library_user.model.dto.BookIsbn(b.id, b.isbn) from Book b"
+            + " where b.isbnKey is null and b.id > :after order by b.id")
+    List<BookIsbn> findIsbnsWithoutKeyAfter(@Param("after") UUID after, Limit limit);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    /**
+     Sets the availability of the given books in one statement, skipping books already in that state
+     and never making a book without a copy on the shelf available.
+     The versions of the changed books are incremented like an entity update would.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Book b set b.availability = :availability where b.id in :ids and b.availability <> :availability"
+            + " and (:availability = false or b.availableCopies > 0)")
+    int updateAvailability(@Param("ids") Collection<UUID> ids, @Param("availability") boolean availability);
+
+    /**
+     Sets the availability of a book only if it still has the given version and increments the version.
+     Returns 1 if the book was changed and 0 if it is missing or was changed since that version was read.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Book b set b.availability = :availability where b.id = :id and b.version = :version")
+    int updateAvailabilityAtVersion(@Param("id") UUID id, @Param("version") Long version, @Param("availability") boolean availability);
+
+    /**
+     Loads the given books and locks their rows until the transaction ends, in id order so two checkouts
+     of overlapping books can not deadlock. Bypasses the second-level cache.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id in :ids order by b.id")
+    List<Book> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    @Query("select b.id from Book b where b.id in :ids and b.availableCopies = 0")
+    List<UUID> findIdsWithoutAvailableCopies(@Param("ids") Collection<UUID> ids);
+
+    /**
+     Reads the number of copies on the shelf straight from the database, e.g. to see the result of claimCopy or releaseCopy
+     in the same transaction
+     */
+    @Query("select b.availableCopies from Book b where b.id = :id")
+    Optional<Integer> findAvailableCopiesById(@Param("id") UUID id);
+
+    @Query("select new com.library_user.model.dto.HoldQueue(b.holdHead, b.holdTail) from Book b where b.id = :id")
+    Optional<HoldQueue> findHoldQueueById(@Param("id") UUID id);
+
+    /**
+     Marks a book as deleted and releases its isbn key, so the ISBN can be added again.
+     Returns 0 if the book does not exist or is already deleted.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Book b set b.deletedAt = :deletedAt, b.isbnKey = null where b.id = :id and b.deletedAt is null")
+    int softDelete(@Param("id") UUID id, @Param("deletedAt") Instant deletedAt);
+
+    /**
+     Streams every book in id order with a forward-only cursor; must be consumed and closed inside a transaction
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAllByOrderById();
+
+    <T> Slice<T> findByGenreIn(Collection<String> genres, Pageable pageable, Class<T> type);
+
+    <T> Slice<T> findByAvailability(boolean availability, Pageable pageable, Class<T> type);
+
+    <T> List<T> findByIdIn(Collection<UUID> ids, Class<T> type);
 
     boolean existsByIdAndAvailabilityTrue(UUID bookId);
 
+    <T> Window<T> findByGenreIn(Collection<String> genres, ScrollPosition position, Sort sort, Limit limit, Class<T> type);
+
+    <T> Window<T> findByAvailability(boolean availability, ScrollPosition position, Sort sort, Limit limit, Class<T> type);
+
 }
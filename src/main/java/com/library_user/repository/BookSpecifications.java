@@ -0,0 +1,87 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.Book;
+import com.library_user.model.request.BookSearchCriteria;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ Building blocks for combined book searches. Blank criteria are skipped, so only the filters
+ the caller actually sent end up in the generated query.
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {}
+
+    /**
+     Combines every criterion that is set into a single specification
+     */
+    public static Specification<Book> matching(BookSearchCriteria criteria) {
+        return Specification.allOf(
+                titleContains(criteria.title()),
+                authorContains(criteria.author()),
+                matchingFilters(criteria)
+        );
+    }
+
+    /**
+     Combines only the criteria that can be answered from indexed columns (genre, availability, publication date)
+     */
+    public static Specification<Book> matchingFilters(BookSearchCriteria criteria) {
+        return Specification.allOf(
+                genreEquals(criteria.genre()),
+                availabilityEquals(criteria.availability()),
+                publishedFrom(criteria.publishedFrom()),
+                publishedTo(criteria.publishedTo())
+        );
+    }
+
+    public static Specification<Book> titleContains(String title) {
+        return isBlank(title) ? null : (root, query, cb) ->
+                cb.like(cb.lower(root.get("title")), likePattern(title), '\\');
+    }
+
+    public static Specification<Book> authorContains(String author) {
+        return isBlank(author) ? null : (root, query, cb) ->
+                cb.like(cb.lower(root.get("author")), likePattern(author), '\\');
+    }
+
+    /**
+     Matches the genre id, so the name must already be in the genre dictionary
+     */
+    public static Specification<Book> genreEquals(String genre) {
+        return isBlank(genre) ? null : (root, query, cb) -> cb.equal(root.get("genre"), genre.strip());
+    }
+
+    public static Specification<Book> availabilityEquals(Boolean availability) {
+        return availability == null ? null : (root, query, cb) -> cb.equal(root.get("availability"), availability);
+    }
+
+    public static Specification<Book> publishedFrom(LocalDate from) {
+        return from == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("publicationDate"), from);
+    }
+
+    public static Specification<Book> publishedTo(LocalDate to) {
+        return to == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("publicationDate"), to);
+    }
+
+    public static Specification<Book> idIn(Collection<UUID> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String likePattern(String value) {
+        String escaped = value.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,20 @@
+package com.library_user.repository;
+
+import com.library_user.helper.SeekCursor;
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.entity.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ Summary queries Spring Data cannot derive: Specification queries only return whole entities,
+ so these build the select list themselves
+ */
+public interface BookSummaryQueries {
+
+    /**
+     Returns up to limit summaries of books matching the specification, ordered by (title, id) and starting after the cursor
+     */
+    List<BookSummaryDto> findSummaries(Specification<Book> specification, SeekCursor after, int limit);
+}
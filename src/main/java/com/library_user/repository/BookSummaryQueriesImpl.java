@@ -0,0 +1,52 @@
+package com.library_user.repository;
+
+import com.library_user.helper.SeekCursor;
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class BookSummaryQueriesImpl implements BookSummaryQueries {
+
+    private final EntityManager entityManager;
+
+    public BookSummaryQueriesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<BookSummaryDto> findSummaries(Specification<Book> specification, SeekCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookSummaryDto> query = cb.createQuery(BookSummaryDto.class);
+        Root<Book> root = query.from(Book.class);
+        Path<String> title = root.get("title");
+        Path<UUID> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate matching = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (matching != null) {
+            predicates.add(matching);
+        }
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.greaterThan(title, after.key()),
+                    cb.and(cb.equal(title, after.key()), cb.greaterThan(id, after.id()))));
+        }
+
+        query.select(cb.construct(BookSummaryDto.class,
+                        id, title, root.get("author"), root.get("isbn"),
+                        root.get("publicationDate"), root.get("genre"), root.get("availability")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(title), cb.asc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
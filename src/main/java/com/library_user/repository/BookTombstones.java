@@ -0,0 +1,23 @@
+package com.library_user.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ Reads and purges deleted books. Deleted rows are invisible to entity queries, so these work on the table directly.
+ */
+public interface BookTombstones {
+
+    /**
+     Returns up to limit ids of books deleted before the cutoff that are not out on loan, in id order.
+     Returned borrowings keep the id of a purged book as history, like they keep the ids of their users.
+     */
+    List<UUID> findPurgeableIds(Instant cutoff, int limit);
+
+    /**
+     Removes the given deleted books for good in one transaction, returns how many rows were removed
+     */
+    int purgeDeleted(Collection<UUID> ids);
+}
@@ -0,0 +1,57 @@
+package com.library_user.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public class BookTombstonesImpl implements BookTombstones {
+
+    private final EntityManager entityManager;
+
+    public BookTombstonesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UUID> findPurgeableIds(Instant cutoff, int limit) {
+        return entityManager.unwrap(Session.class)
+                .createNativeQuery("select b.id from books b where b.deleted_at < :cutoff"
+                        + " and not exists (select 1 from borrowings br where br.book_id = b.id and br.return_date is null)"
+                        + " order by b.id", UUID.class)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     Removes the copies and holds of the purged books with them. Only these tables are declared as affected,
+     so Hibernate invalidates the book cache region instead of the whole second-level cache
+     */
+    @Override
+    @Transactional
+    public int purgeDeleted(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        session.createNativeMutationQuery("delete from book_copies where book_id in (:ids)")
+                .setParameterList("ids", ids)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, "book_copies")
+                .executeUpdate();
+        session.createNativeMutationQuery("delete from holds where book_id in (:ids)")
+                .setParameterList("ids", ids)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, "holds")
+                .executeUpdate();
+        return session.createNativeMutationQuery("delete from books where id in (:ids) and deleted_at is not null")
+                .setParameterList("ids", ids)
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, "books")
+                .executeUpdate();
+    }
+}
@@ -1,9 +1,16 @@
 package com.library_user.repository;
 
 import com.library_user.model.entity.Borrowing;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -11,8 +18,20 @@ import java.util.UUID;
 
 public interface BorrowingRepository extends JpaRepository<Borrowing, UUID> {
 
-    Page<Borrowing> findByUserId(UUID userId, Pageable pageable);
-    Page<Borrowing> findByReturnDateIsNullAndDueDateBefore(LocalDate date, Pageable pageable);
+    Slice<Borrowing> findByUserId(UUID userId, Pageable pageable);
+    Slice<Borrowing> findByReturnDateIsNullAndDueDateBefore(LocalDate date, Pageable pageable);
     List<Borrowing> findAllByDueDateBeforeAndOverdueFalseAndReturnDateIsNull(LocalDate date);
 
+    Window<Borrowing> findByUserId(UUID userId, ScrollPosition position, Sort sort, Limit limit);
+    Window<Borrowing> findByReturnDateIsNullAndDueDateBefore(LocalDate date, ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     Records the return of a borrowing that is still open. Returns 0 if it was already returned,
+     so two simultaneous returns of the same borrowing cannot both go through.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Borrowing b set b.returnDate = :returnDate, b.overdue = (b.dueDate < :returnDate)"
+            + " where b.id = :id and b.returnDate is null")
+    int markReturned(@Param("id") UUID id, @Param("returnDate") LocalDate returnDate);
+
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.library_user.repository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.MutationQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ Runs counter updates as native statements and evicts only the rows they change from the second-level cache.
+ A bulk update through the entity makes Hibernate drop the whole region of the entity, and its natural id region,
+ on every borrow and return. The statements here are declared against a query space no entity uses, so no region
+ is touched, and the changed ids are evicted one by one, right away and again when the transaction completes,
+ so a reader that caches the old row in between does not leave a stale entry behind.
+ */
+final class EntityRowUpdates {
+
+    private static final String QUERY_SPACE = "entity_row_updates";
+
+    private EntityRowUpdates() {
+    }
+
+    /**
+     Flushes pending changes and returns the native statement, bound to the unused query space
+     */
+    static MutationQuery mutation(EntityManager entityManager, String sql) {
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        return session.createNativeMutationQuery(sql).setHint(HibernateHints.HINT_NATIVE_SPACES, QUERY_SPACE);
+    }
+
+    static void evict(EntityManager entityManager, Class<?> entityClass, Object id) {
+        evict(entityManager, entityClass, List.of(id));
+    }
+
+    /**
+     Detaches the changed entities from the persistence context, so they are read again, and evicts them from the cache
+     */
+    static void evict(EntityManager entityManager, Class<?> entityClass, Collection<?> ids) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        for (Object id : ids) {
+            entityManager.detach(entityManager.getReference(entityClass, id));
+            cache.evict(entityClass, id);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<?> evicted = List.copyOf(ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evicted.forEach(id -> cache.evict(entityClass, id));
+                }
+            });
+        }
+    }
+}
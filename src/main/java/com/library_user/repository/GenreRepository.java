@@ -0,0 +1,13 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.Genre;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GenreRepository extends JpaRepository<Genre, Integer> {
+
+    Optional<Genre> findByCode(String code);
+}
@@ -0,0 +1,38 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.Hold;
+import com.library_user.model.response.HoldResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface HoldRepository extends JpaRepository<Hold, UUID> {
+
+    boolean existsByUserIdAndBookId(UUID userId, UUID bookId);
+
+    Optional<Hold> findByUserIdAndBookId(UUID userId, UUID bookId);
+
+    Optional<Hold> findByBookIdAndTicket(UUID bookId, long ticket);
+
+    /**
+     Reads the user's hold on a book with its place in the queue, two primary or unique key lookups whatever the queue length
+     */
+    @Query("select new com.library_user.model.response.HoldResponse(h.id, h.userId, h.bookId, h.ticket - b.holdHead, h.createdAt)"
+            + " from Hold h join Book b on b.id = h.bookId where h.userId = :userId and h.bookId = :bookId")
+    Optional<HoldResponse> findPosition(@Param("userId") UUID userId, @Param("bookId") UUID bookId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Hold h where h.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") UUID bookId);
+
+    /**
+     Moves every hold behind the given ticket one place up after that hold was cancelled
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Hold h set h.ticket = h.ticket - 1 where h.bookId = :bookId and h.ticket > :ticket")
+    int moveUpBehind(@Param("bookId") UUID bookId, @Param("ticket") long ticket);
+}
@@ -0,0 +1,46 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    Optional<IdempotencyRecord> findByIdAndExpiresAtAfter(String id, Instant now);
+
+    /**
+     Inserts the key of a request that is about to run. The response is filled in by complete in the same transaction,
+     so other transactions only ever see finished records. Fails on the primary key if the key is taken.
+     Declared against its own table only, so the second-level cache is left alone.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "insert into idempotency_keys (id, request, response, expires_at) values (:id, :request, '', :expiresAt)",
+            nativeQuery = true)
+    int claim(@Param("id") String id, @Param("request") String request, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.response = :response where r.id = :id")
+    int complete(@Param("id") String id, @Param("response") String response);
+
+    /**
+     Removes the record of a key that expired but was not purged yet, so the key can be claimed again
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.expiresAt <= :now")
+    int deleteIfExpired(@Param("id") String id, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
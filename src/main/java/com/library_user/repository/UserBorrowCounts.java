@@ -0,0 +1,27 @@
+package com.library_user.repository;
+
+import java.util.UUID;
+
+/**
+ Keeps the number of books a user has borrowed in single statements that check the limit at the same time.
+ Only the changed user is evicted from the second-level cache.
+ */
+public interface UserBorrowCounts {
+
+    /**
+     Counts one more borrowed book for the user while they are below the limit.
+     Returns 0 if the user is missing or already has the maximum number of books.
+     */
+    int incrementBorrowedBookCount(UUID id, int max);
+
+    /**
+     Counts several more borrowed books for the user if they stay within the limit.
+     Returns 0 if the user is missing or would go over the maximum.
+     */
+    int addBorrowedBookCount(UUID id, int count, int max);
+
+    /**
+     Counts one borrowed book less for the user, never going below zero. Returns 0 if nothing was changed.
+     */
+    int decrementBorrowedBookCount(UUID id);
+}
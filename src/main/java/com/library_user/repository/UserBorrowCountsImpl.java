@@ -0,0 +1,48 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.User;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Transactional
+public class UserBorrowCountsImpl implements UserBorrowCounts {
+
+    private final EntityManager entityManager;
+
+    public UserBorrowCountsImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int incrementBorrowedBookCount(UUID id, int max) {
+        return addBorrowedBookCount(id, 1, max);
+    }
+
+    @Override
+    public int addBorrowedBookCount(UUID id, int count, int max) {
+        return update(id, EntityRowUpdates.mutation(entityManager,
+                        "update users set borrowed_book_count = borrowed_book_count + :count"
+                                + " where id = :id and borrowed_book_count + :count <= :max")
+                .setParameter("id", id)
+                .setParameter("count", count)
+                .setParameter("max", max)
+                .executeUpdate());
+    }
+
+    @Override
+    public int decrementBorrowedBookCount(UUID id) {
+        return update(id, EntityRowUpdates.mutation(entityManager,
+                        "update users set borrowed_book_count = borrowed_book_count - 1 where id = :id and borrowed_book_count > 0")
+                .setParameter("id", id)
+                .executeUpdate());
+    }
+
+    private int update(UUID id, int updated) {
+        if (updated > 0) {
+            EntityRowUpdates.evict(entityManager, User.class, id);
+        }
+        return updated;
+    }
+}
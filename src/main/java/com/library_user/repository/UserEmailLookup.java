@@ -0,0 +1,13 @@
+package com.library_user.repository;
+
+import com.library_user.model.entity.User;
+
+import java.util.Optional;
+
+/**
+ Looks users up by their email natural id, so repeated lookups are answered from the second-level cache
+ */
+public interface UserEmailLookup {
+
+    Optional<User> findByEmail(String email);
+}
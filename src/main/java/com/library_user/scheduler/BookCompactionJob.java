@@ -0,0 +1,57 @@
+package com.library_user.scheduler;
+
+import com.library_user.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ Purges deleted books once they are past the retention period. Every chunk is removed in its own short transaction,
+ so the job never holds many row locks at once. Deleted books that are still out on loan are kept, hidden from
+ every query, until they are returned; returned borrowings keep the id of a purged book as their history.
+ */
+@Component
+@Slf4j
+public class BookCompactionJob {
+
+    private final BookRepository bookRepository;
+    private final Duration retention;
+    private final int chunkSize;
+
+    public BookCompactionJob(BookRepository bookRepository,
+                             @Value("${library.compaction.retention:P30D}") Duration retention,
+                             @Value("${library.compaction.chunk-size:500}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${library.compaction.cron:0 30 3 * * ?}")// every night at 03:30
+    public void compact() {
+        int purged = compact(Instant.now().minus(retention));
+        if (purged > 0) {
+            log.info("Book compaction purged {} deleted books", purged);
+        }
+    }
+
+    /**
+     Purges the deleted books not out on loan that were deleted before the cutoff, returns how many were purged
+     */
+    public int compact(Instant cutoff) {
+        int purged = 0;
+        List<UUID> chunk;
+        do {
+            chunk = bookRepository.findPurgeableIds(cutoff, chunkSize);
+            if (!chunk.isEmpty()) {
+                purged += bookRepository.purgeDeleted(chunk);
+            }
+        } while (chunk.size() == chunkSize);
+        return purged;
+    }
+}
@@ -0,0 +1,25 @@
+package com.library_user.scheduler;
+
+import com.library_user.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class IdempotencyKeyPurgeJob {
+
+    private final IdempotencyService idempotencyService;
+
+    public IdempotencyKeyPurgeJob(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Scheduled(cron = "${library.idempotency.purge-cron:0 15 * * * ?}")// every hour at :15
+    public void purgeExpiredKeys() {
+        int purged = idempotencyService.purgeExpired();
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.library_user.search;
+
+import com.library_user.event.BookAvailabilityChangedEvent;
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
+import com.library_user.model.entity.Book;
+import com.library_user.model.response.FacetCounts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Catalog-wide facet counts per genre, availability and publication year.
+ Counts are seeded once at startup and then kept up to date from book events, so reading them never
+ runs a GROUP BY. The last seen facet values of every book are kept to turn each event into a diff.
+ */
+@Component
+@Slf4j
+public class BookFacets {
+
+    private final Map<UUID, FacetKey> books = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> genres = new ConcurrentHashMap<>();
+    private final Map<Boolean, LongAdder> availability = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> publicationYears = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    /**
+     Counts a book read by the warm-up, see BookIndexWarmUp
+     */
+    public void load(Book book) {
+        apply(book.getId(), FacetKey.of(book));
+    }
+
+    /**
+     Starts reporting counts once the warm-up has counted every book
+     */
+    public void loaded() {
+        ready = true;
+        log.info("Book facets counted {} books", books.size());
+    }
+
+    /**
+     Moves a created or changed book to its current facet values
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        apply(event.book().getId(), FacetKey.of(event.book()));
+    }
+
+    /**
+     Moves a book to its new availability, keeping its other facet values
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookAvailabilityChanged(BookAvailabilityChangedEvent event) {
+        FacetKey previous = books.get(event.bookId());
+        if (previous != null) {
+            apply(event.bookId(), new FacetKey(previous.genre(), event.availability(), previous.year()));
+        }
+    }
+
+    /**
+     Removes a deleted book from the counts
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        apply(event.bookId(), null);
+    }
+
+    /**
+     Returns the current counts, leaving out values no book has, or null until the counts are seeded
+     */
+    public FacetCounts snapshot() {
+        if (!ready) {
+            return null;
+        }
+        Map<String, Long> genreCounts = new LinkedHashMap<>();
+        genres.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> genreCounts.put(entry.getKey(), entry.getValue()));
+        return new FacetCounts(genreCounts, sums(availability), sums(publicationYears));
+    }
+
+    /**
+     Replaces the facet values recorded for a book and adjusts the counters by the difference.
+     The map swap is atomic per book, so concurrent events for the same book are each counted once.
+     */
+    private void apply(UUID id, FacetKey current) {
+        FacetKey previous = current == null ? books.remove(id) : books.put(id, current);
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (previous != null) {
+            count(previous, -1);
+        }
+        if (current != null) {
+            count(current, 1);
+        }
+    }
+
+    private void count(FacetKey key, int delta) {
+        if (key.genre() != null) {
+            genres.computeIfAbsent(key.genre(), genre -> new LongAdder()).add(delta);
+        }
+        availability.computeIfAbsent(key.available(), available -> new LongAdder()).add(delta);
+        if (key.year() != null) {
+            publicationYears.computeIfAbsent(key.year(), year -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static <K> Map<K, Long> sums(Map<K, LongAdder> counters) {
+        Map<K, Long> result = new TreeMap<>();
+        counters.forEach((key, counter) -> {
+            long sum = counter.sum();
+            if (sum > 0) {
+                result.put(key, sum);
+            }
+        });
+        return result;
+    }
+
+    private record FacetKey(String genre, boolean available, Integer year) {
+        private static FacetKey of(Book book) {
+            Integer year = book.getPublicationDate() == null ? null : book.getPublicationDate().getYear();
+            return new FacetKey(book.getGenre(), book.isAvailability(), year);
+        }
+    }
+}
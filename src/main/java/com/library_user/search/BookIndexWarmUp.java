@@ -0,0 +1,165 @@
+package com.library_user.search;
+
+import com.library_user.event.BookAvailabilityChangedEvent;
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
+import com.library_user.model.entity.Book;
+import com.library_user.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ Loads every book into the search index, the facet counts and the ISBN index in one pass over the books table.
+ The books come from a single forward-only cursor in id order, so the load is one query however large the catalog is
+ and a book deleted meanwhile can not shift the others out of view. It runs on its own thread once the application
+ has started; until it is done each index answers from the database as before.
+ The cursor reads the books as they were when it opened, so books saved, deleted, borrowed or returned while it runs
+ are skipped by the pass and read again once the cursor is closed.
+ */
+@Component
+@Slf4j
+public class BookIndexWarmUp {
+
+    private static final int RELOAD_CHUNK = 500;
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookFacets bookFacets;
+    private final IsbnIndex isbnIndex;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Set<UUID> changedWhileLoading = new HashSet<>();
+    private boolean loading = true;
+
+    @Autowired
+    public BookIndexWarmUp(BookRepository bookRepository, EntityManager entityManager, BookSearchIndex bookSearchIndex,
+                           BookFacets bookFacets, IsbnIndex isbnIndex, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookFacets = bookFacets;
+        this.isbnIndex = isbnIndex;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofPlatform().name("book-index-warm-up").daemon().start(this::warmUp);
+    }
+
+    /**
+     Streams every book into the three indexes, detaching each one once loaded so memory stays flat,
+     reads the books changed meanwhile again, then fills in missing ISBN keys and marks the indexes ready
+     */
+    public void warmUp() {
+        long started = System.currentTimeMillis();
+        try {
+            Long loaded = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<Book> books = bookRepository.streamAllByOrderById()) {
+                    Iterator<Book> iterator = books.iterator();
+                    while (iterator.hasNext()) {
+                        Book book = iterator.next();
+                        entityManager.detach(book);
+                        if (load(book)) {
+                            count++;
+                        }
+                    }
+                }
+                return count;
+            });
+            long reloaded = reloadChanged();
+            bookSearchIndex.loaded();
+            bookFacets.loaded();
+            isbnIndex.loaded();
+            log.info("Book indexes loaded {} books and {} changed meanwhile in {} ms", loaded, reloaded,
+                    System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            log.error("Loading the book indexes failed, they keep answering from the database", e);
+        }
+    }
+
+    /**
+     Records books changed by an event while the load runs. Listens before the indexes do, so a book is either
+     loaded before its event is applied or skipped by the load.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        changed(event.book().getId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookAvailabilityChanged(BookAvailabilityChangedEvent event) {
+        changed(event.bookId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        changed(event.bookId());
+    }
+
+    private synchronized void changed(UUID id) {
+        if (loading) {
+            changedWhileLoading.add(id);
+        }
+    }
+
+    /**
+     Reads the books changed during the pass from the database, which is at least as new as their events, until no
+     book changes between two reads. A book changed again while it is read is skipped and read in the next round.
+     Deleted books are not found and stay out of the indexes.
+     */
+    private long reloadChanged() {
+        long count = 0;
+        while (true) {
+            List<UUID> ids;
+            synchronized (this) {
+                if (changedWhileLoading.isEmpty()) {
+                    loading = false;
+                    return count;
+                }
+                ids = List.copyOf(changedWhileLoading);
+                changedWhileLoading.clear();
+            }
+            for (int from = 0; from < ids.size(); from += RELOAD_CHUNK) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + RELOAD_CHUNK, ids.size()));
+                List<Book> books = readOnlyTransaction.execute(status -> bookRepository.findAllById(chunk));
+                for (Book book : books == null ? List.<Book>of() : books) {
+                    if (load(book)) {
+                        count++;
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized boolean load(Book book) {
+        if (changedWhileLoading.contains(book.getId())) {
+            return false;
+        }
+        bookSearchIndex.load(book);
+        bookFacets.load(book);
+        isbnIndex.load(book);
+        return true;
+    }
+}
@@ -0,0 +1,173 @@
+package com.library_user.search;
+
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
+import com.library_user.helper.SeekCursor;
+import com.library_user.model.entity.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ In-memory trigram index over book titles and authors.
+ Substring searches are answered here and only the matching rows are loaded from the database.
+ Prefix suggestions come from radix tries over the same titles and authors, weighted by the number of books,
+ and typo tolerant searches from word-level fuzzy indexes.
+ */
+@Component
+@Slf4j
+public class BookSearchIndex {
+
+    private static final Comparator<SeekCursor> TITLE_ORDER = Comparator.comparing(SeekCursor::key)
+            .thenComparing(SeekCursor::id, BookSearchIndex::compareUnsigned);
+
+    private final TrigramIndex titles = new TrigramIndex();
+    private final TrigramIndex authors = new TrigramIndex();
+    private final RadixTrie titleSuggestions = new RadixTrie();
+    private final RadixTrie authorSuggestions = new RadixTrie();
+    private final FuzzyIndex titleWords = new FuzzyIndex();
+    private final FuzzyIndex authorWords = new FuzzyIndex();
+    private volatile boolean ready;
+
+    /**
+     Adds a book read by the warm-up, see BookIndexWarmUp
+     */
+    public void load(Book book) {
+        index(book);
+    }
+
+    /**
+     Starts answering searches once the warm-up has loaded every book
+     */
+    public void loaded() {
+        ready = true;
+        log.info("Book search index loaded {} books", titles.size());
+    }
+
+    /**
+     Keeps the index in sync with books created or updated through the book service
+     */
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        index(event.book());
+    }
+
+    /**
+     Removes deleted books from the index
+     */
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookDeleted(BookDeletedEvent event) {
+        titleSuggestions.adjust(titles.text(event.bookId()), -1);
+        authorSuggestions.adjust(authors.text(event.bookId()), -1);
+        titles.remove(event.bookId());
+        authors.remove(event.bookId());
+        titleWords.remove(event.bookId());
+        authorWords.remove(event.bookId());
+    }
+
+    /**
+     Returns the ids of books whose title contains the query, or empty if the index cannot answer it
+     */
+    public Optional<List<UUID>> searchTitles(String title) {
+        return canServe(title) ? Optional.of(titles.search(title)) : Optional.empty();
+    }
+
+    /**
+     Returns the ids of books whose author contains the query, or empty if the index cannot answer it
+     */
+    public Optional<List<UUID>> searchAuthors(String author) {
+        return canServe(author) ? Optional.of(authors.search(author)) : Optional.empty();
+    }
+
+    /**
+     Returns the ids of books whose title words are all within a few typos of the query words, closest match first,
+     or empty until the index is loaded
+     */
+    public Optional<List<UUID>> fuzzyTitles(String title) {
+        return ready ? Optional.of(rank(titleWords.search(title))) : Optional.empty();
+    }
+
+    /**
+     Returns the ids of books whose author name is within a few typos of the query words, closest match first,
+     or empty until the index is loaded
+     */
+    public Optional<List<UUID>> fuzzyAuthors(String author) {
+        return ready ? Optional.of(rank(authorWords.search(author))) : Optional.empty();
+    }
+
+    /**
+     Returns the most common titles starting with the prefix, or an empty list until the index is loaded
+     */
+    public List<RadixTrie.Suggestion> suggestTitles(String prefix, int limit) {
+        return ready ? titleSuggestions.suggest(prefix, limit) : List.of();
+    }
+
+    /**
+     Returns the authors with the most books whose names start with the prefix, or an empty list until the index is loaded
+     */
+    public List<RadixTrie.Suggestion> suggestAuthors(String prefix, int limit) {
+        return ready ? authorSuggestions.suggest(prefix, limit) : List.of();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     Indexes a new or changed book, moving its suggestion weight from the old title and author to the new ones
+     */
+    private synchronized void index(Book book) {
+        String oldTitle = titles.text(book.getId());
+        String oldAuthor = authors.text(book.getId());
+        if (oldTitle != null && oldTitle.equals(book.getTitle()) && Objects.equals(oldAuthor, book.getAuthor())) {
+            return;
+        }
+        if (!Objects.equals(oldTitle, book.getTitle())) {
+            titleSuggestions.adjust(oldTitle, -1);
+            titleSuggestions.adjust(book.getTitle(), 1);
+        }
+        if (!Objects.equals(oldAuthor, book.getAuthor())) {
+            authorSuggestions.adjust(oldAuthor, -1);
+            authorSuggestions.adjust(book.getAuthor(), 1);
+        }
+        titles.put(book.getId(), book.getTitle());
+        authors.put(book.getId(), book.getAuthor());
+        titleWords.put(book.getId(), book.getTitle());
+        authorWords.put(book.getId(), book.getAuthor());
+    }
+
+    /**
+     Orders fuzzy hits by distance, then by title like the other index results
+     */
+    private List<UUID> rank(List<FuzzyIndex.Hit> hits) {
+        return hits.stream()
+                .map(hit -> new RankedHit(hit.distance(), new SeekCursor(Objects.requireNonNullElse(titles.text(hit.id()), ""), hit.id())))
+                .sorted(Comparator.comparingInt(RankedHit::distance).thenComparing(RankedHit::key, TITLE_ORDER))
+                .map(hit -> hit.key().id())
+                .toList();
+    }
+
+    private record RankedHit(int distance, SeekCursor key) {
+    }
+
+    /**
+     Orders UUIDs by their unsigned bytes, the same way the database orders uuid columns
+     */
+    private static int compareUnsigned(UUID first, UUID second) {
+        int high = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+    }
+
+    private boolean canServe(String query) {
+        return ready && TrigramIndex.isSearchable(query);
+    }
+}
@@ -0,0 +1,140 @@
+package com.library_user.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ Typo tolerant index of the words in each document.
+ Every query word is looked up in a BK-tree of the distinct vocabulary, and a document matches when each
+ query word is within the allowed edit distance of one of its words. Hits are ranked by total distance.
+ */
+public class FuzzyIndex {
+
+    private final BkTree vocabulary = new BkTree();
+    private final Map<String, Set<UUID>> postings = new HashMap<>();
+    private final Map<UUID, List<String>> docTerms = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public record Hit(UUID id, int distance) {
+    }
+
+    /**
+     Splits text into distinct lower-case words
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     Number of typos tolerated in a word: none for very short words, one for short words, two otherwise
+     */
+    public static int maxDistance(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     Adds a document or replaces the text of an existing one
+     */
+    public void put(UUID id, String text) {
+        List<String> terms = tokenize(text);
+        lock.writeLock().lock();
+        try {
+            unlink(id);
+            docTerms.put(id, terms);
+            for (String term : terms) {
+                Set<UUID> docs = postings.get(term);
+                if (docs == null) {
+                    docs = new HashSet<>();
+                    postings.put(term, docs);
+                    vocabulary.add(term);
+                }
+                docs.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Removes a document from the index, ignoring unknown ids
+     */
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            unlink(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Returns the documents matching every word of the query, closest first.
+     Words without any close vocabulary term end the search early with no hits.
+     */
+    public List<Hit> search(String query) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<UUID, Integer> distances = null;
+            for (String word : words) {
+                Map<UUID, Integer> wordDistances = new HashMap<>();
+                for (BkTree.Match match : vocabulary.search(word, maxDistance(word))) {
+                    for (UUID id : postings.getOrDefault(match.term(), Set.of())) {
+                        wordDistances.merge(id, match.distance(), Math::min);
+                    }
+                }
+                if (distances == null) {
+                    distances = wordDistances;
+                } else {
+                    distances.keySet().retainAll(wordDistances.keySet());
+                    distances.replaceAll((id, distance) -> distance + wordDistances.get(id));
+                }
+                if (distances.isEmpty()) {
+                    return List.of();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(distances.size());
+            distances.forEach((id, distance) -> hits.add(new Hit(id, distance)));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Drops the postings of a document. Terms left without documents stay in the BK-tree
+     and are skipped at lookup time because their posting list is gone.
+     */
+    private void unlink(UUID id) {
+        List<String> terms = docTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<UUID> docs = postings.get(term);
+            if (docs != null && docs.remove(id) && docs.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.library_user.search;
+
+import com.library_user.model.entity.Genre;
+import com.library_user.repository.GenreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ In-memory copy of the genres table. Genre names are matched case-insensitively, so "fiction" and "Fiction"
+ share one id, and substring searches run against this small set instead of the books table.
+ The book services intern the genre of every book before saving it; GenreConverter only looks ids up, so flushing
+ or binding a query parameter never writes a genre. New genres are inserted in their own transaction, so an id is
+ never handed out for a row that could be rolled back. The table is read with plain JDBC, which inside a transaction
+ reuses its connection instead of taking a second one from the pool.
+ */
+@Component
+public class GenreDictionary {
+
+    /**
+     Id given to names that are not in the dictionary. No genre has it, so a query for an unknown genre matches nothing,
+     and the books table rejects it, so a book is never stored with it.
+     */
+    public static final int UNKNOWN_ID = -1;
+
+    private final GenreRepository genreRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Genre> byCode = new ConcurrentHashMap<>();
+    private final Map<Integer, Genre> byId = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Autowired
+    public GenreDictionary(GenreRepository genreRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.genreRepository = genreRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     Normalizes genre names the same way for storing and matching (trimmed, case-insensitive, locale independent)
+     */
+    public static String normalize(String name) {
+        return name == null ? "" : name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     Returns the id of the genre, creating it on first use. Called by the services before a book is saved,
+     never while the persistence context is flushing.
+     */
+    public Integer intern(String name) {
+        String code = normalize(name);
+        Genre genre = load().get(code);
+        if (genre == null) {
+            genre = create(code, name.strip());
+        }
+        return genre.getId();
+    }
+
+    /**
+     Returns the id of the genre without creating it, UNKNOWN_ID if there is no such genre
+     */
+    public Integer id(String name) {
+        Genre genre = load().get(normalize(name));
+        return genre == null ? UNKNOWN_ID : genre.getId();
+    }
+
+    /**
+     Returns the name of the genre with the given id, reloading the dictionary once if the id is unknown
+     */
+    public String name(Integer id) {
+        Genre genre = byId.get(id);
+        if (genre == null && id != UNKNOWN_ID) {
+            reload();
+            genre = byId.get(id);
+        }
+        return genre == null ? null : genre.getName();
+    }
+
+    /**
+     Returns the stored name of the genre matching the given name, ignoring case
+     */
+    public Optional<String> find(String name) {
+        return Optional.ofNullable(load().get(normalize(name))).map(Genre::getName);
+    }
+
+    /**
+     Returns the names of all genres containing the fragment, ignoring case
+     */
+    public List<String> matching(String fragment) {
+        String code = normalize(fragment);
+        return load().values().stream()
+                .filter(genre -> genre.getCode().contains(code))
+                .map(Genre::getName)
+                .sorted()
+                .toList();
+    }
+
+    private Map<String, Genre> load() {
+        if (!loaded) {
+            reload();
+        }
+        return byCode;
+    }
+
+    private synchronized void reload() {
+        List<Genre> genres = jdbcTemplate.query("select id, code, name from genres", (row, i) -> Genre.builder()
+                .id(row.getInt("id"))
+                .code(row.getString("code"))
+                .name(row.getString("name"))
+                .build());
+        genres.forEach(this::remember);
+        loaded = true;
+    }
+
+    /**
+     Inserts a new genre. If another instance inserted it first, the unique code constraint fails and the
+     existing row is read instead.
+     */
+    private synchronized Genre create(String code, String name) {
+        Genre genre = byCode.get(code);
+        if (genre != null) {
+            return genre;
+        }
+        try {
+            genre = newTransaction.execute(status -> genreRepository.findByCode(code)
+                    .orElseGet(() -> genreRepository.saveAndFlush(Genre.builder().code(code).name(name).build())));
+        } catch (DataIntegrityViolationException e) {
+            genre = newTransaction.execute(status -> genreRepository.findByCode(code).orElseThrow(() -> e));
+        }
+        remember(genre);
+        return genre;
+    }
+
+    private void remember(Genre genre) {
+        byCode.put(genre.getCode(), genre);
+        byId.put(genre.getId(), genre);
+    }
+}
@@ -0,0 +1,194 @@
+package com.library_user.search;
+
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
+import com.library_user.helper.Isbn;
+import com.library_user.model.dto.BookIsbn;
+import com.library_user.model.entity.Book;
+import com.library_user.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ In-memory map from normalized ISBN-13 keys to book ids, so ISBN lookups and duplicate checks
+ are answered without querying the isbn column. Hits point at a book id that callers load or check
+ by primary key, and stale hits are dropped with forget; the unique isbn_key backs up misses.
+ Until the map is loaded, lookups go to the isbn_key index instead.
+ */
+@Component
+@Slf4j
+public class IsbnIndex {
+
+    private static final int BACKFILL_CHUNK = 500;
+
+    private final BookRepository bookRepository;
+    private final LongUuidMap ids = new LongUuidMap();
+    private final UuidLongMap keys = new UuidLongMap();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    @Autowired
+    public IsbnIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     Maps a book read by the warm-up, see BookIndexWarmUp
+     */
+    public void load(Book book) {
+        put(book);
+    }
+
+    /**
+     Fills in isbn_key for rows written before it existed and starts answering lookups from the map
+     */
+    public void loaded() {
+        long backfilled = backfill();
+        ready = true;
+        log.info("ISBN index loaded {} books, backfilled {} keys", size(), backfilled);
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        put(event.book());
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            long key = keys.remove(event.bookId());
+            if (key != UuidLongMap.EMPTY && event.bookId().equals(ids.get(key))) {
+                ids.remove(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Returns the id of the book with the given ISBN key, if any
+     */
+    public Optional<UUID> find(long key) {
+        if (key == Isbn.INVALID) {
+            return Optional.empty();
+        }
+        if (!ready) {
+            return bookRepository.findByIsbnKey(key).map(Book::getId);
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(ids.get(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Drops a mapping that turned out to point at a book that no longer exists
+     */
+    public void forget(long key, UUID id) {
+        lock.writeLock().lock();
+        try {
+            if (id.equals(ids.get(key))) {
+                ids.remove(key);
+                keys.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     Maps the current ISBN of a book to its id, removing the mapping of its previous ISBN
+     */
+    private void put(Book book) {
+        long key = Isbn.toKey(book.getIsbn());
+        lock.writeLock().lock();
+        try {
+            long previous = key == Isbn.INVALID ? keys.remove(book.getId()) : keys.put(book.getId(), key);
+            if (previous != UuidLongMap.EMPTY && previous != key && book.getId().equals(ids.get(previous))) {
+                ids.remove(previous);
+            }
+            if (key != Isbn.INVALID) {
+                ids.put(key, book.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Keys the legacy rows a chunk at a time, reading only their ids and ISBNs, so memory stays flat however many there are.
+     Rows whose ISBN is invalid or collides with another book are left without a key.
+     */
+    private long backfill() {
+        long backfilled = 0;
+        List<BookIsbn> chunk = bookRepository.findIsbnsWithoutKey(Limit.of(BACKFILL_CHUNK));
+        while (!chunk.isEmpty()) {
+            Map<UUID, Long> keys = new LinkedHashMap<>();
+            for (BookIsbn book : chunk) {
+                long key = Isbn.toKey(book.isbn());
+                if (key != Isbn.INVALID) {
+                    keys.put(book.id(), key);
+                }
+            }
+            int keyed = backfill(keys);
+            if (keyed < keys.size()) {
+                log.warn("{} books share their ISBN with another book, their ISBN key was not set", keys.size() - keyed);
+            }
+            backfilled += keyed;
+            chunk = bookRepository.findIsbnsWithoutKeyAfter(chunk.getLast().id(), Limit.of(BACKFILL_CHUNK));
+        }
+        return backfilled;
+    }
+
+    /**
+     Keys one chunk; if a book saved meanwhile took one of its keys, the chunk is retried a book at a time
+     */
+    private int backfill(Map<UUID, Long> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        try {
+            return bookRepository.backfillIsbnKeys(keys);
+        } catch (DataIntegrityViolationException e) {
+            int keyed = 0;
+            for (Map.Entry<UUID, Long> entry : keys.entrySet()) {
+                try {
+                    keyed += bookRepository.backfillIsbnKeys(Map.of(entry.getKey(), entry.getValue()));
+                } catch (DataIntegrityViolationException collision) {
+                    log.debug("Book {} lost its ISBN key to a book saved meanwhile", entry.getKey());
+                }
+            }
+            return keyed;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.library_user.search;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ Open addressing hash map from positive long keys to UUIDs, stored in three primitive arrays.
+ Avoids boxing and per-entry objects, so millions of entries take a few dozen bytes each.
+ Key 0 marks an empty slot. Not thread safe, callers guard access.
+ */
+public class LongUuidMap {
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private long[] mostSignificant;
+    private long[] leastSignificant;
+    private int mask;
+    private int size;
+
+    public LongUuidMap() {
+        allocate(1024);
+    }
+
+    public void put(long key, UUID value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        if ((size + 1) * 4L > keys.length * 3L) {
+            grow();
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            size++;
+        }
+        keys[slot] = key;
+        mostSignificant[slot] = value.getMostSignificantBits();
+        leastSignificant[slot] = value.getLeastSignificantBits();
+    }
+
+    /**
+     Returns the value of the key, or null if the key is not present
+     */
+    public UUID get(long key) {
+        int slot = find(key);
+        return slot < 0 ? null : new UUID(mostSignificant[slot], leastSignificant[slot]);
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     Removes the key, shifting later entries of the same probe run back so lookups never hit a hole
+     */
+    public void remove(long key) {
+        int gap = find(key);
+        if (gap < 0) {
+            return;
+        }
+        int i = (gap + 1) & mask;
+        while (keys[i] != EMPTY) {
+            int ideal = slot(keys[i]);
+            if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                mostSignificant[gap] = mostSignificant[i];
+                leastSignificant[gap] = leastSignificant[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int find(long key) {
+        if (key == EMPTY) {
+            return -1;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldMost = mostSignificant;
+        long[] oldLeast = leastSignificant;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], new UUID(oldMost[i], oldLeast[i]));
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mostSignificant = new long[capacity];
+        leastSignificant = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+        Arrays.fill(keys, EMPTY);
+    }
+}
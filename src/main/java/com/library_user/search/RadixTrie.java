@@ -0,0 +1,254 @@
+package com.library_user.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ Compressed prefix tree (radix tree) of normalized keys with a weight per key.
+ Every node keeps the top-k keys of its subtree, so a suggestion lookup only walks the prefix
+ and never visits the subtree below it. Weights are adjusted incrementally and the top-k lists
+ are rebuilt only along the path of the changed key.
+ */
+public class RadixTrie {
+
+    public static final int DEFAULT_TOP_K = 10;
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt((Entry entry) -> entry.weight).reversed()
+            .thenComparing(entry -> entry.key);
+
+    private final int topK;
+    private final Node root = new Node("");
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    public record Suggestion(String text, int weight) {
+    }
+
+    public RadixTrie() {
+        this(DEFAULT_TOP_K);
+    }
+
+    public RadixTrie(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     Normalizes keys the same way for indexing and lookups (trimmed, case-insensitive, locale independent)
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     Adds delta to the weight of the text, inserting it when it is new and removing it when its weight drops to zero
+     */
+    public void adjust(String text, int delta) {
+        String key = normalize(text);
+        if (key.isEmpty() || delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Node> path = delta > 0 ? insertPath(key) : findPath(key);
+            if (path == null) {
+                return;
+            }
+            Node node = path.getLast();
+            if (node.entry == null) {
+                if (delta < 0) {
+                    return;
+                }
+                node.entry = new Entry(key, text.strip());
+                size++;
+            }
+            node.entry.weight += delta;
+            if (delta > 0) {
+                node.entry.text = text.strip();
+            }
+            if (node.entry.weight <= 0) {
+                node.entry = null;
+                size--;
+                prune(path);
+            }
+            for (int i = path.size() - 1; i >= 0; i--) {
+                rank(path.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Returns up to limit keys starting with the prefix, highest weight first.
+     At most the configured top-k keys are kept per prefix.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String rest = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            while (!rest.isEmpty()) {
+                Node child = node.children.get(rest.charAt(0));
+                if (child == null) {
+                    return List.of();
+                }
+                if (child.label.startsWith(rest)) {
+                    node = child;
+                    break;
+                }
+                if (!rest.startsWith(child.label)) {
+                    return List.of();
+                }
+                rest = rest.substring(child.label.length());
+                node = child;
+            }
+            return node.top.stream()
+                    .limit(Math.max(0, limit))
+                    .map(entry -> new Suggestion(entry.text, entry.weight))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Returns the number of distinct keys
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Returns the nodes from the root to the node of the key, creating and splitting nodes as needed
+     */
+    private List<Node> insertPath(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        String rest = key;
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                child = new Node(rest);
+                node.children.put(rest.charAt(0), child);
+            } else {
+                int common = commonPrefixLength(child.label, rest);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+            }
+            path.add(child);
+            rest = rest.substring(child.label.length());
+            node = child;
+        }
+        return path;
+    }
+
+    /**
+     Returns the nodes from the root to the node of the key, or null if the key is not present
+     */
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        String rest = key;
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null || !rest.startsWith(child.label)) {
+                return null;
+            }
+            path.add(child);
+            rest = rest.substring(child.label.length());
+            node = child;
+        }
+        return path;
+    }
+
+    /**
+     Splits the edge into child after the given number of characters and returns the new middle node
+     */
+    private static Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        child.label = child.label.substring(at);
+        middle.children.put(child.label.charAt(0), child);
+        middle.top = child.top;
+        parent.children.put(middle.label.charAt(0), middle);
+        return middle;
+    }
+
+    /**
+     Removes empty leaves and merges pass-through nodes with their only child, from the bottom of the path up
+     */
+    private static void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.entry != null) {
+                continue;
+            }
+            if (node.children.isEmpty()) {
+                path.get(i - 1).children.remove(node.label.charAt(0));
+            } else if (node.children.size() == 1) {
+                Node child = node.children.values().iterator().next();
+                node.label = node.label + child.label;
+                node.children = child.children;
+                node.entry = child.entry;
+            }
+        }
+    }
+
+    /**
+     Rebuilds the top-k list of a node from its own entry and the top-k lists of its children
+     */
+    private void rank(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.entry != null) {
+            candidates.add(node.entry);
+        }
+        for (Node child : node.children.values()) {
+            candidates.addAll(child.top);
+        }
+        candidates.sort(RANKING);
+        node.top = candidates.size() > topK ? List.copyOf(candidates.subList(0, topK)) : List.copyOf(candidates);
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        int max = Math.min(first.length(), second.length());
+        int i = 0;
+        while (i < max && first.charAt(i) == second.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private String label;
+        private Map<Character, Node> children = new HashMap<>(4);
+        private Entry entry;
+        private List<Entry> top = List.of();
+
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private String text;
+        private int weight;
+
+        private Entry(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+}
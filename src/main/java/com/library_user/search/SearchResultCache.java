@@ -0,0 +1,143 @@
+package com.library_user.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library_user.event.BookAvailabilityChangedEvent;
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.entity.Book;
+import com.library_user.model.response.PageResponse;
+import com.library_user.model.response.SearchCacheStats;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ Bounded cache of search result pages. Caffeine's W-TinyLFU policy only admits pages that are requested
+ more often than the ones they would evict, and every page weighs as much as the books it holds.
+ Each page remembers which books it contains and which books its query matches, so a book change only
+ evicts the pages it can affect. Pages that a removed book shifted without containing it expire with the TTL.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final long MAX_WEIGHT = 20_000;
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    private final Cache<Key, CachedPage> cache = Caffeine.newBuilder()
+            .maximumWeight(MAX_WEIGHT)
+            .weigher((Key key, CachedPage page) -> page.weight())
+            .expireAfterWrite(TIME_TO_LIVE)
+            .recordStats()
+            .build();
+    private final LongAdder invalidations = new LongAdder();
+    private long generation;
+
+    public record Key(String operation, List<Object> arguments) {
+        public static Key of(String operation, Object... arguments) {
+            return new Key(operation, Arrays.asList(arguments));
+        }
+    }
+
+    private record CachedPage(PageResponse<BookSummaryDto> page, Set<UUID> bookIds, Predicate<Book> matches, boolean filtersAvailability) {
+        private int weight() {
+            return 1 + page.content().size();
+        }
+    }
+
+    /**
+     Returns the cached page for the key, or loads and caches it.
+     A page loaded while a book changed is returned but not cached, since it may predate the change.
+     */
+    public Mono<PageResponse<BookSummaryDto>> get(Key key, Predicate<Book> matches, Supplier<Mono<PageResponse<BookSummaryDto>>> loader) {
+        return get(key, matches, false, loader);
+    }
+
+    /**
+     Same as get, for queries that filter on availability. Such pages are also evicted when only the availability
+     of a book they do not contain changes, since the book may now match them.
+     */
+    public Mono<PageResponse<BookSummaryDto>> get(Key key, Predicate<Book> matches, boolean filtersAvailability,
+                                                  Supplier<Mono<PageResponse<BookSummaryDto>>> loader) {
+        CachedPage cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached.page());
+        }
+        long loadedAt = currentGeneration();
+        return loader.get().doOnNext(page -> put(key, new CachedPage(page, bookIds(page), matches, filtersAvailability), loadedAt));
+    }
+
+    /**
+     Evicts pages that contain the saved book or whose query it now matches.
+     Runs after the search index has seen the change, so reloaded pages are up to date.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        invalidate(page -> page.bookIds().contains(book.getId()) || page.matches().test(book));
+    }
+
+    /**
+     Evicts pages that contain the book or filter on availability, since the changed book is not loaded to test it
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookAvailabilityChanged(BookAvailabilityChangedEvent event) {
+        invalidate(page -> page.bookIds().contains(event.bookId()) || page.filtersAvailability());
+    }
+
+    /**
+     Evicts pages that contain the deleted book
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        invalidate(page -> page.bookIds().contains(event.bookId()));
+    }
+
+    public SearchCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new SearchCacheStats(stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount(),
+                stats.evictionWeight(), invalidations.sum(), cache.estimatedSize());
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    private synchronized void put(Key key, CachedPage page, long loadedAt) {
+        if (generation == loadedAt) {
+            cache.put(key, page);
+        }
+    }
+
+    private synchronized void invalidate(Predicate<CachedPage> affected) {
+        generation++;
+        cache.asMap().entrySet().removeIf(entry -> {
+            boolean remove = affected.test(entry.getValue());
+            if (remove) {
+                invalidations.increment();
+            }
+            return remove;
+        });
+    }
+
+    private static Set<UUID> bookIds(PageResponse<BookSummaryDto> page) {
+        return page.content().stream().map(BookSummaryDto::id).collect(Collectors.toSet());
+    }
+}
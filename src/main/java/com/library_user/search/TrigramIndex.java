@@ -0,0 +1,246 @@
+package com.library_user.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ Inverted index from character trigrams to documents, used to answer case-insensitive substring queries.
+ Every document gets a dense int id, posting lists are sorted int arrays, and candidates produced by
+ intersecting the posting lists are verified against the stored text before they are returned.
+ */
+public class TrigramIndex {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<UUID, Integer> docIds = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private UUID[] ids = new UUID[1024];
+    private String[] texts = new String[1024];
+    private int nextDoc;
+
+    /**
+     Normalizes text the same way for indexing and querying (case-insensitive, locale independent)
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     Returns true if the query is long enough to be answered from the index
+     */
+    public static boolean isSearchable(String query) {
+        return normalize(query).length() >= GRAM_LENGTH;
+    }
+
+    /**
+     Adds a document or replaces the text of an existing one
+     */
+    public void put(UUID id, String text) {
+        String value = text == null ? "" : text;
+        lock.writeLock().lock();
+        try {
+            Integer existing = docIds.get(id);
+            if (existing != null) {
+                if (value.equals(texts[existing])) {
+                    return;
+                }
+                unlink(existing);
+                link(existing, value);
+                return;
+            }
+            int doc = nextDoc++;
+            ensureCapacity(doc);
+            ids[doc] = id;
+            docIds.put(id, doc);
+            link(doc, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Removes a document from the index, ignoring unknown ids
+     */
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docIds.remove(id);
+            if (doc != null) {
+                unlink(doc);
+                ids[doc] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     Returns the ids of all documents containing the query, in index order.
+     Queries shorter than a trigram cannot be answered and must be checked with isSearchable first.
+     */
+    public List<UUID> search(String query) {
+        String normalized = normalize(query);
+        if (normalized.length() < GRAM_LENGTH) {
+            throw new IllegalArgumentException("Query must be at least " + GRAM_LENGTH + " characters long");
+        }
+        lock.readLock().lock();
+        try {
+            long[] grams = grams(normalized);
+            Postings[] lists = new Postings[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return Collections.emptyList();
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            int[] candidates = Arrays.copyOf(lists[0].docs, lists[0].size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.length && count > 0; i++) {
+                count = intersect(candidates, count, lists[i]);
+            }
+
+            List<UUID> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int doc = candidates[i];
+                if (normalize(texts[doc]).contains(normalized)) {
+                    result.add(ids[doc]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Returns the original text of a document, or null if it is not indexed
+     */
+    public String text(UUID id) {
+        lock.readLock().lock();
+        try {
+            Integer doc = docIds.get(id);
+            return doc == null ? null : texts[doc];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Returns the number of indexed documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(int doc, String text) {
+        texts[doc] = text;
+        for (long gram : grams(normalize(text))) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(doc);
+        }
+    }
+
+    private void unlink(int doc) {
+        for (long gram : grams(normalize(texts[doc]))) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(doc) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        texts[doc] = null;
+    }
+
+    private void ensureCapacity(int doc) {
+        if (doc >= ids.length) {
+            int capacity = Math.max(doc + 1, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+    }
+
+    /**
+     Keeps the candidates that also appear in the given posting list, returns the new candidate count
+     */
+    private static int intersect(int[] candidates, int count, Postings list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int found = Arrays.binarySearch(list.docs, from, list.size, candidates[i]);
+            if (found >= 0) {
+                candidates[kept++] = candidates[i];
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+            if (from >= list.size) {
+                break;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     Returns the distinct trigrams of the text, each packed into a long
+     */
+    private static long[] grams(String text) {
+        int count = Math.max(0, text.length() - GRAM_LENGTH + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    /**
+     Sorted, growable list of document ids
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        private void add(int doc) {
+            if (size > 0 && docs[size - 1] >= doc) {
+                int index = Arrays.binarySearch(docs, 0, size, doc);
+                if (index >= 0) {
+                    return;
+                }
+                insertAt(-index - 1, doc);
+                return;
+            }
+            insertAt(size, doc);
+        }
+
+        private void insertAt(int index, int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, index, docs, index + 1, size - index);
+            docs[index] = doc;
+            size++;
+        }
+
+        private boolean remove(int doc) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
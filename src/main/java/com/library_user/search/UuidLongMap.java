@@ -0,0 +1,125 @@
+package com.library_user.search;
+
+import java.util.UUID;
+
+/**
+ Open addressing hash map from UUIDs to positive long values, stored in three primitive arrays.
+ The reverse of LongUuidMap, with the same layout and the same cost per entry.
+ Value 0 marks an empty slot and is returned for missing keys. Not thread safe, callers guard access.
+ */
+public class UuidLongMap {
+
+    public static final long EMPTY = 0L;
+
+    private long[] mostSignificant;
+    private long[] leastSignificant;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    public UuidLongMap() {
+        allocate(1024);
+    }
+
+    /**
+     Maps the key to the value and returns the previous value, or EMPTY if the key was not present
+     */
+    public long put(UUID key, long value) {
+        if (value == EMPTY) {
+            throw new IllegalArgumentException("Value 0 is reserved");
+        }
+        if ((size + 1) * 4L > values.length * 3L) {
+            grow();
+        }
+        long most = key.getMostSignificantBits();
+        long least = key.getLeastSignificantBits();
+        int slot = slot(most, least);
+        while (values[slot] != EMPTY && (mostSignificant[slot] != most || leastSignificant[slot] != least)) {
+            slot = (slot + 1) & mask;
+        }
+        long previous = values[slot];
+        if (previous == EMPTY) {
+            size++;
+        }
+        mostSignificant[slot] = most;
+        leastSignificant[slot] = least;
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     Returns the value of the key, or EMPTY if the key is not present
+     */
+    public long get(UUID key) {
+        int slot = find(key);
+        return slot < 0 ? EMPTY : values[slot];
+    }
+
+    /**
+     Removes the key and returns its value, or EMPTY if it was not present. Later entries of the same probe run
+     are shifted back so lookups never hit a hole
+     */
+    public long remove(UUID key) {
+        int gap = find(key);
+        if (gap < 0) {
+            return EMPTY;
+        }
+        long removed = values[gap];
+        int i = (gap + 1) & mask;
+        while (values[i] != EMPTY) {
+            int ideal = slot(mostSignificant[i], leastSignificant[i]);
+            if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+                mostSignificant[gap] = mostSignificant[i];
+                leastSignificant[gap] = leastSignificant[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        values[gap] = EMPTY;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int find(UUID key) {
+        long most = key.getMostSignificantBits();
+        long least = key.getLeastSignificantBits();
+        int slot = slot(most, least);
+        while (values[slot] != EMPTY) {
+            if (mostSignificant[slot] == most && leastSignificant[slot] == least) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(long most, long least) {
+        long hash = (most ^ least * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldMost = mostSignificant;
+        long[] oldLeast = leastSignificant;
+        long[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                put(new UUID(oldMost[i], oldLeast[i]), oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostSignificant = new long[capacity];
+        leastSignificant = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.library_user.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -65,6 +66,7 @@ public class SecurityConfig {
                 AntPathRequestMatcher.antMatcher("/api/books/**"),
                 AntPathRequestMatcher.antMatcher("/api/users/**"),
                 AntPathRequestMatcher.antMatcher("/api/borrowings/**"),
+                AntPathRequestMatcher.antMatcher("/api/cache/**"),
                 AntPathRequestMatcher.antMatcher("/swagger-ui/**"),
                 AntPathRequestMatcher.antMatcher("/v3/api-docs/**"),
                 AntPathRequestMatcher.antMatcher("/webjars/**"),
@@ -77,6 +79,8 @@ public class SecurityConfig {
                 .securityMatcher(mvcMatcher)
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches resume a request that was already authorized, e.g. a streamed export
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/auth/register",
                                 "/api/auth/login",
@@ -0,0 +1,8 @@
+package com.library_user.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface BookExportService {
+    long exportBooks(OutputStream output) throws IOException;
+}
@@ -0,0 +1,10 @@
+package com.library_user.service;
+
+import com.library_user.model.request.BookImportFormat;
+import com.library_user.model.response.BookImportReport;
+
+import java.io.Reader;
+
+public interface BookImportService {
+    BookImportReport importBooks(Reader input, BookImportFormat format);
+}
@@ -1,16 +1,25 @@
 package com.library_user.service;
 
 import com.library_user.model.dto.BookDto;
+import com.library_user.model.dto.BookVersion;
+import com.library_user.model.request.BulkAvailabilityRequest;
+import com.library_user.model.response.BulkAvailabilityResponse;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface BookService {
     BookDto addBook(BookDto bookDto);
     BookDto updateBook(UUID id, BookDto bookDto);
+    BookDto updateBook(UUID id, BookDto bookDto, String ifMatch);
     void deleteBook(UUID id);
     BookDto getBookById(UUID id);
     BookDto getBookByIsbn(String isbn);
+    Optional<BookVersion> findBookVersion(UUID id);
+    Optional<BookVersion> findBookVersionByIsbn(String isbn);
     BookDto updateBookAvailability(UUID id, boolean availability);
+    BookDto addCopies(UUID id, int count);
+    BulkAvailabilityResponse updateBooksAvailability(List<BulkAvailabilityRequest.Change> changes);
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package com.library_user.service;
 
 import com.library_user.model.dto.OverDueReportDto;
+import com.library_user.model.request.BatchBorrowingRequest;
 import com.library_user.model.request.BorrowingCreateRequest;
 import com.library_user.model.request.ReturnBookRequest;
+import com.library_user.model.response.BatchBorrowingResponse;
 import com.library_user.model.response.BorrowingResponse;
+import com.library_user.model.response.HoldResponse;
+import com.library_user.model.response.PageResponse;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
@@ -16,15 +20,29 @@ public interface BorrowingService {
 
     void increaseBorrowCount(UUID userId);
 
-    void chanceBookAvailability(UUID bookId);
-
     BorrowingResponse borrowBook(BorrowingCreateRequest request);
 
+    BatchBorrowingResponse borrowBooks(BatchBorrowingRequest request);
+
     List<BorrowingResponse> getUserBorrowingHistory(Pageable pageable);
 
     List<BorrowingResponse> getAllBorrowingHistory();
 
     List<OverDueReportDto> getOverdueBooks(Pageable pageable);
 
+    PageResponse<BorrowingResponse> seekUserBorrowingHistory(String cursor, int size);
+
+    PageResponse<OverDueReportDto> seekOverdueBooks(String cursor, int size);
+
     BorrowingResponse returnBook(UUID borrowingId, ReturnBookRequest request);
+
+    HoldResponse placeHold(UUID bookId);
+
+    HoldResponse getHold(UUID bookId);
+
+    void cancelHold(UUID bookId);
+
+    int serveHolds(UUID bookId);
+
+    int cancelHolds(UUID bookId);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.library_user.service;
+
+import com.library_user.model.response.EntityCacheStats;
+
+import java.util.List;
+
+public interface EntityCacheService {
+    List<EntityCacheStats> getStatistics();
+}
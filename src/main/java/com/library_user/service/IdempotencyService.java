@@ -0,0 +1,9 @@
+package com.library_user.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    <T> T execute(String key, String operation, Object request, Class<T> type, Supplier<T> action);
+
+    int purgeExpired();
+}
@@ -0,0 +1,62 @@
+package com.library_user.service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library_user.model.entity.Book;
+import com.library_user.model.mapper.BookMapper;
+import com.library_user.repository.BookRepository;
+import com.library_user.service.BookExportService;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class BookExportServiceImpl implements BookExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public BookExportServiceImpl(BookRepository bookRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every book as one BookDto JSON object per line, in id order, and returns the number of books written.
+     * Rows come from a forward-only cursor fetched in batches and each book is detached once written,
+     * so memory stays constant however large the catalog is.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooks(OutputStream output) throws IOException {
+        long started = System.currentTimeMillis();
+        long count = 0;
+        OutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+        try (Stream<Book> books = bookRepository.streamAllByOrderById()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                buffered.write(objectMapper.writeValueAsBytes(BookMapper.toDto(book)));
+                buffered.write('\n');
+                entityManager.detach(book);
+                count++;
+            }
+        }
+        buffered.flush();
+        log.info("Exported {} books in {} ms", count, System.currentTimeMillis() - started);
+        return count;
+    }
+}
@@ -0,0 +1,292 @@
+package com.library_user.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library_user.event.BookSavedEvent;
+import com.library_user.exceptions.CustomException;
+import com.library_user.helper.CsvRecordReader;
+import com.library_user.helper.ErrorMessages;
+import com.library_user.helper.Isbn;
+import com.library_user.model.dto.BookDto;
+import com.library_user.model.entity.Book;
+import com.library_user.model.entity.BookCopy;
+import com.library_user.model.mapper.BookMapper;
+import com.library_user.model.request.BookImportFormat;
+import com.library_user.model.response.BookImportReport;
+import com.library_user.repository.BookCopyRepository;
+import com.library_user.repository.BookRepository;
+import com.library_user.search.GenreDictionary;
+import com.library_user.service.BookImportService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class BookImportServiceImpl implements BookImportService {
+
+    /** Rows checked for duplicates with one query and written in one transaction */
+    public static final int CHUNK_SIZE = 500;
+
+    private static final List<String> CSV_COLUMNS = List.of("title", "author", "isbn", "description", "publicationDate", "genre", "availability", "copies");
+    private static final List<String> REQUIRED_CSV_COLUMNS = CSV_COLUMNS.subList(0, 6);
+
+    private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final GenreDictionary genreDictionary;
+
+    @Autowired
+    public BookImportServiceImpl(BookRepository bookRepository, BookCopyRepository bookCopyRepository, Validator validator,
+                                 ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager, GenreDictionary genreDictionary) {
+        this.bookRepository = bookRepository;
+        this.bookCopyRepository = bookCopyRepository;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.genreDictionary = genreDictionary;
+    }
+
+    /**
+     * Streams books from NDJSON (one BookDto per line) or CSV (a header row naming the BookDto fields).
+     * Every row is validated like a single add, then rows are grouped into chunks: each chunk is checked
+     * for existing ISBNs with one query and inserted in one transaction, batched by Hibernate.
+     * Invalid and duplicate rows are reported and skipped, the rest of the input is still imported.
+     */
+    @Override
+    public BookImportReport importBooks(Reader input, BookImportFormat format) {
+        long started = System.nanoTime();
+        ImportRun run = new ImportRun();
+        try {
+            if (format == BookImportFormat.NDJSON) {
+                readNdjson(input, run);
+            } else {
+                readCsv(input, run);
+            }
+        } catch (IOException e) {
+            throw new CustomException(ErrorMessages.IMPORT_READ_FAILED, HttpStatus.BAD_REQUEST);
+        }
+        run.flush();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        double booksPerSecond = run.imported * 1000.0 / Math.max(1, elapsedMillis);
+        log.info("Imported {} of {} books in {} ms", run.imported, run.received, elapsedMillis);
+        return new BookImportReport(run.received, run.imported, run.rejected, run.errors, elapsedMillis, booksPerSecond);
+    }
+
+    private void readNdjson(Reader input, ImportRun run) throws IOException {
+        BufferedReader lines = new BufferedReader(input);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int row = run.nextRow();
+            try {
+                BookDto book = objectMapper.readValue(line, BookDto.class);
+                if (book == null) {
+                    run.reject(row, null, List.of(String.format(ErrorMessages.IMPORT_UNREADABLE_ROW, "null")));
+                } else {
+                    run.accept(row, book);
+                }
+            } catch (JsonProcessingException e) {
+                run.reject(row, null, List.of(String.format(ErrorMessages.IMPORT_UNREADABLE_ROW, e.getOriginalMessage())));
+            }
+        }
+    }
+
+    private void readCsv(Reader input, ImportRun run) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(input);
+        List<String> header = records.next();
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).strip().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        List<String> missing = REQUIRED_CSV_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column.toLowerCase(Locale.ROOT)))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new CustomException(String.format(ErrorMessages.IMPORT_MISSING_COLUMNS, missing), HttpStatus.BAD_REQUEST);
+        }
+        List<String> record;
+        while ((record = records.next()) != null) {
+            if (record.size() == 1 && record.getFirst().isBlank()) {
+                continue;
+            }
+            int row = run.nextRow();
+            Map<String, String> values = new HashMap<>();
+            for (String column : CSV_COLUMNS) {
+                Integer index = columns.get(column.toLowerCase(Locale.ROOT));
+                values.put(column, index != null && index < record.size() ? record.get(index) : null);
+            }
+            try {
+                run.accept(row, toDto(values));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                run.reject(row, values.get("isbn"), List.of(String.format(ErrorMessages.IMPORT_UNREADABLE_ROW, e.getMessage())));
+            }
+        }
+    }
+
+    private static BookDto toDto(Map<String, String> values) {
+        String publicationDate = values.get("publicationDate");
+        String copies = values.get("copies");
+        return BookDto.builder()
+                .title(values.get("title"))
+                .author(values.get("author"))
+                .isbn(values.get("isbn"))
+                .description(values.get("description"))
+                .publicationDate(publicationDate == null || publicationDate.isBlank() ? null : LocalDate.parse(publicationDate.strip()))
+                .genre(values.get("genre"))
+                .availability(Boolean.parseBoolean(values.get("availability") == null ? null : values.get("availability").strip()))
+                .copies(copies == null || copies.isBlank() ? null : Integer.valueOf(copies.strip()))
+                .build();
+    }
+
+    private record Row(int row, BookDto book) {
+    }
+
+    /**
+     State of one import: counters, the error report, the pending chunk and the ISBNs already seen in the input
+     */
+    private final class ImportRun {
+        private final List<Row> pending = new ArrayList<>(CHUNK_SIZE);
+        private final List<BookImportReport.RowError> errors = new ArrayList<>();
+        private final Set<Long> seenKeys = new HashSet<>();
+        private final Set<String> seenIsbns = new HashSet<>();
+        private int received;
+        private int imported;
+        private int rejected;
+
+        private int nextRow() {
+            return ++received;
+        }
+
+        private void accept(int row, BookDto book) {
+            Set<ConstraintViolation<BookDto>> violations = validator.validate(book);
+            if (!violations.isEmpty()) {
+                reject(row, book.getIsbn(), violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .toList());
+                return;
+            }
+            long key = Isbn.toKey(book.getIsbn());
+            boolean first = key == Isbn.INVALID ? seenIsbns.add(book.getIsbn()) : seenKeys.add(key);
+            if (!first) {
+                reject(row, book.getIsbn(), List.of(String.format(ErrorMessages.IMPORT_DUPLICATE_ISBN, book.getIsbn())));
+                return;
+            }
+            pending.add(new Row(row, book));
+            if (pending.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void reject(int row, String isbn, List<String> messages) {
+            rejected++;
+            if (errors.size() < BookImportReport.MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportReport.RowError(row, isbn, messages));
+            }
+        }
+
+        /**
+         Drops rows whose ISBN is already stored, found with one query per ISBN kind, and inserts the rest
+         */
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Long> keys = new ArrayList<>();
+            List<String> isbns = new ArrayList<>();
+            for (Row row : pending) {
+                long key = Isbn.toKey(row.book().getIsbn());
+                if (key == Isbn.INVALID) {
+                    isbns.add(row.book().getIsbn());
+                } else {
+                    keys.add(key);
+                }
+            }
+            Set<Long> existingKeys = keys.isEmpty() ? Set.of() : new HashSet<>(bookRepository.findExistingIsbnKeys(keys));
+            Set<String> existingIsbns = isbns.isEmpty() ? Set.of() : new HashSet<>(bookRepository.findExistingIsbns(isbns));
+
+            List<Row> inserts = new ArrayList<>(pending.size());
+            for (Row row : pending) {
+                long key = Isbn.toKey(row.book().getIsbn());
+                if (key == Isbn.INVALID ? existingIsbns.contains(row.book().getIsbn()) : existingKeys.contains(key)) {
+                    rejectExisting(row);
+                } else {
+                    inserts.add(row);
+                }
+            }
+            pending.clear();
+            insert(inserts);
+        }
+
+        /**
+         Inserts the rows in one transaction. If a concurrent writer took one of the ISBNs in the meantime,
+         the chunk is rolled back and its rows are retried one by one so only the conflicting rows are rejected.
+         */
+        private void insert(List<Row> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                imported += save(rows);
+            } catch (DataIntegrityViolationException e) {
+                for (Row row : rows) {
+                    try {
+                        imported += save(List.of(row));
+                    } catch (DataIntegrityViolationException duplicate) {
+                        rejectExisting(row);
+                    }
+                }
+            }
+        }
+
+        /**
+         Saves the rows in one transaction, after creating their genres outside of it
+         */
+        private int save(List<Row> rows) {
+            rows.stream().map(row -> row.book().getGenre()).filter(Objects::nonNull).distinct().forEach(genreDictionary::intern);
+            Integer saved = transaction.execute(status -> {
+                List<Book> books = bookRepository.saveAll(rows.stream().map(row -> BookMapper.toEntity(row.book())).toList());
+                bookRepository.flush();
+                bookCopyRepository.saveAll(books.stream().flatMap(book -> BookCopy.onShelf(book.getId(), book.getCopies()).stream()).toList());
+                books.forEach(book -> eventPublisher.publishEvent(new BookSavedEvent(book)));
+                return books.size();
+            });
+            return saved == null ? 0 : saved;
+        }
+
+        private void rejectExisting(Row row) {
+            reject(row.row(), row.book().getIsbn(), List.of(String.format(ErrorMessages.BOOK_ALREADY_EXISTS_ISBN, row.book().getIsbn())));
+        }
+    }
+}
@@ -1,51 +1,163 @@
 package com.library_user.service.Impl;
 
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
 import com.library_user.exceptions.CustomException;
 import com.library_user.model.dto.BookDto;
+import com.library_user.model.dto.BookVersion;
 import com.library_user.model.entity.Book;
+import com.library_user.model.entity.BookCopy;
+import com.library_user.helper.BookETag;
 import com.library_user.helper.ErrorMessages;
+import com.library_user.helper.Isbn;
 import com.library_user.model.mapper.BookMapper;
+import com.library_user.model.request.BulkAvailabilityRequest;
+import com.library_user.model.response.BulkAvailabilityResponse;
+import com.library_user.repository.BookCopyRepository;
 import com.library_user.repository.BookRepository;
+import com.library_user.search.GenreDictionary;
+import com.library_user.search.IsbnIndex;
 import com.library_user.service.BookService;
+import com.library_user.service.BorrowingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    /** Ids per set-based availability UPDATE, keeps the IN list well under driver parameter limits */
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    /** Most copies added to a book in one request */
+    private static final int MAX_COPIES_PER_REQUEST = 1000;
+
     private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IsbnIndex isbnIndex;
+    private final GenreDictionary genreDictionary;
+    private final BorrowingService borrowingService;
 
     @Autowired
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, BookCopyRepository bookCopyRepository,
+                           ApplicationEventPublisher eventPublisher, IsbnIndex isbnIndex, GenreDictionary genreDictionary,
+                           BorrowingService borrowingService) {
         this.bookRepository = bookRepository;
+        this.bookCopyRepository = bookCopyRepository;
+        this.eventPublisher = eventPublisher;
+        this.isbnIndex = isbnIndex;
+        this.genreDictionary = genreDictionary;
+        this.borrowingService = borrowingService;
     }
 
     /**
-     Checks if a book with the given ISBN already exists.
+     Checks if a book other than the given one already has the ISBN.
+     Valid ISBNs are compared in their ISBN-13 form through the ISBN index, so a miss needs no query
+     and a hit costs a primary key lookup; anything else falls back to the raw isbn column.
      */
-    private void checkBookExistsByIsbn(String isbn) {
-        if (bookRepository.findByIsbn(isbn).isPresent()) {
-            throw new CustomException(
-                    String.format(ErrorMessages.BOOK_ALREADY_EXISTS_ISBN, isbn),
-                    HttpStatus.CONFLICT
-            );
+    private void checkBookExistsByIsbn(String isbn, UUID excludedId) {
+        long key = Isbn.toKey(isbn);
+        boolean exists;
+        if (key == Isbn.INVALID) {
+            exists = bookRepository.findByIsbn(isbn)
+                    .filter(book -> !book.getId().equals(excludedId))
+                    .isPresent();
+        } else {
+            exists = isbnIndex.find(key)
+                    .filter(id -> !id.equals(excludedId))
+                    .filter(id -> existsOrForget(key, id))
+                    .isPresent();
+        }
+        if (exists) {
+            throw duplicateIsbn(isbn);
+        }
+    }
+
+    private boolean existsOrForget(long key, UUID id) {
+        if (bookRepository.existsById(id)) {
+            return true;
+        }
+        isbnIndex.forget(key, id);
+        return false;
+    }
+
+    /**
+     Saves the book. Books with a valid ISBN are flushed, so a duplicate the index has not seen yet
+     (a concurrent insert, or a write that bypassed this service) is rejected by the unique isbn_key
+     here and reported as a conflict.
+     */
+    private Book saveUniqueIsbn(Book book) {
+        if (Isbn.toKey(book.getIsbn()) == Isbn.INVALID) {
+            return bookRepository.save(book);
+        }
+        try {
+            return bookRepository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateIsbn(book.getIsbn());
+        }
+    }
+
+    /**
+     Returns how many copies an update adds; leaving the copies out keeps the current number.
+     Copies are tracked one by one on loan and on the shelf, so they can not be removed by setting a lower number.
+     */
+    private static int addedCopies(Book book, BookDto bookDto) {
+        if (bookDto.getCopies() == null) {
+            return 0;
+        }
+        int added = bookDto.getCopies() - book.getCopies();
+        if (added < 0) {
+            throw new CustomException(ErrorMessages.COPIES_CAN_NOT_BE_REMOVED, HttpStatus.CONFLICT);
         }
+        return added;
+    }
+
+    /**
+     Creates the genre of the book if it is new, before the book is flushed
+     */
+    private void internGenre(BookDto bookDto) {
+        if (bookDto.getGenre() != null) {
+            genreDictionary.intern(bookDto.getGenre());
+        }
+    }
+
+    private static CustomException duplicateIsbn(String isbn) {
+        return new CustomException(
+                String.format(ErrorMessages.BOOK_ALREADY_EXISTS_ISBN, isbn),
+                HttpStatus.CONFLICT
+        );
     }
 
     /**
      Adds a new book to the database. Throws exception if ISBN already exists.
       */
     @Override
+    @Transactional
     public BookDto addBook(BookDto bookDto) {
-        checkBookExistsByIsbn(bookDto.getIsbn());
+        checkBookExistsByIsbn(bookDto.getIsbn(), null);
+        internGenre(bookDto);
         Book book = BookMapper.toEntity(bookDto);
-        Book saved = bookRepository.save(book);
+        Book saved = saveUniqueIsbn(book);
+        bookCopyRepository.saveAll(BookCopy.onShelf(saved.getId(), saved.getCopies()));
+        eventPublisher.publishEvent(new BookSavedEvent(saved));
         return BookMapper.toDto(saved);
     }
 
@@ -53,25 +165,72 @@ public class BookServiceImpl implements BookService {
      Updates the details of an existing book. Throws exception if book not found.
       */
     @Override
+    @Transactional
     public BookDto updateBook(UUID id, BookDto bookDto) {
+        return updateBook(id, bookDto, null);
+    }
+
+    /**
+     Updates the details of an existing book if its ETag satisfies the If-Match header, when one is given.
+     The version read here is checked again by the UPDATE, so a write that slips in between is rejected too:
+     with 412 when the client sent If-Match, otherwise with 409.
+     Copies can be added but not removed, the new ones go on the shelf, and the book can only be made available
+     while it has a copy on the shelf. Copies put on the shelf are lent to the patrons holding the book first.
+      */
+    @Override
+    @Transactional
+    public BookDto updateBook(UUID id, BookDto bookDto, String ifMatch) {
         Book book = findByIdOrThrow(id);
+        if (!BookETag.satisfiesIfMatch(ifMatch, BookETag.of(book.getId(), book.getVersion()))) {
+            throw new CustomException(ErrorMessages.BOOK_PRECONDITION_FAILED, HttpStatus.PRECONDITION_FAILED);
+        }
+        if (bookDto.getIsbn() != null && !bookDto.getIsbn().equals(book.getIsbn())) {
+            checkBookExistsByIsbn(bookDto.getIsbn(), id);
+        }
+        internGenre(bookDto);
+        int addedCopies = addedCopies(book, bookDto);
+        book.setCopies(book.getCopies() + addedCopies);
+        book.setAvailableCopies(book.getAvailableCopies() + addedCopies);
+        if (bookDto.isAvailability() && book.getAvailableCopies() == 0) {
+            throw new CustomException(ErrorMessages.BOOK_HAS_NO_COPY_ON_SHELF, HttpStatus.CONFLICT);
+        }
+        boolean madeAvailable = bookDto.isAvailability() && !book.isAvailability();
         BookMapper.updateEntity(book, bookDto);
-        Book updated = bookRepository.save(book);
+        book.setAvailability(bookDto.isAvailability());
+        Book updated;
+        try {
+            updated = saveUniqueIsbn(book);
+        } catch (OptimisticLockingFailureException e) {
+            throw ifMatch == null
+                    ? new CustomException(ErrorMessages.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT)
+                    : new CustomException(ErrorMessages.BOOK_PRECONDITION_FAILED, HttpStatus.PRECONDITION_FAILED);
+        }
+        if (addedCopies > 0) {
+            bookCopyRepository.saveAll(BookCopy.onShelf(id, addedCopies));
+        }
+        if ((madeAvailable || addedCopies > 0) && borrowingService.serveHolds(id) > 0) {
+            updated = findByIdOrThrow(id);
+        }
+        eventPublisher.publishEvent(new BookSavedEvent(updated));
         return BookMapper.toDto(updated);
     }
 
     /**
-     Deletes a book by ID. Throws exception if book does not exist.
+     Deletes a book by ID with a single conditional update that marks it as deleted, so borrowings that refer to it
+     keep resolving until the compaction job purges it, and cancels the holds waiting for it.
+     Throws exception if book does not exist.
       */
     @Override
+    @Transactional
     public void deleteBook(UUID id) {
-        if (!bookRepository.existsById(id)) {
+        if (bookRepository.softDelete(id, Instant.now()) == 0) {
             throw new CustomException(
                     String.format(ErrorMessages.BOOK_NOT_FOUND_ID, id),
                     HttpStatus.NOT_FOUND
             );
         }
-        bookRepository.deleteById(id);
+        borrowingService.cancelHolds(id);
+        eventPublisher.publishEvent(new BookDeletedEvent(id));
     }
 
     /**
@@ -85,25 +244,167 @@ public class BookServiceImpl implements BookService {
 
     /**
      Retrieves a book by ISBN. Throws exception if book not found.
+     Any hyphenated ISBN-10 or ISBN-13 form finds the book through the ISBN index and its primary key,
+     falling back to the unique isbn_key for books the index has not seen yet.
      * */
     @Override
     public BookDto getBookByIsbn(String isbn) {
-        Book book = bookRepository.findByIsbn(isbn)
+        long key = Isbn.toKey(isbn);
+        Optional<Book> book;
+        if (key == Isbn.INVALID) {
+            book = bookRepository.findByIsbn(isbn);
+        } else {
+            book = isbnIndex.find(key).flatMap(id -> {
+                Optional<Book> found = bookRepository.findById(id);
+                if (found.isEmpty()) {
+                    isbnIndex.forget(key, id);
+                }
+                return found;
+            }).or(() -> bookRepository.findByIsbnKey(key));
+        }
+        return book.map(BookMapper::toDto)
                 .orElseThrow(() -> new CustomException(ErrorMessages.BOOK_NOT_FOUND_ISBN + isbn, HttpStatus.NOT_FOUND));
-        return BookMapper.toDto(book);
     }
 
     /**
-     Updates the availability status of a book. Throws exception if book not found.
+     Reads only the id and version of a book, enough to answer a conditional GET without loading the book
+     * */
+    @Override
+    public Optional<BookVersion> findBookVersion(UUID id) {
+        return bookRepository.findVersionById(id);
+    }
+
+    /**
+     Reads only the id and version of the book with the ISBN, resolving it like getBookByIsbn
      * */
     @Override
+    public Optional<BookVersion> findBookVersionByIsbn(String isbn) {
+        long key = Isbn.toKey(isbn);
+        if (key == Isbn.INVALID) {
+            return bookRepository.findVersionByIsbn(isbn);
+        }
+        return isbnIndex.find(key).flatMap(id -> {
+            Optional<BookVersion> found = bookRepository.findVersionById(id);
+            if (found.isEmpty()) {
+                isbnIndex.forget(key, id);
+            }
+            return found;
+        }).or(() -> bookRepository.findVersionByIsbnKey(key));
+    }
+
+    /**
+     Updates the availability status of a book with a compare-and-set on the version it was read at, so a concurrent
+     change is reported as a conflict instead of being overwritten. The read is usually served by the entity cache,
+     leaving the conditional update as the only statement. Setting the state a book already has is a no-op.
+     Copies on the shelf of a book made available go to the patrons holding it first, and a book without a copy
+     on the shelf can not be made available; claiming a copy changes the version, so the check holds until the update.
+     Throws exception if book not found.
+     * */
+    @Override
+    @Transactional
     public BookDto updateBookAvailability(UUID id, boolean availability) {
         Book book = findByIdOrThrow(id);
-        book.setAvailability(availability);
-        Book updated = bookRepository.save(book);
-        return BookMapper.toDto(updated);
+        if (book.isAvailability() == availability) {
+            return BookMapper.toDto(book);
+        }
+        if (availability && book.getAvailableCopies() == 0) {
+            throw new CustomException(ErrorMessages.BOOK_HAS_NO_COPY_ON_SHELF, HttpStatus.CONFLICT);
+        }
+        if (bookRepository.updateAvailabilityAtVersion(id, book.getVersion(), availability) == 0) {
+            throw new CustomException(ErrorMessages.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
+        }
+        if (availability && borrowingService.serveHolds(id) > 0) {
+            book = findByIdOrThrow(id);
+        } else {
+            // the update cleared the persistence context, so this only changes the detached copy sent with the event
+            book.setAvailability(availability);
+            book.setVersion(book.getVersion() + 1);
+        }
+        eventPublisher.publishEvent(new BookSavedEvent(book));
+        return BookMapper.toDto(book);
     }
 
+    /**
+     Adds copies of a book, all of them on the shelf, and makes the book available.
+     The counters are changed through the entity, so a concurrent borrow makes this fail with a conflict
+     instead of being overwritten. The new copies are lent to the patrons holding the book before anyone else can borrow them.
+     * */
+    @Override
+    @Transactional
+    public BookDto addCopies(UUID id, int count) {
+        if (count < 1 || count > MAX_COPIES_PER_REQUEST) {
+            throw new CustomException(String.format(ErrorMessages.INVALID_COPY_COUNT, MAX_COPIES_PER_REQUEST), HttpStatus.BAD_REQUEST);
+        }
+        Book book = findByIdOrThrow(id);
+        book.setCopies(book.getCopies() + count);
+        book.setAvailableCopies(book.getAvailableCopies() + count);
+        book.setAvailability(true);
+        Book saved = bookRepository.saveAndFlush(book);
+        bookCopyRepository.saveAll(BookCopy.onShelf(id, count));
+        if (borrowingService.serveHolds(id) > 0) {
+            saved = findByIdOrThrow(id);
+        }
+        eventPublisher.publishEvent(new BookSavedEvent(saved));
+        return BookMapper.toDto(saved);
+    }
+
+    /**
+     Sets the availability of many books with one set-based UPDATE per chunk and target state.
+     Each chunk is read and locked once to tell changed, unchanged and missing ids apart, so a borrow or return can not
+     change a book between that read and the update; when an id is sent more than once the last change wins.
+     The changed books are read again and published with a BookSavedEvent so indexes and caches follow.
+     Books made available are lent to the patrons holding them first; books without a copy on the shelf stay unavailable
+     and are reported apart.
+     * */
+    @Override
+    @Transactional
+    public BulkAvailabilityResponse updateBooksAvailability(List<BulkAvailabilityRequest.Change> changes) {
+        Map<UUID, Boolean> targets = new LinkedHashMap<>();
+        changes.forEach(change -> targets.put(change.bookId(), change.availability()));
+        List<UUID> ids = new ArrayList<>(targets.keySet());
+        List<UUID> changed = new ArrayList<>();
+        List<UUID> unchanged = new ArrayList<>();
+        List<UUID> missing = new ArrayList<>();
+        List<UUID> withoutCopies = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            Map<UUID, Book> books = bookRepository.findAllByIdForUpdate(chunk).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+            Map<Boolean, List<Book>> toChange = new LinkedHashMap<>();
+            for (UUID id : chunk) {
+                Book book = books.get(id);
+                boolean target = targets.get(id);
+                if (book == null) {
+                    missing.add(id);
+                } else if (book.isAvailability() == target) {
+                    unchanged.add(id);
+                } else if (target && book.getAvailableCopies() == 0) {
+                    withoutCopies.add(id);
+                } else {
+                    toChange.computeIfAbsent(target, key -> new ArrayList<>()).add(book);
+                }
+            }
+            toChange.forEach((availability, group) -> {
+                List<UUID> groupIds = group.stream().map(Book::getId).toList();
+                bookRepository.updateAvailability(groupIds, availability);
+                if (availability) {
+                    groupIds.forEach(borrowingService::serveHolds);
+                }
+                Map<UUID, Book> updated = bookRepository.findAllById(groupIds).stream()
+                        .collect(Collectors.toMap(Book::getId, Function.identity()));
+                for (UUID id : groupIds) {
+                    Book book = updated.get(id);
+                    if (book != null && !Objects.equals(book.getVersion(), books.get(id).getVersion())) {
+                        changed.add(id);
+                        eventPublisher.publishEvent(new BookSavedEvent(book));
+                    } else {
+                        unchanged.add(id);
+                    }
+                }
+            });
+        }
+        return new BulkAvailabilityResponse(changed, unchanged, missing, withoutCopies);
+    }
 
     /**
      Retrieves a book by ID or throws a not found exception
@@ -1,42 +1,82 @@
 package com.library_user.service.Impl;
 
+import com.library_user.event.BookAvailabilityChangedEvent;
+import com.library_user.exceptions.BatchBorrowingException;
 import com.library_user.exceptions.CustomException;
+import com.library_user.helper.SeekCursor;
+import com.library_user.model.dto.HoldQueue;
 import com.library_user.model.dto.OverDueReportDto;
 import com.library_user.model.entity.Book;
 import com.library_user.model.entity.Borrowing;
+import com.library_user.model.entity.Hold;
 import com.library_user.model.entity.User;
 import com.library_user.helper.ErrorMessages;
 import com.library_user.model.mapper.BorrowingMapper;
+import com.library_user.model.request.BatchBorrowingRequest;
 import com.library_user.model.request.BorrowingCreateRequest;
 import com.library_user.model.request.ReturnBookRequest;
+import com.library_user.model.response.BatchBorrowingResponse;
 import com.library_user.model.response.BorrowingResponse;
+import com.library_user.model.response.HoldResponse;
+import com.library_user.model.response.PageResponse;
+import com.library_user.repository.BookCopyRepository;
 import com.library_user.repository.BookRepository;
 import com.library_user.repository.BorrowingRepository;
+import com.library_user.repository.HoldRepository;
 import com.library_user.repository.UserRepository;
 import com.library_user.service.BorrowingService;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class BorrowingServiceImpl implements BorrowingService {
+    private static final Sort BORROW_DATE_ORDER = Sort.by("borrowDate", "id");
+    private static final Sort DUE_DATE_ORDER = Sort.by("dueDate", "id");
+    /** Free copies fetched at once when picking the copy to hand out */
+    private static final int COPY_CANDIDATES = 8;
+    private static final int MAX_BORROWED_BOOKS = 5;
+
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
     private final BorrowingRepository borrowingRepository;
+    private final HoldRepository holdRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
 
     @Autowired
-    public BorrowingServiceImpl(UserRepository userRepository, BookRepository bookRepository, BorrowingRepository borrowingRepository) {
+    public BorrowingServiceImpl(UserRepository userRepository, BookRepository bookRepository, BookCopyRepository bookCopyRepository,
+                                BorrowingRepository borrowingRepository, HoldRepository holdRepository,
+                                ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.bookRepository = bookRepository;
+        this.bookCopyRepository = bookCopyRepository;
         this.borrowingRepository = borrowingRepository;
+        this.holdRepository = holdRepository;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -44,7 +84,6 @@ public class BorrowingServiceImpl implements BorrowingService {
      * */
     @Override
     public void isUserAvailableForBorrow(UUID userId){
-        int MAX_BORROWED_BOOKS = 5;
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException(ErrorMessages.USER_NOT_FOUND_ID, HttpStatus.NOT_FOUND));
 
@@ -76,36 +115,168 @@ public class BorrowingServiceImpl implements BorrowingService {
     }
 
     /**
-     Toggles the availability status of a book
-     * */
-    @Override
-    public void chanceBookAvailability(UUID bookId){
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new CustomException(ErrorMessages.BOOK_NOT_FOUND_ID, HttpStatus.NOT_FOUND));
-        book.setAvailability(!book.isAvailability());
-        bookRepository.save(book);
-    }
-
-    /**
-     Handles the borrowing process and returns borrowing information
+     Handles the borrowing process and returns borrowing information in one transaction.
+     The limit check and the availability check are conditional updates whose row counts decide the outcome,
+     so nothing is read first and two requests can never both pass a check the other one invalidates.
+     The user's row is counted up before the contended book row is touched, which keeps the lock on the book
+     short, and any failure rolls both updates back.
      */
+    @Transactional
     @Override
     public BorrowingResponse borrowBook(BorrowingCreateRequest request) {
-        isBookAvailable(request.bookId());
-        isUserAvailableForBorrow(request.userId());
+        countBorrowedBook(request.userId());
+        UUID copyId = claimCopy(request.bookId());
 
         LocalDate now = LocalDate.now();
         Borrowing borrowing = Borrowing.builder()
                 .userId(request.userId())
                 .bookId(request.bookId())
+                .copyId(copyId)
                 .borrowDate(now)
                 .dueDate(now.plusDays(1))
                 .overdue(false)
                 .build();
-        borrowing = borrowingRepository.save(borrowing);
-        increaseBorrowCount(request.userId());
-        chanceBookAvailability(request.bookId());
-        return BorrowingMapper.toResponseDTO(borrowing);
+        return BorrowingMapper.toResponseDTO(borrowingRepository.save(borrowing));
+    }
+
+    /**
+     Borrows several books for one user, all or nothing, with the same few statements however many books are borrowed
+     */
+    @Override
+    public BatchBorrowingResponse borrowBooks(BatchBorrowingRequest request) {
+        List<UUID> bookIds = request.bookIds();
+        List<BatchBorrowingResponse.Failure> duplicates = bookIds.stream()
+                .filter(bookId -> Collections.frequency(bookIds, bookId) > 1)
+                .distinct()
+                .map(bookId -> new BatchBorrowingResponse.Failure(bookId, HttpStatus.BAD_REQUEST.value(), ErrorMessages.BOOK_REQUESTED_TWICE))
+                .toList();
+        if (!duplicates.isEmpty()) {
+            throw new BatchBorrowingException(duplicates);
+        }
+
+        List<BorrowingResponse> borrowings = transaction.execute(status -> {
+            countBorrowedBooks(request.userId(), bookIds.size());
+            List<BatchBorrowingResponse.Failure> failures = unavailable(bookIds, bookRepository.findAllByIdForUpdate(bookIds));
+            if (!failures.isEmpty()) {
+                throw new BatchBorrowingException(failures);
+            }
+            if (bookRepository.claimCopies(bookIds) < bookIds.size()) {
+                throw new CustomException(ErrorMessages.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
+            }
+            bookRepository.findIdsWithoutAvailableCopies(bookIds)
+                    .forEach(bookId -> eventPublisher.publishEvent(new BookAvailabilityChangedEvent(bookId, false)));
+            Map<UUID, UUID> copies = claimFreeCopies(bookIds);
+            LocalDate now = LocalDate.now();
+            List<Borrowing> checkout = bookIds.stream()
+                    .map(bookId -> Borrowing.builder()
+                            .userId(request.userId())
+                            .bookId(bookId)
+                            .copyId(copies.get(bookId))
+                            .borrowDate(now)
+                            .dueDate(now.plusDays(1))
+                            .overdue(false)
+                            .build())
+                    .toList();
+            return borrowingRepository.saveAll(checkout).stream()
+                    .map(BorrowingMapper::toResponseDTO)
+                    .toList();
+        });
+        return new BatchBorrowingResponse(borrowings, List.of());
+    }
+
+    /**
+     Lists the books of a checkout that can not be borrowed, with the reason for each
+     */
+    private List<BatchBorrowingResponse.Failure> unavailable(List<UUID> bookIds, List<Book> found) {
+        Map<UUID, Book> books = found.stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<BatchBorrowingResponse.Failure> failures = new ArrayList<>();
+        for (UUID bookId : bookIds) {
+            Book book = books.get(bookId);
+            if (book == null) {
+                failures.add(new BatchBorrowingResponse.Failure(bookId, HttpStatus.NOT_FOUND.value(), String.format(ErrorMessages.BOOK_NOT_FOUND_ID, bookId)));
+            } else if (!book.isAvailability() || book.getAvailableCopies() == 0) {
+                failures.add(new BatchBorrowingResponse.Failure(bookId, HttpStatus.CONFLICT.value(), ErrorMessages.BOOK_NOT_AVAILABLE));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     Increments the user's borrowed book count only while it is below the limit
+     * */
+    private void countBorrowedBook(UUID userId) {
+        if (userRepository.incrementBorrowedBookCount(userId, MAX_BORROWED_BOOKS) == 0) {
+            if (!userRepository.existsById(userId)) {
+                throw new CustomException(ErrorMessages.USER_NOT_FOUND_ID, HttpStatus.NOT_FOUND);
+            }
+            throw new CustomException(ErrorMessages.USER_CAN_NOT_BORROW_5, HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     Adds the books of a checkout to the user's borrowed book count only if the user stays within the limit
+     * */
+    private void countBorrowedBooks(UUID userId, int count) {
+        if (userRepository.addBorrowedBookCount(userId, count, MAX_BORROWED_BOOKS) == 0) {
+            if (!userRepository.existsById(userId)) {
+                throw new CustomException(ErrorMessages.USER_NOT_FOUND_ID, HttpStatus.NOT_FOUND);
+            }
+            throw new CustomException(ErrorMessages.USER_CAN_NOT_BORROW_5, HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     Takes a copy of the book off the shelf with a decrement of its counter that only succeeds while copies are left,
+     then picks which copy is handed out. The counter is read back while this transaction still holds the row,
+     so only the borrower who took the last copy reports the book as unavailable.
+     Returns the id of the copy, or null for books that have no copies recorded.
+     */
+    private UUID claimCopy(UUID bookId) {
+        if (bookRepository.claimCopy(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new CustomException(String.format(ErrorMessages.BOOK_NOT_FOUND_ID, bookId), HttpStatus.NOT_FOUND);
+            }
+            throw new CustomException(ErrorMessages.BOOK_NOT_AVAILABLE, HttpStatus.BAD_REQUEST);
+        }
+        if (bookRepository.findAvailableCopiesById(bookId).orElse(0) == 0) {
+            eventPublisher.publishEvent(new BookAvailabilityChangedEvent(bookId, false));
+        }
+        return claimFreeCopy(bookId);
+    }
+
+    /**
+     Claims any copy still on the shelf. The counter already reserved one for this borrower, so this only decides which.
+     Candidates are tried from a random position, so concurrent borrowers of a popular book mostly go for different copies
+     instead of all waiting on the first one.
+     */
+    private UUID claimFreeCopy(UUID bookId) {
+        List<UUID> candidates = bookCopyRepository.findAvailableIds(bookId, Limit.of(COPY_CANDIDATES));
+        while (!candidates.isEmpty()) {
+            int start = ThreadLocalRandom.current().nextInt(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                UUID copyId = candidates.get((start + i) % candidates.size());
+                if (bookCopyRepository.claim(copyId) > 0) {
+                    return copyId;
+                }
+            }
+            candidates = bookCopyRepository.findAvailableIds(bookId, Limit.of(COPY_CANDIDATES));
+        }
+        return null;
+    }
+
+    /**
+     Picks a copy on the shelf for every book of a checkout and takes them all off the shelf in one statement.
+     The checkout holds the lock on its books, so no other borrower claims their copies meanwhile.
+     Books that have no copies recorded get none.
+     */
+    private Map<UUID, UUID> claimFreeCopies(List<UUID> bookIds) {
+        Map<UUID, UUID> copies = new HashMap<>();
+        bookCopyRepository.findAvailableCopies(bookIds).forEach(copy -> copies.putIfAbsent(copy.bookId(), copy.id()));
+        if (!copies.isEmpty() && bookCopyRepository.claimAll(copies.values()) < copies.size()) {
+            throw new CustomException(ErrorMessages.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
+        }
+        return copies;
     }
 
     /**
@@ -113,10 +284,7 @@ public class BorrowingServiceImpl implements BorrowingService {
      * */
     @Override
     public List<BorrowingResponse> getUserBorrowingHistory(Pageable pageable) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new CustomException(ErrorMessages.USER_NOT_FOUND_EMAIL, HttpStatus.NOT_FOUND));
+        User user = getAuthenticatedUser();
 
         return borrowingRepository.findByUserId(user.getId(), pageable)
                 .map(BorrowingMapper::toResponseDTO)
@@ -143,18 +311,65 @@ public class BorrowingServiceImpl implements BorrowingService {
     public List<OverDueReportDto> getOverdueBooks(Pageable pageable) {
         LocalDate today = LocalDate.now();
         return borrowingRepository.findByReturnDateIsNullAndDueDateBefore(today, pageable)
-                .map(borrowing -> new OverDueReportDto(
-                        borrowing.getUserId(),
-                        borrowing.getBookId(),
-                        borrowing.getDueDate(),
-                        java.time.temporal.ChronoUnit.DAYS.between(borrowing.getDueDate(), today)
-                ))
+                .map(borrowing -> toOverdueReport(borrowing, today))
                 .getContent();
     }
 
+    /**
+     Retrieves the authenticated user's borrowing history with keyset pagination ordered by (borrow date, id)
+     * */
+    @Override
+    public PageResponse<BorrowingResponse> seekUserBorrowingHistory(String cursor, int size) {
+        User user = getAuthenticatedUser();
+        return PageResponse.fromWindow(
+                borrowingRepository.findByUserId(user.getId(),
+                        SeekCursor.position(cursor, "borrowDate", LocalDate::parse),
+                        BORROW_DATE_ORDER,
+                        Limit.of(SeekCursor.pageSize(size))),
+                BorrowingMapper::toResponseDTO,
+                borrowing -> new SeekCursor(borrowing.getBorrowDate().toString(), borrowing.getId()));
+    }
+
+    /**
+     Returns overdue books with keyset pagination ordered by (due date, id)
+     * */
+    @Override
+    public PageResponse<OverDueReportDto> seekOverdueBooks(String cursor, int size) {
+        LocalDate today = LocalDate.now();
+        return PageResponse.fromWindow(
+                borrowingRepository.findByReturnDateIsNullAndDueDateBefore(today,
+                        SeekCursor.position(cursor, "dueDate", LocalDate::parse),
+                        DUE_DATE_ORDER,
+                        Limit.of(SeekCursor.pageSize(size))),
+                borrowing -> toOverdueReport(borrowing, today),
+                borrowing -> new SeekCursor(borrowing.getDueDate().toString(), borrowing.getId()));
+    }
+
+    /**
+     Builds an overdue report line for a borrowing that is still out
+     * */
+    private OverDueReportDto toOverdueReport(Borrowing borrowing, LocalDate today) {
+        return new OverDueReportDto(
+                borrowing.getUserId(),
+                borrowing.getBookId(),
+                borrowing.getDueDate(),
+                java.time.temporal.ChronoUnit.DAYS.between(borrowing.getDueDate(), today)
+        );
+    }
+
+    /**
+     Loads the user of the current security context
+     * */
+    private User getAuthenticatedUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new CustomException(ErrorMessages.USER_NOT_FOUND_EMAIL, HttpStatus.NOT_FOUND));
+    }
+
 
     /**
-     Handles the return process of a borrowed book
+     Handles the return process of a borrowed book. If patrons hold the book, the copy is lent to the first of them
+     in the same transaction instead of going back on the shelf.
      * */
         @Transactional
         @Override
@@ -168,12 +383,136 @@ public class BorrowingServiceImpl implements BorrowingService {
             }
 
             updateBorrowingReturnInfo(borrowing);
-            updateBookAvailability(borrowing.getBookId(), true);
             updateUserBorrowedBookCount(borrowing.getUserId());
+            if (!lendToNextHold(borrowing.getBookId(), borrowing.getCopyId())) {
+                releaseCopy(borrowing);
+            }
 
             return BorrowingMapper.toResponseDTO(borrowing);
         }
 
+    /**
+     Puts the authenticated patron at the end of the hold queue of a book that has no copy to borrow.
+     Issuing the ticket locks the book row, so a return running at the same time either sees this hold
+     or has already put its copy back on the shelf, in which case the hold is refused.
+     * */
+    @Transactional
+    @Override
+    public HoldResponse placeHold(UUID bookId) {
+        User user = getAuthenticatedUser();
+        if (bookRepository.issueHoldTicket(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new CustomException(String.format(ErrorMessages.BOOK_NOT_FOUND_ID, bookId), HttpStatus.NOT_FOUND);
+            }
+            throw new CustomException(ErrorMessages.BOOK_AVAILABLE_FOR_BORROWING, HttpStatus.CONFLICT);
+        }
+        if (holdRepository.existsByUserIdAndBookId(user.getId(), bookId)) {
+            throw new CustomException(ErrorMessages.HOLD_ALREADY_PLACED, HttpStatus.CONFLICT);
+        }
+        HoldQueue queue = bookRepository.findHoldQueueById(bookId).orElseThrow();
+        Hold hold = holdRepository.save(Hold.builder()
+                .bookId(bookId)
+                .userId(user.getId())
+                .ticket(queue.tail())
+                .createdAt(Instant.now())
+                .build());
+        return new HoldResponse(hold.getId(), hold.getUserId(), bookId, queue.tail() - queue.head(), hold.getCreatedAt());
+    }
+
+    /**
+     Returns the authenticated patron's hold on a book with their place in the queue, without counting the holds ahead
+     * */
+    @Override
+    public HoldResponse getHold(UUID bookId) {
+        User user = getAuthenticatedUser();
+        return holdRepository.findPosition(user.getId(), bookId)
+                .orElseThrow(() -> new CustomException(ErrorMessages.HOLD_NOT_FOUND, HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     Removes the authenticated patron's hold and moves the holds behind it up one place.
+     The book row is locked first, like placing a hold and returning the book do, so tickets are never renumbered
+     while another request reads or hands them out.
+     * */
+    @Transactional
+    @Override
+    public void cancelHold(UUID bookId) {
+        User user = getAuthenticatedUser();
+        if (bookRepository.withdrawHoldTicket(bookId) == 0) {
+            throw new CustomException(ErrorMessages.HOLD_NOT_FOUND, HttpStatus.NOT_FOUND);
+        }
+        Hold hold = holdRepository.findByUserIdAndBookId(user.getId(), bookId)
+                .orElseThrow(() -> new CustomException(ErrorMessages.HOLD_NOT_FOUND, HttpStatus.NOT_FOUND));
+        holdRepository.delete(hold);
+        holdRepository.moveUpBehind(bookId, hold.getTicket());
+    }
+
+    /**
+     Cancels every hold on a book that can no longer be lent, such as a deleted one. Returns how many were cancelled.
+     * */
+    @Transactional
+    @Override
+    public int cancelHolds(UUID bookId) {
+        return holdRepository.deleteByBookId(bookId);
+    }
+
+    /**
+     Lends copies on the shelf of a book to the patrons holding it, in queue order, until either runs out.
+     Each copy is taken off the shelf like a borrow takes it; if no waiting patron can borrow it after all, it is put back.
+     Returns how many copies were lent.
+     * */
+    @Transactional
+    @Override
+    public int serveHolds(UUID bookId) {
+        int lent = 0;
+        while (bookRepository.findHoldQueueById(bookId).filter(queue -> queue.head() < queue.tail()).isPresent()
+                && bookRepository.claimCopy(bookId) > 0) {
+            UUID copyId = claimFreeCopy(bookId);
+            if (!lendToNextHold(bookId, copyId)) {
+                bookRepository.releaseCopy(bookId);
+                if (copyId != null) {
+                    bookCopyRepository.release(copyId);
+                }
+                break;
+            }
+            lent++;
+        }
+        if (lent > 0 && bookRepository.findAvailableCopiesById(bookId).orElse(0) == 0) {
+            eventPublisher.publishEvent(new BookAvailabilityChangedEvent(bookId, false));
+        }
+        return lent;
+    }
+
+    /**
+     Lends a copy to the patron at the front of the book's hold queue. Taking the front ticket locks the book row,
+     so two returns never serve the same hold. A patron who reached the borrowing limit while waiting loses the hold
+     and the next one is served. Returns false if nobody is waiting and the copy goes back on the shelf.
+     * */
+    private boolean lendToNextHold(UUID bookId, UUID copyId) {
+        while (bookRepository.advanceHoldHead(bookId) > 0) {
+            long ticket = bookRepository.findHoldQueueById(bookId).orElseThrow().head();
+            Optional<Hold> next = holdRepository.findByBookIdAndTicket(bookId, ticket);
+            if (next.isEmpty()) {
+                continue;
+            }
+            Hold hold = next.get();
+            holdRepository.delete(hold);
+            if (userRepository.incrementBorrowedBookCount(hold.getUserId(), MAX_BORROWED_BOOKS) > 0) {
+                LocalDate now = LocalDate.now();
+                borrowingRepository.save(Borrowing.builder()
+                        .userId(hold.getUserId())
+                        .bookId(bookId)
+                        .copyId(copyId)
+                        .borrowDate(now)
+                        .dueDate(now.plusDays(1))
+                        .overdue(false)
+                        .build());
+                return true;
+            }
+        }
+        return false;
+    }
+
 
     /**
      Fetches a borrowing record or throws an exception if not found
@@ -193,34 +532,39 @@ public class BorrowingServiceImpl implements BorrowingService {
     }
 
     /**
-     Updates the return date and overdue status of a borrowing
+     Updates the return date and overdue status of a borrowing with an update that only matches while it is open,
+     so of two simultaneous returns one is rejected instead of putting the copy back twice.
+     The user and then the book are updated after it, in the same order as borrowing locks them.
      * */
     private void updateBorrowingReturnInfo(Borrowing borrowing) {
         LocalDate now = LocalDate.now();
+        if (borrowingRepository.markReturned(borrowing.getId(), now) == 0) {
+            throw new CustomException(ErrorMessages.BOOK_ALREADY_RETURNED, HttpStatus.CONFLICT);
+        }
         borrowing.setReturnDate(now);
         borrowing.setOverdue(now.isAfter(borrowing.getDueDate()));
-        borrowingRepository.save(borrowing);
     }
 
     /**
-     Sets the availability of a book to true or false
+     Puts the borrowed copy back on the shelf. Only returning the first copy of a book that had none left changes its
+     availability; a book deleted while it was on loan has nothing to put back.
      * */
-    private void updateBookAvailability(UUID bookId, boolean available) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new CustomException(ErrorMessages.BOOK_NOT_FOUND_ID, HttpStatus.NOT_FOUND));
-        book.setAvailability(available);
-        bookRepository.save(book);
+    private void releaseCopy(Borrowing borrowing) {
+        if (bookRepository.releaseCopy(borrowing.getBookId()) > 0
+                && bookRepository.findAvailableCopiesById(borrowing.getBookId()).orElse(0) == 1) {
+            eventPublisher.publishEvent(new BookAvailabilityChangedEvent(borrowing.getBookId(), true));
+        }
+        if (borrowing.getCopyId() != null) {
+            bookCopyRepository.release(borrowing.getCopyId());
+        }
     }
 
     /**
-     Adjusts the user's borrowed book count
+     Adjusts the user's borrowed book count in place, so a borrow of the same user running at the same time is not lost
      */
     private void updateUserBorrowedBookCount(UUID userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new CustomException(ErrorMessages.USER_NOT_FOUND_ID, HttpStatus.NOT_FOUND));
-        user.setBorrowedBookCount(user.getBorrowedBookCount() + -1);
-        userRepository.save(user);
+        if (userRepository.decrementBorrowedBookCount(userId) == 0 && !userRepository.existsById(userId)) {
+            throw new CustomException(ErrorMessages.USER_NOT_FOUND_ID, HttpStatus.NOT_FOUND);
+        }
     }
-
-
 }
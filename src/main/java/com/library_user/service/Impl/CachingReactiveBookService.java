@@ -0,0 +1,154 @@
+package com.library_user.service.Impl;
+
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.entity.Book;
+import com.library_user.model.request.BookSearchCriteria;
+import com.library_user.model.request.SearchMode;
+import com.library_user.model.response.FacetCounts;
+import com.library_user.model.response.PageResponse;
+import com.library_user.model.response.SuggestionResponse;
+import com.library_user.search.BookFacets;
+import com.library_user.search.GenreDictionary;
+import com.library_user.search.SearchResultCache;
+import com.library_user.search.SearchResultCache.Key;
+import com.library_user.service.ReactiveBookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ Serves repeated searches from the search result cache and delegates misses to the reactive book service.
+ Every cached query comes with the predicate a book must satisfy to appear in its results,
+ which the cache uses to drop exactly the pages a book change can affect.
+ */
+@Service("cachingReactiveBookService")
+public class CachingReactiveBookService implements ReactiveBookService {
+
+    private final ReactiveBookService reactiveBookService;
+    private final SearchResultCache searchResultCache;
+    private final BookFacets bookFacets;
+
+    @Autowired
+    public CachingReactiveBookService(@Qualifier("reactiveBookService") ReactiveBookService reactiveBookService,
+                                      SearchResultCache searchResultCache, BookFacets bookFacets) {
+        this.reactiveBookService = reactiveBookService;
+        this.searchResultCache = searchResultCache;
+        this.bookFacets = bookFacets;
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByTitle(String title, Pageable pageable) {
+        return searchBooksByTitle(title, SearchMode.CONTAINS, pageable);
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByTitle(String title, SearchMode mode, Pageable pageable) {
+        return searchResultCache.get(Key.of("title", title, mode, pageable), textMatch(Book::getTitle, title, mode),
+                () -> reactiveBookService.searchBooksByTitle(title, mode, pageable));
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByAuthor(String author, Pageable pageable) {
+        return searchBooksByAuthor(author, SearchMode.CONTAINS, pageable);
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByAuthor(String author, SearchMode mode, Pageable pageable) {
+        return searchResultCache.get(Key.of("author", author, mode, pageable), textMatch(Book::getAuthor, author, mode),
+                () -> reactiveBookService.searchBooksByAuthor(author, mode, pageable));
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByGenre(String genre, Pageable pageable) {
+        return searchResultCache.get(Key.of("genre", genre, pageable), genreMatch(genre),
+                () -> reactiveBookService.searchBooksByGenre(genre, pageable));
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByAvailability(boolean availability, Pageable pageable) {
+        return searchResultCache.get(Key.of("availability", availability, pageable), book -> book.isAvailability() == availability, true,
+                () -> reactiveBookService.searchBooksByAvailability(availability, pageable));
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByTitle(String title, String cursor, int size) {
+        return searchResultCache.get(Key.of("seekTitle", title, cursor, size), textMatch(Book::getTitle, title, SearchMode.CONTAINS),
+                () -> reactiveBookService.seekBooksByTitle(title, cursor, size));
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByAuthor(String author, String cursor, int size) {
+        return searchResultCache.get(Key.of("seekAuthor", author, cursor, size), textMatch(Book::getAuthor, author, SearchMode.CONTAINS),
+                () -> reactiveBookService.seekBooksByAuthor(author, cursor, size));
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByGenre(String genre, String cursor, int size) {
+        return searchResultCache.get(Key.of("seekGenre", genre, cursor, size), genreMatch(genre),
+                () -> reactiveBookService.seekBooksByGenre(genre, cursor, size));
+    }
+
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByAvailability(boolean availability, String cursor, int size) {
+        return searchResultCache.get(Key.of("seekAvailability", availability, cursor, size), book -> book.isAvailability() == availability, true,
+                () -> reactiveBookService.seekBooksByAvailability(availability, cursor, size));
+    }
+
+    /**
+     Facet counts change with every book, so they are attached after the cache lookup
+     */
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooks(BookSearchCriteria criteria, String cursor, int size) {
+        return searchResultCache.get(Key.of("search", criteria, cursor, size), criteriaMatch(criteria), criteria.availability() != null,
+                        () -> reactiveBookService.searchBooks(criteria, cursor, size))
+                .map(page -> page.withFacets(bookFacets.snapshot()));
+    }
+
+    @Override
+    public Mono<SuggestionResponse> suggest(String prefix, int limit) {
+        return reactiveBookService.suggest(prefix, limit);
+    }
+
+    @Override
+    public Mono<FacetCounts> getFacets() {
+        return reactiveBookService.getFacets();
+    }
+
+    /**
+     Fuzzy matches cannot be checked cheaply here, so any change to a book invalidates fuzzy results
+     */
+    private static Predicate<Book> textMatch(Function<Book, String> field, String query, SearchMode mode) {
+        if (mode == SearchMode.FUZZY) {
+            return book -> true;
+        }
+        return book -> containsIgnoreCase(field.apply(book), query);
+    }
+
+    private static Predicate<Book> genreMatch(String genre) {
+        String code = GenreDictionary.normalize(genre);
+        return book -> GenreDictionary.normalize(book.getGenre()).contains(code);
+    }
+
+    private static Predicate<Book> criteriaMatch(BookSearchCriteria criteria) {
+        return book -> (isBlank(criteria.title()) || containsIgnoreCase(book.getTitle(), criteria.title()))
+                && (isBlank(criteria.author()) || containsIgnoreCase(book.getAuthor(), criteria.author()))
+                && (isBlank(criteria.genre()) || GenreDictionary.normalize(book.getGenre()).equals(GenreDictionary.normalize(criteria.genre())))
+                && (criteria.availability() == null || criteria.availability() == book.isAvailability())
+                && (criteria.publishedFrom() == null || book.getPublicationDate() != null && !book.getPublicationDate().isBefore(criteria.publishedFrom()))
+                && (criteria.publishedTo() == null || book.getPublicationDate() != null && !book.getPublicationDate().isAfter(criteria.publishedTo()));
+    }
+
+    private static boolean containsIgnoreCase(String text, String query) {
+        return text != null && query != null && text.toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,43 @@
+package com.library_user.service.Impl;
+
+import com.library_user.config.EntityCacheConfig;
+import com.library_user.model.response.EntityCacheStats;
+import com.library_user.service.EntityCacheService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class EntityCacheServiceImpl implements EntityCacheService {
+
+    private final Statistics statistics;
+
+    @Autowired
+    public EntityCacheServiceImpl(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Returns hit, miss and put counts of every second-level cache region since startup.
+     * The hit rate is 0 for a region that has not been read yet.
+     */
+    @Override
+    public List<EntityCacheStats> getStatistics() {
+        return EntityCacheConfig.REGIONS.stream()
+                .map(region -> toStats(region, statistics.getDomainDataRegionStatistics(region)))
+                .toList();
+    }
+
+    private static EntityCacheStats toStats(String region, CacheRegionStatistics regionStatistics) {
+        long hits = regionStatistics.getHitCount();
+        long misses = regionStatistics.getMissCount();
+        long reads = hits + misses;
+        return new EntityCacheStats(region, hits, misses, regionStatistics.getPutCount(),
+                reads == 0 ? 0 : (double) hits / reads);
+    }
+}
@@ -0,0 +1,205 @@
+package com.library_user.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.library_user.exceptions.CustomException;
+import com.library_user.helper.ErrorMessages;
+import com.library_user.repository.IdempotencyRecordRepository;
+import com.library_user.service.IdempotencyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Entry(String request, Object response, Instant expiresAt) {
+    }
+
+    /**
+     Thrown out of the transaction when another request holds the key, so the transaction is rolled back before the key is read
+     */
+    private static final class KeyTakenException extends RuntimeException {
+        private KeyTakenException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final Duration timeToLive;
+    private final Cache<String, Entry> recent;
+
+    @Autowired
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${library.idempotency.ttl:PT24H}") Duration timeToLive,
+                                  @Value("${library.idempotency.maximum-size:10000}") long maximumSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.timeToLive = timeToLive;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilExpired())
+                .build();
+    }
+
+    /**
+     Drops an entry from memory when its stored response expires, also for entries loaded late in their life from the database
+     */
+    private static final class UntilExpired implements Expiry<String, Entry> {
+        @Override
+        public long expireAfterCreate(String id, Entry entry, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), entry.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String id, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String id, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     Runs the action once per key. Without a key the action simply runs.
+     A retry with the same key gets the response of the first run, from memory while it is recent and from the database
+     after a restart or when the first run happened on another instance. The key is inserted before the action runs,
+     in the action's transaction, so of two copies of a request sent at once only one gets past the insert and the other
+     is answered with its response, or told to retry while the first still runs. Errors of the action itself are never
+     mistaken for a taken key. Failed requests store nothing and run again when retried.
+     * */
+    @Override
+    public <T> T execute(String key, String operation, Object request, Class<T> type, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new CustomException(ErrorMessages.INVALID_IDEMPOTENCY_KEY, HttpStatus.BAD_REQUEST);
+        }
+        String id = hash(caller() + ":" + operation + ":" + key);
+        String fingerprint = String.valueOf(request);
+
+        Entry entry = recent.getIfPresent(id);
+        if (entry == null) {
+            entry = load(id, type);
+        }
+        if (entry != null) {
+            return replay(entry, fingerprint, type);
+        }
+
+        Instant expiresAt = Instant.now().plus(timeToLive);
+        T response;
+        try {
+            response = transaction.execute(status -> {
+                claim(id, fingerprint, expiresAt);
+                T result = action.get();
+                idempotencyRecordRepository.complete(id, write(result));
+                return result;
+            });
+        } catch (KeyTakenException e) {
+            Entry first = load(id, type);
+            if (first == null) {
+                throw new CustomException(ErrorMessages.IDEMPOTENT_REQUEST_IN_PROGRESS, HttpStatus.CONFLICT);
+            }
+            return replay(first, fingerprint, type);
+        }
+        recent.put(id, new Entry(fingerprint, response, expiresAt));
+        return response;
+    }
+
+    /**
+     Deletes the stored responses whose keys have expired
+     * */
+    @Override
+    public int purgeExpired() {
+        return idempotencyRecordRepository.deleteExpired(Instant.now());
+    }
+
+    /**
+     Inserts the key, replacing a record that expired but was not purged yet. Only this insert can hit the key's
+     primary key, so a violation here means a copy of the request holds the key
+     * */
+    private void claim(String id, String fingerprint, Instant expiresAt) {
+        idempotencyRecordRepository.deleteIfExpired(id, Instant.now());
+        try {
+            idempotencyRecordRepository.claim(id, fingerprint, expiresAt);
+        } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+            throw new KeyTakenException();
+        }
+    }
+
+    private <T> T replay(Entry entry, String fingerprint, Class<T> type) {
+        if (!entry.request().equals(fingerprint)) {
+            throw new CustomException(ErrorMessages.IDEMPOTENCY_KEY_REUSED, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        return type.cast(entry.response());
+    }
+
+    private <T> Entry load(String id, Class<T> type) {
+        return idempotencyRecordRepository.findByIdAndExpiresAtAfter(id, Instant.now())
+                .map(stored -> {
+                    Entry entry = new Entry(stored.getRequest(), read(stored.getResponse(), type), stored.getExpiresAt());
+                    recent.put(id, entry);
+                    return entry;
+                })
+                .orElse(null);
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be stored for replay", e);
+        }
+    }
+
+    private <T> T read(String response, Class<T> type) {
+        try {
+            return objectMapper.readValue(response, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response could not be read", e);
+        }
+    }
+
+    private static String hash(String id) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(id.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     Keys are scoped to the caller, so one caller can never be answered with another caller's response
+     * */
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+}
@@ -1,86 +1,334 @@
 package com.library_user.service.Impl;
 
-import com.library_user.model.dto.BookDto;
-import com.library_user.model.mapper.BookMapper;
+import com.library_user.exceptions.CustomException;
+import com.library_user.helper.ErrorMessages;
+import com.library_user.helper.SeekCursor;
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.entity.Book;
+import com.library_user.model.request.BookSearchCriteria;
+import com.library_user.model.request.SearchMode;
+import com.library_user.model.response.FacetCounts;
+import com.library_user.model.response.PageResponse;
+import com.library_user.model.response.SuggestionResponse;
 import com.library_user.repository.BookRepository;
+import com.library_user.repository.BookSpecifications;
+import com.library_user.search.BookFacets;
+import com.library_user.search.BookSearchIndex;
+import com.library_user.search.GenreDictionary;
+import com.library_user.search.RadixTrie;
 import com.library_user.service.ReactiveBookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
-
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service("reactiveBookService")
 public class ReactiveBookServiceImpl implements ReactiveBookService {
 
+    private static final Sort TITLE_ORDER = Sort.by("title", "id");
+    private static final int MAX_ID_FILTER = 1000;
+
     private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookFacets bookFacets;
+    private final GenreDictionary genreDictionary;
     private final Scheduler jdbcScheduler = Schedulers.boundedElastic();
 
     @Autowired
-    public ReactiveBookServiceImpl(BookRepository bookRepository) {
+    public ReactiveBookServiceImpl(BookRepository bookRepository, BookSearchIndex bookSearchIndex, BookFacets bookFacets,
+                                   GenreDictionary genreDictionary) {
         this.bookRepository = bookRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookFacets = bookFacets;
+        this.genreDictionary = genreDictionary;
     }
 
     /**
-     Helper method to convert a blocking repository call into a reactive Flux
+     Helper method to convert a blocking repository call into a reactive Mono
      */
-
-    private <T> Flux<T> executeBlockingFlux(Callable<? extends Iterable<T>> supplier) {
+    private <T> Mono<T> executeBlockingMono(Callable<T> supplier) {
         return Mono.fromCallable(supplier)
-                .subscribeOn(jdbcScheduler)
-                .flatMapMany(Flux::fromIterable);
+                .subscribeOn(jdbcScheduler);
     }
 
+    /**
+     Loads the requested page of index hits by id, keeping the order of the index
+     */
+    private Slice<BookSummaryDto> loadPage(List<UUID> ids, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(loadInOrder(ids));
+        }
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return new SliceImpl<>(loadInOrder(ids.subList(from, to)), pageable, to < ids.size());
+    }
 
     /**
-     *  Searches books by title (case-insensitive) and returns paginated results
+     Loads book summaries by id and returns them in the order of the given ids
+     */
+    private List<BookSummaryDto> loadInOrder(List<UUID> ids) {
+        Map<UUID, BookSummaryDto> books = bookRepository.findByIdIn(ids, BookSummaryDto.class).stream()
+                .collect(Collectors.toMap(BookSummaryDto::id, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     Builds a keyset page from rows fetched with one extra row to detect a following page
+     */
+    private PageResponse<BookSummaryDto> seekPage(List<BookSummaryDto> rows, int limit) {
+        return seekPage(rows.subList(0, Math.min(limit, rows.size())), rows.size() > limit);
+    }
+
+    private PageResponse<BookSummaryDto> seekPage(List<BookSummaryDto> books, boolean hasMore) {
+        String nextCursor = hasMore && !books.isEmpty() ? titleCursor(books.getLast()).encode() : null;
+        return new PageResponse<>(books, nextCursor != null, nextCursor);
+    }
+
+    private PageResponse<BookSummaryDto> windowPage(Window<BookSummaryDto> window) {
+        return PageResponse.fromWindow(window, Function.identity(), this::titleCursor);
+    }
+
+    private SeekCursor titleCursor(BookSummaryDto book) {
+        return new SeekCursor(book.title(), book.id());
+    }
+
+    private ScrollPosition titlePosition(String cursor) {
+        return SeekCursor.position(cursor, "title", key -> key);
+    }
+
+    /**
+     Builds the combined query. Title and author criteria the trigram index can answer are replaced by an
+     id filter, as long as the id list stays small enough to send to the database; everything else becomes
+     a predicate on the books table. Returns null when the index or the genre dictionary already proves
+     there are no matches.
+     */
+    private Specification<Book> searchSpecification(BookSearchCriteria criteria) {
+        if (criteria.genre() != null && !criteria.genre().isBlank() && genreDictionary.find(criteria.genre()).isEmpty()) {
+            return null;
+        }
+        Optional<List<UUID>> titleHits = bookSearchIndex.searchTitles(criteria.title());
+        Optional<List<UUID>> authorHits = bookSearchIndex.searchAuthors(criteria.author());
+        if (titleHits.isEmpty() && authorHits.isEmpty()) {
+            return BookSpecifications.matching(criteria);
+        }
+
+        Set<UUID> candidates = new HashSet<>(titleHits.orElseGet(authorHits::get));
+        if (titleHits.isPresent() && authorHits.isPresent()) {
+            candidates.retainAll(authorHits.get());
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (candidates.size() > MAX_ID_FILTER) {
+            return BookSpecifications.matching(criteria);
+        }
+        return Specification.allOf(
+                titleHits.isPresent() ? null : BookSpecifications.titleContains(criteria.title()),
+                authorHits.isPresent() ? null : BookSpecifications.authorContains(criteria.author()),
+                BookSpecifications.matchingFilters(criteria),
+                BookSpecifications.idIn(candidates)
+        );
+    }
+
+    private void validate(BookSearchCriteria criteria) {
+        if (criteria.publishedFrom() != null && criteria.publishedTo() != null
+                && criteria.publishedFrom().isAfter(criteria.publishedTo())) {
+            throw new CustomException(ErrorMessages.INVALID_PUBLICATION_RANGE, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     The index returns hits in its own order, so sorted or unpaged requests are left to the database
+     */
+    private boolean isIndexServable(Pageable pageable) {
+        return pageable.isPaged() && pageable.getSort().isUnsorted();
+    }
+
+
+    /**
+     *  Searches books by title (case-insensitive) and returns paginated results.
+     *  Served from the trigram index when possible, otherwise falls back to a database scan.
+     *  No total count is computed; hasMore tells whether another page exists.
      * */
 
     @Override
-    public Flux<BookDto> searchBooksByTitle(String title, Pageable pageable) {
-        return executeBlockingFlux(() ->
-                bookRepository.findByTitleContainingIgnoreCase(title, pageable).getContent()
-        )
-                .map(BookMapper::toDto);
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByTitle(String title, Pageable pageable) {
+        return searchBooksByTitle(title, SearchMode.CONTAINS, pageable);
     }
 
     /**
-     * Searches books by author (case-insensitive) and returns paginated results
+     * Searches books by title in the given mode. FUZZY tolerates typos in each word and ranks the closest
+     * matches first, ignoring the requested sort; it falls back to CONTAINS until the index is loaded.
      */
     @Override
-    public Flux<BookDto> searchBooksByAuthor(String author, Pageable pageable) {
-        return executeBlockingFlux(() ->
-                bookRepository.findByAuthorContainingIgnoreCase(author, pageable).getContent()
-        )
-                .map(BookMapper::toDto);
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByTitle(String title, SearchMode mode, Pageable pageable) {
+        return executeBlockingMono(() -> {
+            Optional<List<UUID>> hits = mode == SearchMode.FUZZY
+                    ? bookSearchIndex.fuzzyTitles(title)
+                    : isIndexServable(pageable) ? bookSearchIndex.searchTitles(title) : Optional.empty();
+            return PageResponse.fromSlice(hits.map(ids -> loadPage(ids, pageable))
+                    .orElseGet(() -> bookRepository.findByTitleContainingIgnoreCase(title, pageable, BookSummaryDto.class)), Function.identity());
+        });
     }
 
+    /**
+     * Searches books by author (case-insensitive) and returns paginated results.
+     * Served from the trigram index when possible, otherwise falls back to a database scan.
+     * No total count is computed; hasMore tells whether another page exists.
+     */
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByAuthor(String author, Pageable pageable) {
+        return searchBooksByAuthor(author, SearchMode.CONTAINS, pageable);
+    }
 
     /**
-     * Searches books by genre (case-insensitive) and returns paginated results
+     * Searches books by author in the given mode. FUZZY tolerates typos in each word and ranks the closest
+     * matches first, ignoring the requested sort; it falls back to CONTAINS until the index is loaded.
      */
     @Override
-    public Flux<BookDto> searchBooksByGenre(String genre, Pageable pageable) {
-        return executeBlockingFlux(() ->
-                bookRepository.findByGenreContainingIgnoreCase(genre, pageable).getContent()
-        )
-                .map(BookMapper::toDto);
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByAuthor(String author, SearchMode mode, Pageable pageable) {
+        return executeBlockingMono(() -> {
+            Optional<List<UUID>> hits = mode == SearchMode.FUZZY
+                    ? bookSearchIndex.fuzzyAuthors(author)
+                    : isIndexServable(pageable) ? bookSearchIndex.searchAuthors(author) : Optional.empty();
+            return PageResponse.fromSlice(hits.map(ids -> loadPage(ids, pageable))
+                    .orElseGet(() -> bookRepository.findByAuthorContainingIgnoreCase(author, pageable, BookSummaryDto.class)), Function.identity());
+        });
     }
 
+
     /**
-     * Searches books by availability (true = available, false = unavailable)
+     * Searches books by genre (case-insensitive) and returns paginated results without a total count.
+     * The keyword is matched against the genre dictionary and books are then looked up by genre id.
+     */
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByGenre(String genre, Pageable pageable) {
+        return executeBlockingMono(() -> {
+            List<String> genres = genreDictionary.matching(genre);
+            if (genres.isEmpty()) {
+                return new PageResponse<BookSummaryDto>(List.of(), false, null);
+            }
+            return PageResponse.fromSlice(bookRepository.findByGenreIn(genres, pageable, BookSummaryDto.class), Function.identity());
+        });
+    }
+
+    /**
+     * Searches books by availability (true = available, false = unavailable) without a total count
      **/
     @Override
-    public Flux<BookDto> searchBooksByAvailability(boolean availability, Pageable pageable) {
-        return executeBlockingFlux(() ->
-                bookRepository.findByAvailability(availability, pageable).getContent()
-        )
-                .map(BookMapper::toDto);
+    public Mono<PageResponse<BookSummaryDto>> searchBooksByAvailability(boolean availability, Pageable pageable) {
+        return executeBlockingMono(() ->
+                PageResponse.fromSlice(bookRepository.findByAvailability(availability, pageable, BookSummaryDto.class), Function.identity())
+        );
+    }
+
+    /**
+     * Searches books by title with keyset pagination ordered by (title, id).
+     * The index only narrows the rows down to its hits and the database orders every page, so a cursor resumes
+     * the same order whether or not the index can answer the next request.
+     */
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByTitle(String title, String cursor, int size) {
+        return seekMatching(new BookSearchCriteria(title, null, null, null, null, null), cursor, size);
+    }
+
+    /**
+     * Searches books by author with keyset pagination ordered by (title, id), ordered by the database like seekBooksByTitle
+     */
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByAuthor(String author, String cursor, int size) {
+        return seekMatching(new BookSearchCriteria(null, author, null, null, null, null), cursor, size);
+    }
+
+    /**
+     * Searches books by genre with keyset pagination ordered by (title, id)
+     */
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByGenre(String genre, String cursor, int size) {
+        ScrollPosition position = titlePosition(cursor);
+        return executeBlockingMono(() -> {
+            List<String> genres = genreDictionary.matching(genre);
+            if (genres.isEmpty()) {
+                return new PageResponse<BookSummaryDto>(List.of(), false, null);
+            }
+            return windowPage(bookRepository.findByGenreIn(genres, position, TITLE_ORDER, Limit.of(SeekCursor.pageSize(size)), BookSummaryDto.class));
+        });
+    }
+
+    /**
+     * Searches books by availability with keyset pagination ordered by (title, id)
+     */
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> seekBooksByAvailability(boolean availability, String cursor, int size) {
+        return executeBlockingMono(() -> windowPage(bookRepository.findByAvailability(
+                availability, titlePosition(cursor), TITLE_ORDER, Limit.of(SeekCursor.pageSize(size)), BookSummaryDto.class)));
+    }
+
+    /**
+     * Searches books by any mix of title, author, genre, availability and publication date range in a single query,
+     * with keyset pagination ordered by (title, id). The catalog facet counts are attached to every page.
+     */
+    @Override
+    public Mono<PageResponse<BookSummaryDto>> searchBooks(BookSearchCriteria criteria, String cursor, int size) {
+        validate(criteria);
+        return seekMatching(criteria, cursor, size).map(page -> page.withFacets(bookFacets.snapshot()));
+    }
+
+    private Mono<PageResponse<BookSummaryDto>> seekMatching(BookSearchCriteria criteria, String cursor, int size) {
+        int limit = SeekCursor.pageSize(size);
+        SeekCursor after = SeekCursor.decode(cursor).orElse(null);
+        return executeBlockingMono(() -> {
+            Specification<Book> specification = searchSpecification(criteria);
+            if (specification == null) {
+                return new PageResponse<BookSummaryDto>(List.of(), false, null);
+            }
+            return seekPage(bookRepository.findSummaries(specification, after, limit + 1), limit);
+        });
+    }
+
+    /**
+     * Suggests titles and authors starting with the prefix, most common first.
+     * Answered from memory only, so it is cheap enough to call on every keystroke.
+     */
+    @Override
+    public Mono<SuggestionResponse> suggest(String prefix, int limit) {
+        int count = Math.clamp(limit, 1, RadixTrie.DEFAULT_TOP_K);
+        return Mono.fromSupplier(() -> new SuggestionResponse(
+                bookSearchIndex.suggestTitles(prefix, count),
+                bookSearchIndex.suggestAuthors(prefix, count)
+        ));
+    }
+
+    /**
+     * Returns the catalog facet counts kept in memory, or an empty Mono until they are seeded
+     */
+    @Override
+    public Mono<FacetCounts> getFacets() {
+        return Mono.fromSupplier(bookFacets::snapshot);
     }
-}
\ No newline at end of file
+}
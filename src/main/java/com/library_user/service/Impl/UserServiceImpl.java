@@ -1,6 +1,7 @@
 package com.library_user.service.Impl;
 
 import com.library_user.exceptions.CustomException;
+import com.library_user.helper.SeekCursor;
 import com.library_user.model.entity.Role;
 import com.library_user.model.entity.User;
 import com.library_user.helper.ErrorMessages;
@@ -8,12 +9,15 @@ import com.library_user.model.request.AuthRequest;
 import com.library_user.model.request.RegisterRequest;
 import com.library_user.model.request.UpdateUserRequest;
 import com.library_user.model.response.AuthResponse;
+import com.library_user.model.response.PageResponse;
 import com.library_user.model.response.UserResponse;
 import com.library_user.repository.UserRepository;
 import com.library_user.security.JwtUtil;
 import com.library_user.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.*;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -25,6 +29,8 @@ import java.util.UUID;
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Sort NAME_ORDER = Sort.by("name", "id");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
@@ -94,6 +100,20 @@ public class UserServiceImpl implements UserService {
                 .getContent();
     }
 
+    /**
+     Returns users with keyset pagination ordered by (name, id)
+     **/
+    @Override
+    public PageResponse<UserResponse> seekUsers(String cursor, int size) {
+        return PageResponse.fromWindow(
+                userRepository.findAllBy(
+                        SeekCursor.position(cursor, "name", name -> name),
+                        NAME_ORDER,
+                        Limit.of(SeekCursor.pageSize(size))),
+                UserResponse::fromUser,
+                user -> new SeekCursor(user.getName(), user.getId()));
+    }
+
     /**
      Updates user information, throws an error if email is already taken or user is a librarian
      */
@@ -1,17 +1,40 @@
 package com.library_user.service;
 
-import com.library_user.model.dto.BookDto;
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.request.BookSearchCriteria;
+import com.library_user.model.request.SearchMode;
+import com.library_user.model.response.FacetCounts;
+import com.library_user.model.response.PageResponse;
+import com.library_user.model.response.SuggestionResponse;
 import org.springframework.data.domain.Pageable;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 public interface ReactiveBookService {
 
 
-    Flux<BookDto> searchBooksByTitle(String title, Pageable pageable);
+    Mono<PageResponse<BookSummaryDto>> searchBooksByTitle(String title, Pageable pageable);
 
-    Flux<BookDto> searchBooksByAuthor(String author, Pageable pageable);
+    Mono<PageResponse<BookSummaryDto>> searchBooksByTitle(String title, SearchMode mode, Pageable pageable);
 
-    Flux<BookDto> searchBooksByGenre(String genre, Pageable pageable);
+    Mono<PageResponse<BookSummaryDto>> searchBooksByAuthor(String author, Pageable pageable);
 
-    Flux<BookDto> searchBooksByAvailability(boolean availability, Pageable pageable);
+    Mono<PageResponse<BookSummaryDto>> searchBooksByAuthor(String author, SearchMode mode, Pageable pageable);
+
+    Mono<PageResponse<BookSummaryDto>> searchBooksByGenre(String genre, Pageable pageable);
+
+    Mono<PageResponse<BookSummaryDto>> searchBooksByAvailability(boolean availability, Pageable pageable);
+
+    Mono<PageResponse<BookSummaryDto>> seekBooksByTitle(String title, String cursor, int size);
+
+    Mono<PageResponse<BookSummaryDto>> seekBooksByAuthor(String author, String cursor, int size);
+
+    Mono<PageResponse<BookSummaryDto>> seekBooksByGenre(String genre, String cursor, int size);
+
+    Mono<PageResponse<BookSummaryDto>> seekBooksByAvailability(boolean availability, String cursor, int size);
+
+    Mono<PageResponse<BookSummaryDto>> searchBooks(BookSearchCriteria criteria, String cursor, int size);
+
+    Mono<SuggestionResponse> suggest(String prefix, int limit);
+
+    Mono<FacetCounts> getFacets();
 
 }
\ No newline at end of file
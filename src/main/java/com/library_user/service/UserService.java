@@ -4,6 +4,7 @@ import com.library_user.model.request.AuthRequest;
 import com.library_user.model.request.RegisterRequest;
 import com.library_user.model.request.UpdateUserRequest;
 import com.library_user.model.response.AuthResponse;
+import com.library_user.model.response.PageResponse;
 import com.library_user.model.response.UserResponse;
 import org.springframework.data.domain.Pageable;
 
@@ -15,6 +16,7 @@ public interface UserService {
     UserResponse register(RegisterRequest request);
     UserResponse getUserById(UUID id);
     List<UserResponse> getAllUsers(Pageable pageable);
+    PageResponse<UserResponse> seekUsers(String cursor, int size);
     UserResponse updateUser(UUID id, UpdateUserRequest request);
     void deleteUser(UUID id);
 }
\ No newline at end of file
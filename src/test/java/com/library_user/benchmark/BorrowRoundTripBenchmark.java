@@ -0,0 +1,154 @@
+package com.library_user.benchmark;
+
+import com.library_user.model.entity.Book;
+import com.library_user.model.entity.Borrowing;
+import com.library_user.model.entity.Role;
+import com.library_user.model.entity.User;
+import com.library_user.model.request.BorrowingCreateRequest;
+import com.library_user.repository.BookRepository;
+import com.library_user.repository.BorrowingRepository;
+import com.library_user.repository.UserRepository;
+import com.library_user.search.GenreDictionary;
+import com.library_user.service.BorrowingService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ Compares the borrow path of read-check-write calls outside a transaction with the single transaction of conditional updates
+ in BorrowingServiceImpl. Reports JDBC statements, commits and latency per borrow; finds served from the second-level cache
+ cost no statement on either side.
+ Skipped by default; run with
+ mvn test -Dtest=BorrowRoundTripBenchmark -Dbenchmark=true [-Dbenchmark.borrows=2000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+        "logging.level.org.hibernate.orm.jdbc.bind=WARN",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+class BorrowRoundTripBenchmark {
+
+    private static final int WARMUP = 200;
+
+    @Autowired
+    private GenreDictionary genreDictionary;
+
+    @Autowired
+    private BorrowingService borrowingService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private record Result(String name, int borrows, long statements, long transactions, long[] nanos) {
+        @Override
+        public String toString() {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return String.format("%-12s %,d borrows, %.1f statements and %.1f commits/borrow, mean %,d us, p50 %,d us, p99 %,d us",
+                    name, borrows, statements / (double) borrows, transactions / (double) borrows,
+                    (long) Arrays.stream(sorted).average().orElse(0) / 1000,
+                    sorted[sorted.length / 2] / 1000, sorted[(int) (sorted.length * 0.99)] / 1000);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowingRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void compareSeparateCallsAndConditionalUpdates() {
+        int borrows = Integer.getInteger("benchmark.borrows", 2000);
+        run("warmup", WARMUP, this::separateCalls);
+        run("warmup", WARMUP, this::conditionalUpdates);
+        System.out.println(run("separate", borrows, this::separateCalls));
+        System.out.println(run("conditional", borrows, this::conditionalUpdates));
+    }
+
+    private Result run(String name, int borrows, BiConsumer<UUID, UUID> borrow) {
+        genreDictionary.intern("Fiction");
+        List<UUID> userIds = userRepository.saveAll(IntStream.range(0, borrows).mapToObj(i -> User.builder()
+                .name("Benchmark " + i)
+                .email(name + "-" + i + "-" + UUID.randomUUID() + "@bench.local")
+                .password("password")
+                .contact("555")
+                .role(Role.PATRON)
+                .borrowedBookCount(0)
+                .build()).toList()).stream().map(User::getId).toList();
+        List<UUID> bookIds = bookRepository.saveAll(IntStream.range(0, borrows).mapToObj(i -> Book.builder()
+                .title("Benchmark " + i)
+                .author("Author")
+                .isbn(UUID.randomUUID().toString())
+                .description("Desc")
+                .genre("Fiction")
+                .publicationDate(LocalDate.of(2020, 1, 1))
+                .availability(true)
+                .build()).toList()).stream().map(Book::getId).toList();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long[] nanos = new long[borrows];
+        for (int i = 0; i < borrows; i++) {
+            long started = System.nanoTime();
+            borrow.accept(userIds.get(i), bookIds.get(i));
+            nanos[i] = System.nanoTime() - started;
+        }
+        return new Result(name, borrows, statistics.getPrepareStatementCount(), statistics.getSuccessfulTransactionCount(), nanos);
+    }
+
+    private void conditionalUpdates(UUID userId, UUID bookId) {
+        borrowingService.borrowBook(new BorrowingCreateRequest(userId, bookId));
+    }
+
+    /**
+     The borrow path before it was one transaction: every check is a read, every change a separate load and save
+     */
+    private void separateCalls(UUID userId, UUID bookId) {
+        if (!bookRepository.existsByIdAndAvailabilityTrue(bookId)
+                || userRepository.findById(userId).orElseThrow().getBorrowedBookCount() >= 5) {
+            throw new IllegalStateException("cannot borrow");
+        }
+        LocalDate now = LocalDate.now();
+        borrowingRepository.save(Borrowing.builder()
+                .userId(userId)
+                .bookId(bookId)
+                .borrowDate(now)
+                .dueDate(now.plusDays(1))
+                .overdue(false)
+                .build());
+        User user = userRepository.findById(userId).orElseThrow();
+        user.setBorrowedBookCount(user.getBorrowedBookCount() + 1);
+        userRepository.save(user);
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        book.setAvailability(false);
+        bookRepository.save(book);
+    }
+}
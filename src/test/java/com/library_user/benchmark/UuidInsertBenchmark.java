@@ -0,0 +1,90 @@
+package com.library_user.benchmark;
+
+import com.library_user.model.entity.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ Compares inserting rows keyed by random UUIDs against time-ordered UUIDv7 keys.
+ Skipped by default; run with
+ mvn test -Dtest=UuidInsertBenchmark -Dbenchmark=true [-Dbenchmark.rows=1000000]
+     [-Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/postgres -Dbenchmark.jdbc.user=postgres -Dbenchmark.jdbc.password=1234]
+ Index sizes are only reported on PostgreSQL, H2 gives throughput only.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private record Result(String name, int rows, long millis, long indexBytes) {
+        @Override
+        public String toString() {
+            return String.format("%-8s %,d rows in %,d ms (%,.0f rows/s), primary key index %s",
+                    name, rows, millis, rows * 1000.0 / Math.max(1, millis),
+                    indexBytes < 0 ? "n/a" : String.format("%,d bytes", indexBytes));
+        }
+    }
+
+    @Test
+    void compareRandomAndTimeOrderedIds() throws SQLException {
+        int rows = Integer.getInteger("benchmark.rows", 200_000);
+        String url = System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:uuid_benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        try (Connection connection = DriverManager.getConnection(url,
+                System.getProperty("benchmark.jdbc.user", "sa"), System.getProperty("benchmark.jdbc.password", ""))) {
+            connection.setAutoCommit(false);
+            Result random = run(connection, "uuid_bench_random", rows, UUID::randomUUID);
+            Result ordered = run(connection, "uuid_bench_v7", rows, UuidV7Generator::next);
+            System.out.println(random);
+            System.out.println(ordered);
+        }
+    }
+
+    private Result run(Connection connection, String table, int rows, Supplier<UUID> ids) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + table);
+            statement.execute("create table " + table + " (id uuid primary key, payload varchar(64) not null)");
+            connection.commit();
+        }
+        long started = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("insert into " + table + " (id, payload) values (?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setObject(1, ids.get());
+                insert.setString(2, "book " + i);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0 || i == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        long indexBytes = indexSize(connection, table + "_pkey");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table " + table);
+            connection.commit();
+        }
+        return new Result(table.substring("uuid_bench_".length()), rows, millis, indexBytes);
+    }
+
+    private long indexSize(Connection connection, String index) throws SQLException {
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return -1;
+        }
+        try (PreparedStatement size = connection.prepareStatement("select pg_relation_size(?::regclass)")) {
+            size.setString(1, index);
+            try (ResultSet result = size.executeQuery()) {
+                result.next();
+                return result.getLong(1);
+            }
+        }
+    }
+}
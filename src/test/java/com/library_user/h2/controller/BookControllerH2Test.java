@@ -1,6 +1,7 @@
 package com.library_user.h2.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library_user.helper.ErrorMessages;
 import com.library_user.model.dto.BookDto;
 import com.library_user.model.entity.Book;
 import com.library_user.model.entity.Role;
@@ -9,6 +10,7 @@ import com.library_user.model.request.AuthRequest;
 import com.library_user.model.response.AuthResponse;
 import com.library_user.repository.BookRepository;
 import com.library_user.repository.UserRepository;
+import com.library_user.search.GenreDictionary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -22,9 +24,15 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -33,6 +41,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 public class BookControllerH2Test {
 
+    @Autowired
+    private GenreDictionary genreDictionary;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -62,6 +73,7 @@ public class BookControllerH2Test {
 
     @BeforeEach
     void setUp() throws Exception {
+        Stream.of(DEFAULT_GENRE, "Test", "Old Genre", "valid genre").forEach(genreDictionary::intern);
 
         objectMapper.findAndRegisterModules();
 
@@ -120,7 +132,10 @@ public class BookControllerH2Test {
                 DEFAULT_DESCRIPTION,
                 DEFAULT_PUB_DATE,
                 DEFAULT_GENRE,
-                DEFAULT_AVAILABILITY
+                DEFAULT_AVAILABILITY,
+                null,
+                null,
+                null
         );
     }
 
@@ -156,7 +171,7 @@ public class BookControllerH2Test {
     // adding a book as a patron is forbidden.
     @Test
     void addBook_asPatron_forbidden() throws Exception {
-        BookDto newBookDto = new BookDto(null, "Forbidden Book", "Author", "1112223330", "Desc", LocalDate.now(), "Test", true);
+        BookDto newBookDto = new BookDto(null, "Forbidden Book", "Author", "1112223330", "Desc", LocalDate.now(), "Test", true, null, null, null);
 
         mockMvc.perform(post("/api/books")
                         .header("Authorization", "Bearer " + patronToken)
@@ -168,7 +183,7 @@ public class BookControllerH2Test {
     // adding a book without a token is forbidden.
     @Test
     void addBook_missingToken_forbidden() throws Exception {
-        BookDto newBookDto = new BookDto(null, "Unauthorized Book", "Author", "1112223340", "Desc", LocalDate.now(), "Test", true);
+        BookDto newBookDto = new BookDto(null, "Unauthorized Book", "Author", "1112223340", "Desc", LocalDate.now(), "Test", true, null, null, null);
 
         mockMvc.perform(post("/api/books")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -181,7 +196,7 @@ public class BookControllerH2Test {
     void addBook_withExistingIsbn_conflict() throws Exception {
         createAndSaveDefaultBook(); // Save a book with the default ISBN
 
-        BookDto secondBookDto = new BookDto(null, "Another Book with Same ISBN", "Another Author", DEFAULT_ISBN, "Another Desc", LocalDate.now(), "Fiction", true);
+        BookDto secondBookDto = new BookDto(null, "Another Book with Same ISBN", "Another Author", DEFAULT_ISBN, "Another Desc", LocalDate.now(), "Fiction", true, null, null, null);
         mockMvc.perform(post("/api/books")
                         .header("Authorization", "Bearer " + librarianToken)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -189,10 +204,167 @@ public class BookControllerH2Test {
                 .andExpect(status().isConflict()); // Expecting Conflict for duplicate ISBN
     }
 
+    // an added book is found by the ISBN-10 form of its ISBN, and that form counts as a duplicate.
+    @Test
+    void addBook_thenFindAndConflictByIsbn10() throws Exception {
+        mockMvc.perform(post("/api/books")
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createDefaultBookDto(null))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/books/isbn/{isbn}", "0-13-468599-7")
+                        .header("Authorization", "Bearer " + librarianToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isbn", is(DEFAULT_ISBN)));
+
+        BookDto isbn10BookDto = new BookDto(null, "Same Book as ISBN-10", "Another Author", "0134685997", "Another Desc", LocalDate.now(), "Fiction", true, null, null, null);
+        mockMvc.perform(post("/api/books")
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(isbn10BookDto)))
+                .andExpect(status().isConflict());
+    }
+
+    // importing NDJSON stores valid rows and reports invalid, duplicate and unreadable ones.
+    @Test
+    void importBooks_ndjson_reportsRejectedRows() throws Exception {
+        createAndSaveDefaultBook();
+        String body = String.join("\n",
+                "{\"title\":\"1984\",\"author\":\"George Orwell\",\"isbn\":\"978-0451524935\",\"description\":\"Dystopia\",\"publicationDate\":\"1949-06-08\",\"genre\":\"Dystopian\",\"availability\":true}",
+                "{\"title\":\"\",\"author\":\"No Title\",\"isbn\":\"978-0060850524\",\"description\":\"Desc\",\"publicationDate\":\"1932-01-01\",\"genre\":\"Dystopian\"}",
+                "{\"title\":\"1984 Again\",\"author\":\"George Orwell\",\"isbn\":\"0-451-52493-4\",\"description\":\"Same book\",\"publicationDate\":\"1949-06-08\",\"genre\":\"Dystopian\"}",
+                "",
+                "{\"title\":\"Existing\",\"author\":\"Author\",\"isbn\":\"" + DEFAULT_ISBN + "\",\"description\":\"Desc\",\"publicationDate\":\"2018-01-06\",\"genre\":\"Programming\"}",
+                "not json");
+
+        mockMvc.perform(post("/api/books/import")
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(5)))
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejected", is(4)))
+                .andExpect(jsonPath("$.errors[*].row", contains(2, 3, 5, 4)));
+
+        mockMvc.perform(get("/api/books/isbn/{isbn}", "0451524934")
+                        .header("Authorization", "Bearer " + librarianToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("1984")));
+    }
+
+    // importing CSV reads quoted fields containing commas, quotes and line breaks.
+    @Test
+    void importBooks_csv_success() throws Exception {
+        String body = "title,author,isbn,description,publicationDate,genre,availability\r\n"
+                + "Brave New World,Aldous Huxley,978-0060850524,\"A \"\"brave\"\" world,\nreissued\",1932-01-01,Dystopian,true\r\n"
+                + "Crime and Punishment,Fyodor Dostoevsky,978-0143039433,Classic novel,1866-01-01,Classic,false\r\n";
+
+        mockMvc.perform(post("/api/books/import")
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(2)))
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.errors", hasSize(0)));
+
+        mockMvc.perform(get("/api/books/isbn/{isbn}", "978-0060850524")
+                        .header("Authorization", "Bearer " + librarianToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description", is("A \"brave\" world,\nreissued")));
+    }
+
+    // a CSV without the required columns is rejected as a whole.
+    @Test
+    void importBooks_csvMissingColumns_badRequest() throws Exception {
+        mockMvc.perform(post("/api/books/import")
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType("text/csv")
+                        .content("title,author\nSome Title,Some Author\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // importing books as a patron is forbidden.
+    @Test
+    void importBooks_asPatron_forbidden() throws Exception {
+        mockMvc.perform(post("/api/books/import")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}"))
+                .andExpect(status().isForbidden());
+    }
+
+    // exporting streams every book as one JSON object per line.
+    @Test
+    void exportBooks_asLibrarian_streamsNdjson() throws Exception {
+        createAndSaveDefaultBook();
+        bookRepository.save(Book.builder().title("Second Book").author("Author").isbn("9780451524935").description("Desc").publicationDate(LocalDate.now()).genre("Test").availability(false).build());
+
+        MvcResult started = mockMvc.perform(get("/api/books/export")
+                        .header("Authorization", "Bearer " + librarianToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        List<String> titles = new ArrayList<>();
+        for (String line : lines) {
+            titles.add(objectMapper.readValue(line, BookDto.class).getTitle());
+        }
+        assertTrue(titles.containsAll(List.of(DEFAULT_TITLE, "Second Book")));
+    }
+
+    // exporting the catalog as a patron is forbidden.
+    @Test
+    void exportBooks_asPatron_forbidden() throws Exception {
+        mockMvc.perform(get("/api/books/export")
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isForbidden());
+    }
+
+    // bulk availability changes update the books and report changed, unchanged and missing ids.
+    @Test
+    void updateBooksAvailability_asLibrarian_success() throws Exception {
+        Book first = createAndSaveDefaultBook();
+        Book second = bookRepository.save(Book.builder().title("Second Book").author("Author").isbn("9780451524935").description("Desc").publicationDate(LocalDate.now()).genre("Test").availability(false).build());
+        UUID missingId = UUID.randomUUID();
+        String body = "{\"changes\":["
+                + "{\"bookId\":\"" + first.getId() + "\",\"availability\":false},"
+                + "{\"bookId\":\"" + second.getId() + "\",\"availability\":false},"
+                + "{\"bookId\":\"" + missingId + "\",\"availability\":true}]}";
+
+        mockMvc.perform(patch("/api/books/availability")
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", contains(first.getId().toString())))
+                .andExpect(jsonPath("$.unchanged", contains(second.getId().toString())))
+                .andExpect(jsonPath("$.missing", contains(missingId.toString())));
+
+        assertFalse(bookRepository.findById(first.getId()).orElseThrow().isAvailability());
+    }
+
+    // bulk availability changes without any change are rejected.
+    @Test
+    void updateBooksAvailability_empty_badRequest() throws Exception {
+        mockMvc.perform(patch("/api/books/availability")
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"changes\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
     // adding a book with invalid input (e.g., blank title) returns a bad request error.
     @Test
     void addBook_invalidInput_badRequest() throws Exception {
-        BookDto invalidBookDto = new BookDto(null, "", DEFAULT_AUTHOR, "1234567000", DEFAULT_DESCRIPTION, DEFAULT_PUB_DATE, DEFAULT_GENRE, true);
+        BookDto invalidBookDto = new BookDto(null, "", DEFAULT_AUTHOR, "1234567000", DEFAULT_DESCRIPTION, DEFAULT_PUB_DATE, DEFAULT_GENRE, true, null, null, null);
 
         mockMvc.perform(post("/api/books")
                         .header("Authorization", "Bearer " + librarianToken)
@@ -249,7 +421,10 @@ public class BookControllerH2Test {
                 "New Desc",
                 validPublicationDate,
                 "New Genre",
-                false);
+                false,
+                null,
+                null,
+                null);
 
         mockMvc.perform(put("/api/books/{id}", savedBook.getId())
                         .header("Authorization", "Bearer " + librarianToken)
@@ -285,7 +460,10 @@ public class BookControllerH2Test {
                 "update description",
                 LocalDate.now(),
                 "update gnre",
-                false);
+                false,
+                null,
+                null,
+                null);
 
         mockMvc.perform(put("/api/books/{id}", savedBook.getId())
                         .header("Authorization", "Bearer " + librarianToken)
@@ -317,7 +495,10 @@ public class BookControllerH2Test {
                 "updated description",
                 LocalDate.now().plusDays(1),
                 "updated genre",
-                false);
+                false,
+                null,
+                null,
+                null);
 
         mockMvc.perform(put("/api/books/{id}", savedBook.getId())
                         .header("Authorization", "Bearer " + librarianToken)
@@ -330,7 +511,7 @@ public class BookControllerH2Test {
     @Test
     void updateBook_asPatron_forbidden() throws Exception {
         Book savedBook = bookRepository.save(Book.builder().title("Patron Cannot Update").author("Author").isbn("3333333333").description("Desc").publicationDate(LocalDate.now()).genre("Test").availability(true).build());
-        BookDto updatedInfo = new BookDto(savedBook.getId(), "Attempted Update", "Author", "3333333333", "Desc", LocalDate.now(), "Test", true);
+        BookDto updatedInfo = new BookDto(savedBook.getId(), "Attempted Update", "Author", "3333333333", "Desc", LocalDate.now(), "Test", true, null, null, null);
 
         mockMvc.perform(put("/api/books/{id}", savedBook.getId())
                         .header("Authorization", "Bearer " + patronToken)
@@ -343,7 +524,7 @@ public class BookControllerH2Test {
     @Test
     void updateBook_notFound() throws Exception {
         UUID nonExistentId = UUID.randomUUID(); // Non-existent ID
-        BookDto updatedInfo = new BookDto(nonExistentId, "Non Existent Update", "Author", "4444444444", "Desc", LocalDate.now(), "Test", true);
+        BookDto updatedInfo = new BookDto(nonExistentId, "Non Existent Update", "Author", "4444444444", "Desc", LocalDate.now(), "Test", true, null, null, null);
 
         mockMvc.perform(put("/api/books/{id}", nonExistentId)
                         .header("Authorization", "Bearer " + librarianToken) // Use librarian token for permission
@@ -399,6 +580,67 @@ public class BookControllerH2Test {
                 .andExpect(jsonPath("$.isbn", is(uniqueIsbn)));
     }
 
+    // an unchanged book is answered with 304 by id and by ISBN, an update moves the ETag on
+    @Test
+    void getBook_withIfNoneMatch_notModifiedUntilUpdated() throws Exception {
+        Book savedBook = bookRepository.save(Book.builder().title("Polled Book").author("Author").isbn(DEFAULT_ISBN).description("Desc").publicationDate(LocalDate.now()).genre("Test").availability(true).build());
+
+        String eTag = mockMvc.perform(get("/api/books/{id}", savedBook.getId())
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + savedBook.getId() + "-0\""))
+                .andExpect(jsonPath("$.version", is(0)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/books/{id}", savedBook.getId())
+                        .header("Authorization", "Bearer " + patronToken)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/books/isbn/{isbn}", "0-13-468599-7")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch("/api/books/{id}/availability/{availability}", savedBook.getId(), false)
+                        .header("Authorization", "Bearer " + librarianToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/books/{id}", savedBook.getId())
+                        .header("Authorization", "Bearer " + patronToken)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + savedBook.getId() + "-1\""))
+                .andExpect(jsonPath("$.availability", is(false)));
+    }
+
+    // an update with a stale If-Match is rejected, one with the current ETag goes through
+    @Test
+    void updateBook_withIfMatch_rejectsStaleETag() throws Exception {
+        Book savedBook = bookRepository.save(Book.builder().title("Old Title").author("Author").isbn("1111111111").description("Desc").publicationDate(LocalDate.now()).genre("Test").availability(true).build());
+        String staleETag = "\"" + savedBook.getId() + "-0\"";
+        savedBook.setTitle("Changed Elsewhere");
+        bookRepository.save(savedBook);
+        BookDto updatedInfo = createDefaultBookDto(savedBook.getId());
+
+        mockMvc.perform(put("/api/books/{id}", savedBook.getId())
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .header("If-Match", staleETag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedInfo)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(put("/api/books/{id}", savedBook.getId())
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .header("If-Match", "\"" + savedBook.getId() + "-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedInfo)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + savedBook.getId() + "-2\""))
+                .andExpect(jsonPath("$.title", is(DEFAULT_TITLE)));
+    }
+
     // attempting to retrieve a book by a non-existent ISBN returns a not found error.
     @Test
     void getBookByIsbn_notFound() throws Exception {
@@ -432,6 +674,60 @@ public class BookControllerH2Test {
                 .andExpect(jsonPath("$.availability", is(true)));
     }
 
+    // a book whose copies are all on loan can not be made available.
+    @Test
+    void updateBookAvailability_withoutCopyOnShelf_conflict() throws Exception {
+        Book savedBook = bookRepository.save(Book.builder().title("All Lent").author("Author").isbn("7777777779").description("Desc").publicationDate(LocalDate.now()).genre("Test").availability(false).availableCopies(0).build());
+
+        mockMvc.perform(patch("/api/books/{id}/availability/{availability}", savedBook.getId(), true)
+                        .header("Authorization", "Bearer " + librarianToken))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is(ErrorMessages.BOOK_HAS_NO_COPY_ON_SHELF)));
+
+        mockMvc.perform(patch("/api/books/availability")
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"changes\":[{\"bookId\":\"" + savedBook.getId() + "\",\"availability\":true}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", empty()))
+                .andExpect(jsonPath("$.withoutCopies", contains(savedBook.getId().toString())));
+
+        assertFalse(bookRepository.findById(savedBook.getId()).orElseThrow().isAvailability());
+    }
+
+    // updating a book adds copies to the shelf, refuses to remove copies and keeps availability in line with the shelf.
+    @Test
+    void updateBook_withCopies_changesShelfConsistently() throws Exception {
+        Book savedBook = bookRepository.save(Book.builder().title("All Lent").author("Author").isbn("7777777780").description("Desc").publicationDate(LocalDate.now()).genre("Test").availability(false).copies(2).availableCopies(0).build());
+        BookDto available = new BookDto(savedBook.getId(), "All Lent", "Author", "7777777780", "Desc", LocalDate.now(), "Test",
+                true, 2, null, null);
+
+        mockMvc.perform(put("/api/books/{id}", savedBook.getId())
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(available)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is(ErrorMessages.BOOK_HAS_NO_COPY_ON_SHELF)));
+
+        available.setCopies(1);
+        mockMvc.perform(put("/api/books/{id}", savedBook.getId())
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(available)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is(ErrorMessages.COPIES_CAN_NOT_BE_REMOVED)));
+
+        available.setCopies(3);
+        mockMvc.perform(put("/api/books/{id}", savedBook.getId())
+                        .header("Authorization", "Bearer " + librarianToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(available)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availability", is(true)))
+                .andExpect(jsonPath("$.copies", is(3)))
+                .andExpect(jsonPath("$.availableCopies", is(1)));
+    }
+
     // a patron attempting to update book availability is forbidden.
     @Test
     void updateBookAvailability_asPatron_forbidden() throws Exception {
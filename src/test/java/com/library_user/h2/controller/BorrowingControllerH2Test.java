@@ -1,17 +1,21 @@
 package com.library_user.h2.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library_user.model.dto.HoldQueue;
 import com.library_user.model.entity.Book;
 import com.library_user.model.entity.Borrowing;
 import com.library_user.model.entity.Role;
 import com.library_user.model.entity.User;
 import com.library_user.model.request.AuthRequest;
+import com.library_user.model.request.BatchBorrowingRequest;
 import com.library_user.model.request.BorrowingCreateRequest;
 import com.library_user.model.request.ReturnBookRequest;
 import com.library_user.model.response.AuthResponse;
 import com.library_user.repository.BookRepository;
 import com.library_user.repository.BorrowingRepository;
+import com.library_user.repository.HoldRepository;
 import com.library_user.repository.UserRepository;
+import com.library_user.search.GenreDictionary;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,7 +29,9 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,6 +43,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 public class BorrowingControllerH2Test {
 
+    @Autowired
+    private GenreDictionary genreDictionary;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -52,6 +61,9 @@ public class BorrowingControllerH2Test {
     @Autowired
     private BorrowingRepository borrowingRepository;
 
+    @Autowired
+    private HoldRepository holdRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -72,9 +84,11 @@ public class BorrowingControllerH2Test {
 
     @BeforeEach
     void setUp() throws Exception {
+        Stream.of("Fiction", "Science", "History", "Mystery").forEach(genreDictionary::intern);
         objectMapper.findAndRegisterModules();
 
         borrowingRepository.deleteAllInBatch();
+        holdRepository.deleteAllInBatch();
         bookRepository.deleteAllInBatch();
         userRepository.deleteAllInBatch();
 
@@ -164,6 +178,7 @@ public class BorrowingControllerH2Test {
     @AfterEach
     void tearDown() {
         borrowingRepository.deleteAllInBatch();
+        holdRepository.deleteAllInBatch();
         bookRepository.deleteAllInBatch();
         userRepository.deleteAllInBatch();
     }
@@ -239,9 +254,9 @@ public class BorrowingControllerH2Test {
                 .andExpect(status().isNotFound());
     }
 
-    // borrowing a non-existent book returns a bad request error.
+    // borrowing a non-existent book returns a not found error.
     @Test
-    void borrowBook_bookNotFound_badRequest() throws Exception {
+    void borrowBook_bookNotFound_notFound() throws Exception {
         UUID nonExistentBookId = UUID.randomUUID();
         BorrowingCreateRequest request = new BorrowingCreateRequest(patronUser.getId(), nonExistentBookId);
 
@@ -249,7 +264,7 @@ public class BorrowingControllerH2Test {
                         .header("Authorization", "Bearer " + patronToken)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isNotFound());
     }
 
     // borrowing a book when the user has reached the maximum borrow limit returns a conflict error.
@@ -265,6 +280,10 @@ public class BorrowingControllerH2Test {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isConflict());
+
+        // the book was claimed before the limit check failed, the rollback releases it again
+        assertTrue(bookRepository.findById(testBook2.getId()).orElseThrow().isAvailability());
+        assertTrue(borrowingRepository.findAll().stream().noneMatch(borrowing -> borrowing.getBookId().equals(testBook2.getId())));
     }
 
     private Borrowing createSampleBorrowing(User user, Book book, LocalDate borrowDate, LocalDate dueDate, LocalDate returnDate, boolean overdue) {
@@ -461,4 +480,275 @@ public class BorrowingControllerH2Test {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0))); // Expecting an empty list
     }
-}
\ No newline at end of file
+
+    // a borrow retried with the same Idempotency-Key gets the original response and borrows only once.
+    @Test
+    void borrowBook_retriedWithIdempotencyKey_replaysOriginalResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = objectMapper.writeValueAsString(new BorrowingCreateRequest(patronUser.getId(), testBook1.getId()));
+
+        String first = mockMvc.perform(post("/api/borrowings/borrow")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String retry = mockMvc.perform(post("/api/borrowings/borrow")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, retry);
+        assertEquals(1, borrowingRepository.count());
+        assertEquals(1, userRepository.findById(patronUser.getId()).orElseThrow().getBorrowedBookCount());
+
+        mockMvc.perform(post("/api/borrowings/borrow")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BorrowingCreateRequest(patronUser.getId(), testBook2.getId()))))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    // a return retried with the same Idempotency-Key gets the original response instead of a conflict.
+    @Test
+    void returnBook_retriedWithIdempotencyKey_replaysOriginalResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String borrowed = mockMvc.perform(post("/api/borrowings/borrow")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BorrowingCreateRequest(patronUser.getId(), testBook1.getId()))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        UUID borrowingId = UUID.fromString(objectMapper.readTree(borrowed).get("id").asText());
+        String body = objectMapper.writeValueAsString(new ReturnBookRequest(patronUser.getId()));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/borrowings/return/{borrowingId}", borrowingId)
+                            .header("Authorization", "Bearer " + patronToken)
+                            .header("Idempotency-Key", key)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.returnDate", is(LocalDate.now().toString())));
+        }
+
+        assertEquals(0, userRepository.findById(patronUser.getId()).orElseThrow().getBorrowedBookCount());
+        assertTrue(bookRepository.findById(testBook1.getId()).orElseThrow().isAvailability());
+    }
+
+    // a batch checkout borrows every book and counts them all for the user.
+    @Test
+    void borrowBooks_asPatron_borrowsAllBooks() throws Exception {
+        BatchBorrowingRequest request = new BatchBorrowingRequest(patronUser.getId(), List.of(testBook1.getId(), testBook2.getId()));
+
+        mockMvc.perform(post("/api/borrowings/borrow/batch")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.borrowings", hasSize(2)))
+                .andExpect(jsonPath("$.borrowings[0].bookId", is(testBook1.getId().toString())))
+                .andExpect(jsonPath("$.borrowings[1].bookId", is(testBook2.getId().toString())))
+                .andExpect(jsonPath("$.failures", hasSize(0)));
+
+        assertEquals(2, borrowingRepository.count());
+        assertEquals(2, userRepository.findById(patronUser.getId()).orElseThrow().getBorrowedBookCount());
+        assertFalse(bookRepository.findById(testBook1.getId()).orElseThrow().isAvailability());
+        assertFalse(bookRepository.findById(testBook2.getId()).orElseThrow().isAvailability());
+    }
+
+    // a batch checkout with an unavailable book borrows nothing and reports that book.
+    @Test
+    void borrowBooks_withUnavailableBook_borrowsNothing() throws Exception {
+        BatchBorrowingRequest request = new BatchBorrowingRequest(patronUser.getId(), List.of(testBook1.getId(), unavailableBook.getId()));
+
+        mockMvc.perform(post("/api/borrowings/borrow/batch")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.borrowings", hasSize(0)))
+                .andExpect(jsonPath("$.failures", hasSize(1)))
+                .andExpect(jsonPath("$.failures[0].bookId", is(unavailableBook.getId().toString())))
+                .andExpect(jsonPath("$.failures[0].status", is(409)));
+
+        assertEquals(0, borrowingRepository.count());
+        assertEquals(0, userRepository.findById(patronUser.getId()).orElseThrow().getBorrowedBookCount());
+        assertTrue(bookRepository.findById(testBook1.getId()).orElseThrow().isAvailability());
+    }
+
+    // with an Idempotency-Key the checkout joins the key's transaction; the failures still name only the unavailable book.
+    @Test
+    void borrowBooks_withUnavailableBookAndIdempotencyKey_borrowsNothing() throws Exception {
+        BatchBorrowingRequest request = new BatchBorrowingRequest(patronUser.getId(), List.of(testBook1.getId(), unavailableBook.getId()));
+
+        mockMvc.perform(post("/api/borrowings/borrow/batch")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .header("Idempotency-Key", "batch-" + UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.borrowings", hasSize(0)))
+                .andExpect(jsonPath("$.failures", hasSize(1)))
+                .andExpect(jsonPath("$.failures[0].bookId", is(unavailableBook.getId().toString())))
+                .andExpect(jsonPath("$.failures[0].status", is(409)));
+
+        assertEquals(0, borrowingRepository.count());
+        assertEquals(0, userRepository.findById(patronUser.getId()).orElseThrow().getBorrowedBookCount());
+        Book book = bookRepository.findById(testBook1.getId()).orElseThrow();
+        assertTrue(book.isAvailability());
+        assertEquals(1, book.getAvailableCopies());
+    }
+
+    // a batch checkout that would take the user over the limit borrows nothing.
+    @Test
+    void borrowBooks_overUserLimit_conflict() throws Exception {
+        patronUser.setBorrowedBookCount(4);
+        userRepository.save(patronUser);
+        BatchBorrowingRequest request = new BatchBorrowingRequest(patronUser.getId(), List.of(testBook1.getId(), testBook2.getId()));
+
+        mockMvc.perform(post("/api/borrowings/borrow/batch")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+
+        assertEquals(0, borrowingRepository.count());
+        assertEquals(4, userRepository.findById(patronUser.getId()).orElseThrow().getBorrowedBookCount());
+        assertTrue(bookRepository.findById(testBook1.getId()).orElseThrow().isAvailability());
+    }
+
+    // a returned copy goes straight to the patron holding the book.
+    @Test
+    void returnBook_withHold_lendsCopyToWaitingPatron() throws Exception {
+        String anotherPatronToken = authenticateAndGetToken(anotherPatron.getEmail(), "password123");
+        MvcResult borrowed = mockMvc.perform(post("/api/borrowings/borrow")
+                        .header("Authorization", "Bearer " + patronToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BorrowingCreateRequest(patronUser.getId(), testBook1.getId()))))
+                .andExpect(status().isOk())
+                .andReturn();
+        String borrowingId = objectMapper.readTree(borrowed.getResponse().getContentAsString()).get("id").asText();
+
+        mockMvc.perform(post("/api/borrowings/holds/{bookId}", testBook1.getId())
+                        .header("Authorization", "Bearer " + anotherPatronToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId", is(anotherPatron.getId().toString())))
+                .andExpect(jsonPath("$.position", is(1)));
+
+        mockMvc.perform(post("/api/borrowings/return/{borrowingId}", borrowingId)
+                        .header("Authorization", "Bearer " + patronToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ReturnBookRequest(patronUser.getId()))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/borrowings/holds/{bookId}", testBook1.getId())
+                        .header("Authorization", "Bearer " + anotherPatronToken))
+                .andExpect(status().isNotFound());
+        List<Borrowing> open = borrowingRepository.findAll().stream().filter(b -> b.getReturnDate() == null).toList();
+        assertEquals(1, open.size());
+        assertEquals(anotherPatron.getId(), open.getFirst().getUserId());
+        assertEquals(1, userRepository.findById(anotherPatron.getId()).orElseThrow().getBorrowedBookCount());
+        assertEquals(0, userRepository.findById(patronUser.getId()).orElseThrow().getBorrowedBookCount());
+        assertFalse(bookRepository.findById(testBook1.getId()).orElseThrow().isAvailability());
+    }
+
+    // holds are served in order and cancelling one moves the holds behind it up.
+    @Test
+    void cancelHold_movesLaterHoldsUp() throws Exception {
+        String anotherPatronToken = authenticateAndGetToken(anotherPatron.getEmail(), "password123");
+        mockMvc.perform(post("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + anotherPatronToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position", is(1)));
+        mockMvc.perform(post("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position", is(2)));
+        mockMvc.perform(post("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(delete("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + anotherPatronToken))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position", is(1)));
+        mockMvc.perform(delete("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + anotherPatronToken))
+                .andExpect(status().isNotFound());
+    }
+
+    // placing a hold leaves the book's version alone, and saving a book read before the hold keeps the queue.
+    @Test
+    void placeHold_keepsBookVersionAndQueue() throws Exception {
+        Book readBefore = bookRepository.findById(unavailableBook.getId()).orElseThrow();
+
+        mockMvc.perform(post("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isOk());
+
+        assertEquals(readBefore.getVersion(), bookRepository.findById(unavailableBook.getId()).orElseThrow().getVersion());
+        readBefore.setTitle("Renamed");
+        bookRepository.save(readBefore);
+        assertEquals(new HoldQueue(0, 1), bookRepository.findHoldQueueById(unavailableBook.getId()).orElseThrow());
+    }
+
+    // a librarian making a held book available lends its copy to the waiting patron instead of shelving it.
+    @Test
+    void updateBookAvailability_withHold_lendsCopyToWaitingPatron() throws Exception {
+        mockMvc.perform(post("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/books/{id}/availability/{availability}", unavailableBook.getId(), true)
+                        .header("Authorization", "Bearer " + librarianToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availability", is(false)))
+                .andExpect(jsonPath("$.availableCopies", is(0)));
+
+        assertEquals(0, holdRepository.count());
+        List<Borrowing> lent = borrowingRepository.findAll().stream()
+                .filter(borrowing -> borrowing.getBookId().equals(unavailableBook.getId())).toList();
+        assertEquals(1, lent.size());
+        assertEquals(patronUser.getId(), lent.getFirst().getUserId());
+        assertEquals(1, userRepository.findById(patronUser.getId()).orElseThrow().getBorrowedBookCount());
+    }
+
+    // copies added to a held book go to the waiting patrons first, the rest stay on the shelf.
+    @Test
+    void addCopies_withHold_lendsNewCopyToWaitingPatron() throws Exception {
+        mockMvc.perform(post("/api/borrowings/holds/{bookId}", unavailableBook.getId())
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/books/{id}/copies/{count}", unavailableBook.getId(), 2)
+                        .header("Authorization", "Bearer " + librarianToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availability", is(true)))
+                .andExpect(jsonPath("$.copies", is(3)))
+                .andExpect(jsonPath("$.availableCopies", is(2)));
+
+        assertEquals(0, holdRepository.count());
+        assertTrue(borrowingRepository.findAll().stream().anyMatch(borrowing -> borrowing.getBookId().equals(unavailableBook.getId())
+                && borrowing.getUserId().equals(patronUser.getId())));
+    }
+
+    // a book with a copy on the shelf is borrowed, not held.
+    @Test
+    void placeHold_onAvailableBook_conflict() throws Exception {
+        mockMvc.perform(post("/api/borrowings/holds/{bookId}", testBook1.getId())
+                        .header("Authorization", "Bearer " + patronToken))
+                .andExpect(status().isConflict());
+
+        assertEquals(0, holdRepository.count());
+    }
+}
@@ -0,0 +1,129 @@
+package com.library_user.h2.service;
+
+import com.library_user.model.dto.BookDto;
+import com.library_user.model.entity.Borrowing;
+import com.library_user.model.entity.Hold;
+import com.library_user.repository.BookRepository;
+import com.library_user.repository.BorrowingRepository;
+import com.library_user.repository.HoldRepository;
+import com.library_user.scheduler.BookCompactionJob;
+import com.library_user.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookCompactionH2Test {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // deleted rows are invisible to the repositories, so the tables are cleared directly
+        jdbcTemplate.update("delete from borrowings");
+        jdbcTemplate.update("delete from holds");
+        jdbcTemplate.update("delete from books");
+    }
+
+    private BookDto book(String isbn) {
+        BookDto bookDto = new BookDto();
+        bookDto.setTitle("Compacted " + isbn);
+        bookDto.setAuthor("Author");
+        bookDto.setIsbn(isbn);
+        bookDto.setDescription("Desc");
+        bookDto.setGenre("Classic");
+        bookDto.setPublicationDate(LocalDate.of(1925, 4, 10));
+        bookDto.setAvailability(true);
+        return bookDto;
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("select count(*) from books", Integer.class);
+    }
+
+    // a deleted book is kept as a tombstone, hidden from every lookup, and its ISBN can be added again
+    @Test
+    void whenBookDeleted_thenRowIsKeptButHidden() {
+        BookDto created = bookService.addBook(book("978-0743273565"));
+
+        bookService.deleteBook(created.getId());
+
+        assertEquals(1, rows());
+        assertTrue(bookRepository.findById(created.getId()).isEmpty());
+        assertFalse(bookRepository.existsById(created.getId()));
+        assertTrue(bookRepository.findAll().isEmpty());
+        assertNotNull(jdbcTemplate.queryForObject("select deleted_at from books where id = ?", Instant.class, created.getId()));
+        assertNotEquals(created.getId(), bookService.addBook(book("978-0743273565")).getId());
+        assertThrows(RuntimeException.class, () -> bookService.deleteBook(created.getId()));
+    }
+
+    // compaction purges old tombstones in chunks and keeps live books, recent tombstones and books still out on loan
+    @Test
+    void whenCompacted_thenPurgeOnlyOldTombstonesNotOnLoan() {
+        List<UUID> ids = IntStream.range(0, 5)
+                .mapToObj(i -> bookService.addBook(book("10000000" + i + "X")).getId())
+                .toList();
+        ids.subList(0, 4).forEach(bookService::deleteBook);
+        borrowingRepository.save(borrowing(ids.get(3), null));
+        Borrowing returned = borrowingRepository.save(borrowing(ids.get(2), LocalDate.now()));
+        BookCompactionJob job = new BookCompactionJob(bookRepository, Duration.ofDays(30), 2);
+
+        assertEquals(0, job.compact(Instant.now().minus(Duration.ofDays(30))));
+        assertEquals(5, rows());
+
+        assertEquals(3, job.compact(Instant.now().plusSeconds(1)));
+        assertEquals(2, rows());
+        assertTrue(bookRepository.existsById(ids.get(4)));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from books where id = ?", Integer.class, ids.get(3)));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from books where id = ?", Integer.class, ids.get(2)));
+        assertEquals(ids.get(2), borrowingRepository.findById(returned.getId()).orElseThrow().getBookId());
+    }
+
+    // holds waiting for a book are cancelled when it is deleted instead of waiting for the purge
+    @Test
+    void whenBookDeleted_thenHoldsAreCancelled() {
+        UUID id = bookService.addBook(book("978-0743273565")).getId();
+        holdRepository.save(Hold.builder().bookId(id).userId(UUID.randomUUID()).ticket(0).createdAt(Instant.now()).build());
+
+        bookService.deleteBook(id);
+
+        assertEquals(0, holdRepository.count());
+    }
+
+    private Borrowing borrowing(UUID bookId, LocalDate returnDate) {
+        return Borrowing.builder()
+                .userId(UUID.randomUUID())
+                .bookId(bookId)
+                .borrowDate(LocalDate.now())
+                .dueDate(LocalDate.now().plusDays(1))
+                .returnDate(returnDate)
+                .overdue(false)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.library_user.h2.service;
+
+import com.library_user.helper.Isbn;
+import com.library_user.model.entity.Book;
+import com.library_user.repository.BookRepository;
+import com.library_user.search.BookFacets;
+import com.library_user.search.BookIndexWarmUp;
+import com.library_user.search.BookSearchIndex;
+import com.library_user.search.GenreDictionary;
+import com.library_user.search.IsbnIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookIndexWarmUpH2Test {
+
+    @Autowired
+    private BookIndexWarmUp bookIndexWarmUp;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookFacets bookFacets;
+
+    @Autowired
+    private IsbnIndex isbnIndex;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private GenreDictionary genreDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    private Book book(String title, String isbn) {
+        return Book.builder()
+                .title(title)
+                .author("Warm Author")
+                .isbn(isbn)
+                .description("Desc")
+                .publicationDate(LocalDate.of(1931, 1, 1))
+                .genre("Warm Genre")
+                .availability(true)
+                .build();
+    }
+
+    // books written without events are picked up by one pass that feeds every index
+    @Test
+    void warmUp_loadsBooksIntoEveryIndex() {
+        genreDictionary.intern("Warm Genre");
+        List<Book> saved = bookRepository.saveAll(List.of(book("Zanzibar Chronicle", "978-0743273565"), book("Quokka Atlas", "978-0451524935")));
+
+        bookIndexWarmUp.warmUp();
+
+        assertTrue(bookSearchIndex.isReady());
+        assertEquals(List.of(saved.getFirst().getId()), bookSearchIndex.searchTitles("zanzibar").orElseThrow());
+        assertEquals(2L, bookFacets.snapshot().genres().get("Warm Genre"));
+        assertEquals(saved.get(1).getId(), isbnIndex.find(Isbn.toKey("978-0451524935")).orElseThrow());
+    }
+
+    // rows written before isbn_key existed are keyed after the pass, a row whose key another book holds is left without one
+    @Test
+    void warmUp_backfillsMissingIsbnKeys() {
+        genreDictionary.intern("Warm Genre");
+        List<Book> legacy = bookRepository.saveAll(List.of(book("Legacy Atlas", "978-0451524935"), book("Colliding Legacy", "0-7432-7356-7")));
+        jdbcTemplate.update("update books set isbn_key = null");
+        List<Book> saved = List.of(legacy.get(0), bookRepository.save(book("Holder", "978-0743273565")), legacy.get(1));
+
+        bookIndexWarmUp.warmUp();
+
+        assertTrue(isbnIndex.isReady());
+        assertEquals(Isbn.toKey("978-0451524935"), isbnKey(saved.get(0)));
+        assertEquals(Isbn.toKey("978-0743273565"), isbnKey(saved.get(1)));
+        assertNull(isbnKey(saved.get(2)));
+        assertEquals(saved.get(0).getId(), bookRepository.findByIsbnKey(Isbn.toKey("978-0451524935")).orElseThrow().getId());
+    }
+
+    private Long isbnKey(Book book) {
+        return jdbcTemplate.queryForObject("select isbn_key from books where id = ?", Long.class, book.getId());
+    }
+}
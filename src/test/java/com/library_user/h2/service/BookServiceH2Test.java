@@ -6,6 +6,7 @@ import com.library_user.model.mapper.BookMapper;
 import com.library_user.repository.BookRepository;
 import com.library_user.service.BookService;
 import com.library_user.exceptions.CustomException;
+import com.library_user.search.GenreDictionary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +28,9 @@ import static org.junit.jupiter.api.Assertions.*;
 @Transactional
 class BookServiceH2Test {
 
+    @Autowired
+    private GenreDictionary genreDictionary;
+
     @Autowired
     private BookService bookService;
 
@@ -37,6 +42,7 @@ class BookServiceH2Test {
 
     @BeforeEach
     void setUp() {
+        Stream.of("Classic", "Dystopian").forEach(genreDictionary::intern);
         bookRepository.deleteAll();
 
         BookDto bookDto1 = new BookDto();
@@ -1,6 +1,7 @@
 package com.library_user.h2.service;
 
 import com.library_user.exceptions.CustomException;
+import com.library_user.model.dto.BookDto;
 import com.library_user.model.dto.OverDueReportDto;
 import com.library_user.model.entity.Book;
 import com.library_user.model.entity.Borrowing;
@@ -10,15 +11,20 @@ import com.library_user.helper.ErrorMessages;
 import com.library_user.model.request.BorrowingCreateRequest;
 import com.library_user.model.request.ReturnBookRequest;
 import com.library_user.model.response.BorrowingResponse;
+import com.library_user.model.response.PageResponse;
+import com.library_user.repository.BookCopyRepository;
 import com.library_user.repository.BookRepository;
 import com.library_user.repository.BorrowingRepository;
 import com.library_user.repository.UserRepository;
+import com.library_user.service.BookService;
 import com.library_user.service.BorrowingService;
+import com.library_user.search.GenreDictionary;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -30,7 +36,10 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,6 +48,9 @@ import static org.junit.jupiter.api.Assertions.*;
 @Transactional
 public class BorrowingServiceH2Test {
 
+    @Autowired
+    private GenreDictionary genreDictionary;
+
     @Autowired
     private BorrowingService borrowingService;
 
@@ -51,6 +63,12 @@ public class BorrowingServiceH2Test {
     @Autowired
     private BorrowingRepository borrowingRepository;
 
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
     private User testUser;
     private User anotherUser;
     private Book availableBook;
@@ -60,6 +78,7 @@ public class BorrowingServiceH2Test {
 
     @BeforeEach
     void setUp() {
+        Stream.of("Fiction", "Science", "Mystery", "History", "Technology", "Biography").forEach(genreDictionary::intern);
         SecurityContextHolder.clearContext();
 
         testUser = User.builder()
@@ -315,6 +334,40 @@ public class BorrowingServiceH2Test {
         assertEquals(5, report.getDaysOverdue(), "Days overdue calculation.");
     }
 
+    // Paging through overdue books with a cursor returns them ordered by due date without repeats.
+    @Test
+    void seekOverdueBooks_whenPagingWithCursor_shouldReturnEachOverdueBorrowingOnce() {
+        LocalDate today = LocalDate.now();
+        Borrowing olderOverdue = borrowingRepository.save(Borrowing.builder()
+                .userId(testUser.getId())
+                .bookId(bookForOverdueTest.getId())
+                .borrowDate(today.minusDays(20))
+                .dueDate(today.minusDays(10))
+                .overdue(false)
+                .build());
+        Borrowing newerOverdue = borrowingRepository.save(Borrowing.builder()
+                .userId(anotherUser.getId())
+                .bookId(unavailableBook.getId())
+                .borrowDate(today.minusDays(6))
+                .dueDate(today.minusDays(3))
+                .overdue(false)
+                .build());
+
+        PageResponse<OverDueReportDto> firstPage = borrowingService.seekOverdueBooks(null, 1);
+
+        assertEquals(1, firstPage.content().size());
+        assertEquals(olderOverdue.getBookId(), firstPage.content().getFirst().getBookId());
+        assertTrue(firstPage.hasMore());
+
+        PageResponse<OverDueReportDto> secondPage = borrowingService.seekOverdueBooks(firstPage.nextCursor(), 1);
+
+        assertEquals(1, secondPage.content().size());
+        assertEquals(newerOverdue.getBookId(), secondPage.content().getFirst().getBookId());
+        assertEquals(3, secondPage.content().getFirst().getDaysOverdue());
+        assertFalse(secondPage.hasMore());
+        assertNull(secondPage.nextCursor());
+    }
+
     // successful book return when the borrowing exists and has not been returned.
     @Test
     void returnBook_whenBorrowingExistsAndNotReturned_shouldSucceed() {
@@ -502,25 +555,39 @@ public class BorrowingServiceH2Test {
         assertEquals(HttpStatus.NOT_FOUND, ex.getHttpStatus());
     }
 
-    // changing book availability successfully toggles the availability status.
+    // a book with several copies stays available until its last copy is out and every borrower gets a different copy.
     @Test
-    void chanceBookAvailability_shouldToggleBookAvailability() {
-        boolean initialAvailability = availableBook.isAvailability();
-        borrowingService.chanceBookAvailability(availableBook.getId());
-        Book updatedBook = bookRepository.findById(availableBook.getId()).orElseThrow();
-        assertEquals(!initialAvailability, updatedBook.isAvailability());
+    void borrowBook_whenBookHasSeveralCopies_shouldHandOutDistinctCopies() {
+        BookDto dto = new BookDto();
+        dto.setTitle("Copied Book");
+        dto.setAuthor("Author C");
+        dto.setIsbn("0306406152");
+        dto.setDescription("A book with three copies.");
+        dto.setGenre("Fiction");
+        dto.setPublicationDate(LocalDate.of(2021, 1, 1));
+        dto.setAvailability(true);
+        dto.setCopies(3);
+        UUID bookId = bookService.addBook(dto).getId();
+        assertEquals(3, bookCopyRepository.findAvailableIds(bookId, Limit.unlimited()).size());
+
+        List<BorrowingResponse> borrowings = IntStream.range(0, 3)
+                .mapToObj(i -> borrowingService.borrowBook(new BorrowingCreateRequest(i == 0 ? anotherUser.getId() : testUser.getId(), bookId)))
+                .toList();
+
+        assertEquals(3, borrowings.stream().map(BorrowingResponse::copyId).filter(Objects::nonNull).distinct().count());
+        Book borrowedOut = bookRepository.findById(bookId).orElseThrow();
+        assertFalse(borrowedOut.isAvailability());
+        assertEquals(0, borrowedOut.getAvailableCopies());
+        assertTrue(bookCopyRepository.findAvailableIds(bookId, Limit.unlimited()).isEmpty());
+        CustomException ex = assertThrows(CustomException.class,
+                () -> borrowingService.borrowBook(new BorrowingCreateRequest(testUser.getId(), bookId)));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getHttpStatus());
 
-        borrowingService.chanceBookAvailability(availableBook.getId());
-        updatedBook = bookRepository.findById(availableBook.getId()).orElseThrow();
-        assertEquals(initialAvailability, updatedBook.isAvailability());
-    }
+        borrowingService.returnBook(borrowings.get(1).id(), new ReturnBookRequest(testUser.getId()));
 
-    // changing availability for a non-existent book throws a CustomException.
-    @Test
-    void chanceBookAvailability_whenBookNotFound_shouldThrow() {
-        UUID nonExistentBookId = UUID.randomUUID();
-        CustomException ex = assertThrows(CustomException.class, () -> borrowingService.chanceBookAvailability(nonExistentBookId));
-        assertEquals(ErrorMessages.BOOK_NOT_FOUND_ID, ex.getMessage());
-        assertEquals(HttpStatus.NOT_FOUND, ex.getHttpStatus());
+        Book returned = bookRepository.findById(bookId).orElseThrow();
+        assertTrue(returned.isAvailability());
+        assertEquals(1, returned.getAvailableCopies());
+        assertEquals(List.of(borrowings.get(1).copyId()), bookCopyRepository.findAvailableIds(bookId, Limit.unlimited()));
     }
-}
\ No newline at end of file
+}
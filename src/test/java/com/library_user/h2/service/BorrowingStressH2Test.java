@@ -0,0 +1,182 @@
+package com.library_user.h2.service;
+
+import com.library_user.exceptions.CustomException;
+import com.library_user.model.dto.BookDto;
+import com.library_user.model.entity.Role;
+import com.library_user.model.entity.User;
+import com.library_user.model.request.BorrowingCreateRequest;
+import com.library_user.model.request.ReturnBookRequest;
+import com.library_user.model.response.BorrowingResponse;
+import com.library_user.repository.UserRepository;
+import com.library_user.service.BookService;
+import com.library_user.service.BorrowingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ Runs thousands of simultaneous borrows and returns on virtual threads against H2 in PostgreSQL mode, then checks that
+ no copy is lent twice and that every counter matches the open borrowings. Returns pick any open borrowing,
+ so the same borrowing is regularly returned by two threads at once.
+ Throughput and latency are printed after the run. The load can be raised with
+ mvn test -Dtest=BorrowingStressH2Test -Dstress.operations=20000 [-Dstress.users=200 -Dstress.books=100 -Dstress.copies=3]
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stressdb;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+        "logging.level.org.hibernate.orm.jdbc.bind=WARN"
+})
+@ActiveProfiles("test")
+class BorrowingStressH2Test {
+
+    private static final int OPERATIONS = Integer.getInteger("stress.operations", 2000);
+    private static final int USERS = Integer.getInteger("stress.users", 40);
+    private static final int BOOKS = Integer.getInteger("stress.books", 50);
+    private static final int COPIES = Integer.getInteger("stress.copies", 2);
+
+    @Autowired
+    private BorrowingService borrowingService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private record Borrowed(UUID id, UUID userId) {
+    }
+
+    // concurrent borrows and returns keep one open borrowing per copy and every counter in line with the open borrowings
+    @Test
+    void whenBorrowingAndReturningConcurrently_thenInvariantsHold() throws Exception {
+        List<UUID> userIds = IntStream.range(0, USERS).mapToObj(this::user).toList();
+        List<UUID> bookIds = IntStream.range(0, BOOKS).mapToObj(this::book).toList();
+        List<Borrowed> open = Collections.synchronizedList(new ArrayList<>());
+        Map<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        long[] nanos = new long[OPERATIONS];
+        AtomicLong completed = new AtomicLong();
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < OPERATIONS; i++) {
+                int operation = i;
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long begin = System.nanoTime();
+                    String outcome;
+                    try {
+                        if (open.isEmpty() || random.nextInt(5) < 3) {
+                            BorrowingResponse borrowed = borrowingService.borrowBook(new BorrowingCreateRequest(
+                                    userIds.get(random.nextInt(USERS)), bookIds.get(random.nextInt(BOOKS))));
+                            open.add(new Borrowed(borrowed.id(), borrowed.userId()));
+                            outcome = "borrowed";
+                        } else {
+                            Borrowed borrowed = pick(open, random);
+                            if (borrowed == null) {
+                                outcome = "nothing to return";
+                            } else {
+                                borrowingService.returnBook(borrowed.id(), new ReturnBookRequest(borrowed.userId()));
+                                open.remove(borrowed);
+                                outcome = "returned";
+                            }
+                        }
+                    } catch (CustomException e) {
+                        outcome = "rejected " + e.getHttpStatus().value();
+                    } catch (Throwable e) {
+                        failures.add(e);
+                        outcome = "failed";
+                    }
+                    nanos[operation] = System.nanoTime() - begin;
+                    completed.incrementAndGet();
+                    outcomes.computeIfAbsent(outcome, key -> new AtomicInteger()).incrementAndGet();
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+
+        Arrays.sort(nanos);
+        System.out.printf("Stress: %,d operations in %,d ms (%,.0f ops/s), p50 %,d us, p99 %,d us, outcomes %s%n",
+                completed.get(), elapsed / 1_000_000, completed.get() * 1e9 / elapsed,
+                nanos[nanos.length / 2] / 1000, nanos[(int) (nanos.length * 0.99)] / 1000, outcomes);
+
+        assertTrue(failures.isEmpty(), () -> "unexpected failures: " + failures);
+        assertEquals(OPERATIONS, completed.get());
+        assertTrue(outcomes.getOrDefault("borrowed", new AtomicInteger()).get() > 0);
+        assertInvariants();
+    }
+
+    private void assertInvariants() {
+        assertEquals(List.of(), jdbcTemplate.queryForList(
+                "select copy_id from borrowings where return_date is null and copy_id is not null"
+                        + " group by copy_id having count(*) > 1", UUID.class),
+                "copies lent to more than one patron");
+        assertEquals(List.of(), jdbcTemplate.queryForList(
+                "select u.id from users u where u.borrowed_book_count <>"
+                        + " (select count(*) from borrowings b where b.user_id = u.id and b.return_date is null)", UUID.class),
+                "users whose borrowed book count drifted");
+        assertEquals(List.of(), jdbcTemplate.queryForList(
+                "select c.id from book_copies c where c.available"
+                        + " = (exists (select 1 from borrowings b where b.copy_id = c.id and b.return_date is null))", UUID.class),
+                "copies whose shelf state does not match their borrowings");
+        assertEquals(List.of(), jdbcTemplate.queryForList(
+                "select b.id from books b where b.available_copies <>"
+                        + " (select count(*) from book_copies c where c.book_id = b.id and c.available)"
+                        + " or b.availability <> (b.available_copies > 0)", UUID.class),
+                "books whose counter or availability does not match their copies");
+    }
+
+    private static Borrowed pick(List<Borrowed> open, ThreadLocalRandom random) {
+        synchronized (open) {
+            return open.isEmpty() ? null : open.get(random.nextInt(open.size()));
+        }
+    }
+
+    private UUID user(int i) {
+        return userRepository.save(User.builder()
+                .name("Stress " + i)
+                .email("stress" + i + "@example.com")
+                .password("password")
+                .contact("555-0000")
+                .role(Role.PATRON)
+                .borrowedBookCount(0)
+                .build()).getId();
+    }
+
+    private UUID book(int i) {
+        BookDto bookDto = new BookDto();
+        bookDto.setTitle("Stress " + i);
+        bookDto.setAuthor("Author");
+        bookDto.setIsbn(String.format("%09dX", i));
+        bookDto.setDescription("Desc");
+        bookDto.setGenre("Fiction");
+        bookDto.setPublicationDate(LocalDate.of(2020, 1, 1));
+        bookDto.setAvailability(true);
+        bookDto.setCopies(COPIES);
+        return bookService.addBook(bookDto).getId();
+    }
+}
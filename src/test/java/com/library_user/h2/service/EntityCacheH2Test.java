@@ -0,0 +1,201 @@
+package com.library_user.h2.service;
+
+import com.library_user.config.EntityCacheConfig;
+import com.library_user.helper.Isbn;
+import com.library_user.model.dto.BookDto;
+import com.library_user.model.entity.Book;
+import com.library_user.model.entity.Role;
+import com.library_user.model.entity.User;
+import com.library_user.model.request.BulkAvailabilityRequest;
+import com.library_user.model.response.EntityCacheStats;
+import com.library_user.repository.BookRepository;
+import com.library_user.repository.UserRepository;
+import com.library_user.service.BookService;
+import com.library_user.service.EntityCacheService;
+import com.library_user.service.IdempotencyService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityCacheH2Test {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        userRepository.deleteAllInBatch();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private CacheRegionStatistics region(String name) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics().getDomainDataRegionStatistics(name);
+    }
+
+    private User user(String email) {
+        return userRepository.save(User.builder()
+                .name("Cached Patron")
+                .email(email)
+                .password("secret")
+                .contact("1234567890")
+                .role(Role.PATRON)
+                .borrowedBookCount(0)
+                .build());
+    }
+
+    private BookDto book(String isbn) {
+        BookDto bookDto = new BookDto();
+        bookDto.setTitle("The Great Gatsby");
+        bookDto.setAuthor("F. Scott Fitzgerald");
+        bookDto.setIsbn(isbn);
+        bookDto.setDescription("A story of wealth, love, and the American Dream.");
+        bookDto.setGenre("Classic");
+        bookDto.setPublicationDate(LocalDate.of(1925, 4, 10));
+        bookDto.setAvailability(true);
+        return bookDto;
+    }
+
+    // a user loaded once is served from the cache by id and by email
+    @Test
+    void whenUserLoadedTwice_thenSecondLoadHitsCache() {
+        User saved = user("cached@example.com");
+        long entityHits = region(EntityCacheConfig.USER_REGION).getHitCount();
+        long naturalIdHits = region(EntityCacheConfig.USER_REGION + EntityCacheConfig.NATURAL_ID_SUFFIX).getHitCount();
+
+        userRepository.findById(saved.getId()).orElseThrow();
+        userRepository.findById(saved.getId()).orElseThrow();
+        userRepository.findByEmail("cached@example.com").orElseThrow();
+        userRepository.findByEmail("cached@example.com").orElseThrow();
+
+        assertTrue(region(EntityCacheConfig.USER_REGION).getHitCount() > entityHits);
+        assertTrue(region(EntityCacheConfig.USER_REGION + EntityCacheConfig.NATURAL_ID_SUFFIX).getHitCount() > naturalIdHits);
+        List<EntityCacheStats> stats = entityCacheService.getStatistics();
+        assertEquals(EntityCacheConfig.REGIONS, stats.stream().map(EntityCacheStats::region).toList());
+        assertTrue(stats.stream().anyMatch(region -> region.hitRate() > 0));
+    }
+
+    // changing the email through save moves the natural id, the old email no longer resolves
+    @Test
+    void whenEmailChanged_thenOldEmailIsNotServedFromCache() {
+        User saved = user("old@example.com");
+        userRepository.findByEmail("old@example.com").orElseThrow();
+
+        User loaded = userRepository.findById(saved.getId()).orElseThrow();
+        loaded.setEmail("new@example.com");
+        loaded.setBorrowedBookCount(2);
+        userRepository.save(loaded);
+
+        assertTrue(userRepository.findByEmail("old@example.com").isEmpty());
+        assertEquals(saved.getId(), userRepository.findByEmail("new@example.com").orElseThrow().getId());
+        assertEquals(2, userRepository.findById(saved.getId()).orElseThrow().getBorrowedBookCount());
+    }
+
+    // counting a borrowed book evicts only that user, other cached users and emails stay cached
+    @Test
+    void whenBorrowedBookCounted_thenOnlyThatUserIsEvicted() {
+        User borrower = user("borrower@example.com");
+        User other = user("other@example.com");
+        userRepository.findById(borrower.getId()).orElseThrow();
+        userRepository.findById(other.getId()).orElseThrow();
+        userRepository.findByEmail("other@example.com").orElseThrow();
+
+        assertEquals(1, userRepository.incrementBorrowedBookCount(borrower.getId(), 5));
+
+        long entityHits = region(EntityCacheConfig.USER_REGION).getHitCount();
+        long naturalIdHits = region(EntityCacheConfig.USER_REGION + EntityCacheConfig.NATURAL_ID_SUFFIX).getHitCount();
+        userRepository.findById(other.getId()).orElseThrow();
+        userRepository.findByEmail("other@example.com").orElseThrow();
+        assertTrue(region(EntityCacheConfig.USER_REGION).getHitCount() > entityHits);
+        assertTrue(region(EntityCacheConfig.USER_REGION + EntityCacheConfig.NATURAL_ID_SUFFIX).getHitCount() > naturalIdHits);
+        assertEquals(1, userRepository.findById(borrower.getId()).orElseThrow().getBorrowedBookCount());
+    }
+
+    // storing an idempotency key writes its own table only, the cached users stay cached
+    @Test
+    void whenIdempotencyKeyStored_thenEntityCachesAreKept() {
+        User cached = user("keyed@example.com");
+        userRepository.findById(cached.getId()).orElseThrow();
+
+        assertEquals("done", idempotencyService.execute("cache-key-" + cached.getId(), "test", "request", String.class,
+                () -> "done"));
+
+        long hits = region(EntityCacheConfig.USER_REGION).getHitCount();
+        userRepository.findById(cached.getId()).orElseThrow();
+        assertTrue(region(EntityCacheConfig.USER_REGION).getHitCount() > hits);
+    }
+
+    // taking a copy off the shelf evicts only that book, other cached books stay cached
+    @Test
+    void whenCopyClaimed_thenOnlyThatBookIsEvicted() {
+        BookDto claimed = bookService.addBook(book("978-0743273565"));
+        BookDto other = bookService.addBook(book("978-0451524935"));
+        bookRepository.findById(claimed.getId()).orElseThrow();
+        bookRepository.findById(other.getId()).orElseThrow();
+
+        assertEquals(1, bookRepository.claimCopy(claimed.getId()));
+
+        long hits = region(EntityCacheConfig.BOOK_REGION).getHitCount();
+        bookRepository.findById(other.getId()).orElseThrow();
+        assertTrue(region(EntityCacheConfig.BOOK_REGION).getHitCount() > hits);
+        Book reloaded = bookRepository.findById(claimed.getId()).orElseThrow();
+        assertEquals(0, reloaded.getAvailableCopies());
+        assertFalse(reloaded.isAvailability());
+    }
+
+    // updating a book's isbn through the service moves its isbn key and refreshes the cached entity
+    @Test
+    void whenIsbnChanged_thenCachedLookupsFollowTheNewKey() {
+        BookDto created = bookService.addBook(book("978-0743273565"));
+        long oldKey = Isbn.toKey("978-0743273565");
+        long newKey = Isbn.toKey("978-0451524935");
+        assertTrue(bookRepository.findByIsbnKey(oldKey).isPresent());
+
+        BookDto changed = book("978-0451524935");
+        changed.setTitle("Renamed");
+        bookService.updateBook(created.getId(), changed);
+
+        assertTrue(bookRepository.findByIsbnKey(oldKey).isEmpty());
+        assertEquals(created.getId(), bookRepository.findByIsbnKey(newKey).orElseThrow().getId());
+        assertEquals("Renamed", bookService.getBookById(created.getId()).getTitle());
+    }
+
+    // bulk availability updates bypass the entity but still evict it from the cache
+    @Test
+    void whenAvailabilityChangedInBulk_thenCachedBookIsNotStale() {
+        BookDto created = bookService.addBook(book("978-0743273565"));
+        Book cached = bookRepository.findById(created.getId()).orElseThrow();
+        assertTrue(cached.isAvailability());
+
+        bookService.updateBooksAvailability(List.of(new BulkAvailabilityRequest.Change(created.getId(), false)));
+
+        assertFalse(bookRepository.findById(created.getId()).orElseThrow().isAvailability());
+    }
+}
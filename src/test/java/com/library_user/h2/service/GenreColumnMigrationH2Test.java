@@ -0,0 +1,62 @@
+package com.library_user.h2.service;
+
+import com.library_user.config.GenreColumnMigration;
+import com.library_user.repository.BookRepository;
+import com.library_user.search.GenreDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class GenreColumnMigrationH2Test {
+
+    @Autowired
+    private GenreColumnMigration genreColumnMigration;
+
+    @Autowired
+    private GenreDictionary genreDictionary;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    // books of the old schema get the id of their genre, and the varchar column is dropped
+    @Test
+    void migrate_whenOldGenreColumnExists_backfillsGenreIdAndDropsColumn() {
+        Integer fiction = genreDictionary.intern("Fiction");
+        jdbcTemplate.execute("alter table books add column genre varchar(255)");
+        jdbcTemplate.execute("alter table books alter column genre_id drop not null");
+        UUID known = insertLegacyBook("fiction ", "1000000001");
+        UUID added = insertLegacyBook("Epic Poetry", "1000000002");
+
+        assertEquals(2, genreColumnMigration.migrate());
+
+        assertEquals(fiction, jdbcTemplate.queryForObject("select genre_id from books where id = ?", Integer.class, known));
+        assertEquals("Epic Poetry", bookRepository.findById(added).orElseThrow().getGenre());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from information_schema.columns"
+                + " where lower(table_name) = 'books' and lower(column_name) = 'genre'", Integer.class));
+        assertEquals(0, genreColumnMigration.migrate());
+    }
+
+    private UUID insertLegacyBook(String genre, String isbn) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into books (id, title, author, isbn, description, publication_date, availability, genre)"
+                + " values (?, 'Legacy', 'Author', ?, 'Desc', date '2020-01-01', true, ?)", id, isbn, genre);
+        return id;
+    }
+}
@@ -0,0 +1,133 @@
+package com.library_user.h2.service;
+
+import com.library_user.model.dto.BookDto;
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.request.BookSearchCriteria;
+import com.library_user.model.response.PageResponse;
+import com.library_user.model.response.SuggestionResponse;
+import com.library_user.repository.BookRepository;
+import com.library_user.repository.GenreRepository;
+import com.library_user.service.BookService;
+import com.library_user.service.ReactiveBookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReactiveBookServiceH2Test {
+
+    @Autowired
+    private ReactiveBookService reactiveBookService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        bookService.addBook(book("The Great Gatsby", "F. Scott Fitzgerald", "Classic", LocalDate.of(1925, 4, 10), true));
+        bookService.addBook(book("Tender Is the Night", "F. Scott Fitzgerald", "Classic", LocalDate.of(1934, 4, 12), false));
+        bookService.addBook(book("The Beautiful and Damned", "F. Scott Fitzgerald", "Classic", LocalDate.of(1922, 3, 4), true));
+        bookService.addBook(book("1984", "George Orwell", "Dystopian", LocalDate.of(1949, 6, 8), true));
+    }
+
+    private BookDto book(String title, String author, String genre, LocalDate publicationDate, boolean availability) {
+        BookDto bookDto = new BookDto();
+        bookDto.setTitle(title);
+        bookDto.setAuthor(author);
+        bookDto.setIsbn("978-" + Math.abs(title.hashCode()));
+        bookDto.setDescription("Description of " + title);
+        bookDto.setGenre(genre);
+        bookDto.setPublicationDate(publicationDate);
+        bookDto.setAvailability(availability);
+        return bookDto;
+    }
+
+    // every given criterion is applied in one query and results are ordered by title
+    @Test
+    void whenSearchWithCombinedCriteria_thenReturnBooksMatchingAll() {
+        BookSearchCriteria criteria = new BookSearchCriteria(null, "fitzgerald", "Classic", true,
+                LocalDate.of(1920, 1, 1), LocalDate.of(1930, 1, 1));
+
+        PageResponse<BookSummaryDto> page = reactiveBookService.searchBooks(criteria, null, 20).block();
+
+        assertNotNull(page);
+        assertEquals(2, page.content().size());
+        assertEquals("The Beautiful and Damned", page.content().get(0).title());
+        assertEquals("The Great Gatsby", page.content().get(1).title());
+        assertFalse(page.hasMore());
+        assertNotNull(page.facets());
+        assertTrue(page.facets().genres().get("Classic") >= 3);
+    }
+
+    // the cursor of the first page leads to the remaining matches
+    @Test
+    void whenSearchWithCursor_thenReturnFollowingPage() {
+        BookSearchCriteria criteria = new BookSearchCriteria("the", null, "Classic", null, null, null);
+
+        PageResponse<BookSummaryDto> first = reactiveBookService.searchBooks(criteria, null, 2).block();
+        assertNotNull(first);
+        assertTrue(first.hasMore());
+
+        PageResponse<BookSummaryDto> second = reactiveBookService.searchBooks(criteria, first.nextCursor(), 2).block();
+        assertNotNull(second);
+        assertEquals(1, second.content().size());
+        assertEquals("The Great Gatsby", second.content().get(0).title());
+        assertFalse(second.hasMore());
+    }
+
+    // books added through the book service show up in suggestions right away
+    @Test
+    void whenSuggestPrefix_thenReturnTitlesAndAuthorsAddedThroughService() {
+        SuggestionResponse suggestions = reactiveBookService.suggest("f. sc", 5).block();
+
+        assertNotNull(suggestions);
+        assertTrue(suggestions.titles().isEmpty());
+        assertEquals("F. Scott Fitzgerald", suggestions.authors().getFirst().text());
+    }
+
+    // genre names differing only in case share one dictionary entry, and keywords match against the dictionary
+    @Test
+    void whenSearchByGenreKeyword_thenMatchDictionaryCaseInsensitively() {
+        bookService.addBook(book("The Last Tycoon", "F. Scott Fitzgerald", "  CLASSIC ", LocalDate.of(1941, 1, 1), true));
+
+        PageResponse<BookSummaryDto> page = reactiveBookService.searchBooksByGenre("lass", PageRequest.of(0, 10)).block();
+
+        assertNotNull(page);
+        assertEquals(4, page.content().size());
+        assertTrue(page.content().stream().allMatch(book -> book.genre().equals("Classic")));
+        assertEquals(1, genreRepository.findAll().stream().filter(genre -> genre.getCode().equals("classic")).count());
+    }
+
+    // list queries served by the database return summary rows with every column except the description
+    @Test
+    void whenSearchThroughDatabase_thenReturnSummaryColumns() {
+        PageResponse<BookSummaryDto> slice = reactiveBookService.searchBooksByAvailability(false, PageRequest.of(0, 10)).block();
+        PageResponse<BookSummaryDto> window = reactiveBookService.seekBooksByGenre("Dystopian", null, 10).block();
+
+        assertNotNull(slice);
+        assertEquals(1, slice.content().size());
+        BookSummaryDto tender = slice.content().getFirst();
+        assertEquals("Tender Is the Night", tender.title());
+        assertEquals("F. Scott Fitzgerald", tender.author());
+        assertEquals(LocalDate.of(1934, 4, 12), tender.publicationDate());
+        assertFalse(tender.availability());
+        assertNotNull(window);
+        assertEquals("1984", window.content().getFirst().title());
+        assertEquals(bookRepository.findById(window.content().getFirst().id()).orElseThrow().getIsbn(), window.content().getFirst().isbn());
+    }
+}
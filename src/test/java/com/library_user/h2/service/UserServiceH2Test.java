@@ -6,6 +6,7 @@ import com.library_user.model.entity.User;
 import com.library_user.helper.ErrorMessages;
 import com.library_user.model.request.RegisterRequest;
 import com.library_user.model.request.UpdateUserRequest;
+import com.library_user.model.response.PageResponse;
 import com.library_user.model.response.UserResponse;
 import com.library_user.repository.UserRepository;
 import com.library_user.security.JwtUtil;
@@ -173,6 +174,32 @@ public class UserServiceH2Test {
         assertTrue(users.stream().anyMatch(u -> u.email().equals(testLibrarian.getEmail())));
     }
 
+    // Paging through users with a cursor returns every user once, ordered by name
+    @Test
+    void seekUsers_whenPagingWithCursor_shouldReturnEachUserOnceInNameOrder() {
+        PageResponse<UserResponse> firstPage = userService.seekUsers(null, 1);
+
+        assertEquals(1, firstPage.content().size());
+        assertEquals(testLibrarian.getEmail(), firstPage.content().getFirst().email());
+        assertTrue(firstPage.hasMore());
+        assertNotNull(firstPage.nextCursor());
+
+        PageResponse<UserResponse> secondPage = userService.seekUsers(firstPage.nextCursor(), 1);
+
+        assertEquals(1, secondPage.content().size());
+        assertEquals(testPatron.getEmail(), secondPage.content().getFirst().email());
+        assertFalse(secondPage.hasMore());
+        assertNull(secondPage.nextCursor());
+    }
+
+    // A cursor that was not issued by the server is rejected
+    @Test
+    void seekUsers_whenCursorIsMalformed_shouldThrowCustomException() {
+        CustomException exception = assertThrows(CustomException.class, () -> userService.seekUsers("not-a-cursor", 10));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getHttpStatus());
+        assertEquals(ErrorMessages.INVALID_CURSOR, exception.getMessage());
+    }
+
     // Updating a valid patron user with valid data
     @Test
     void updateUser_whenUserExistsAndDataIsValidAndUserIsNotLibrarian_shouldUpdateAndReturnUserResponse() {
@@ -1,6 +1,9 @@
 package com.library_user.junit.controller;
 
 import com.library_user.model.dto.BookDto;
+import com.library_user.model.dto.BookVersion;
+import com.library_user.service.BookExportService;
+import com.library_user.service.BookImportService;
 import com.library_user.service.BookService;
 import com.library_user.controller.BookController;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,10 +20,12 @@ import org.springframework.http.ResponseEntity;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +34,12 @@ class BookControllerJunitTest {
     @Mock
     private BookService bookService;
 
+    @Mock
+    private BookImportService bookImportService;
+
+    @Mock
+    private BookExportService bookExportService;
+
     @InjectMocks
     private BookController bookController;
 
@@ -78,14 +89,14 @@ class BookControllerJunitTest {
                 .genre("Updated Genre")
                 .availability(false)
                 .build();
-        when(bookService.updateBook(eq(bookId), any(BookDto.class))).thenReturn(updatedDto);
+        when(bookService.updateBook(eq(bookId), any(BookDto.class), isNull())).thenReturn(updatedDto);
 
-        ResponseEntity<BookDto> response = bookController.updateBook(bookId, updatedDto);
+        ResponseEntity<BookDto> response = bookController.updateBook(bookId, updatedDto, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getTitle()).isEqualTo("Updated Title");
-        verify(bookService).updateBook(eq(bookId), any(BookDto.class));
+        verify(bookService).updateBook(eq(bookId), any(BookDto.class), isNull());
     }
 
     // Test deleting a book and ensuring no content response is returned
@@ -104,7 +115,7 @@ class BookControllerJunitTest {
     void whenGetBookById_thenReturnBook() {
         when(bookService.getBookById(bookId)).thenReturn(testBookDto);
 
-        ResponseEntity<BookDto> response = bookController.getBookById(bookId);
+        ResponseEntity<BookDto> response = bookController.getBookById(bookId, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
@@ -112,12 +123,25 @@ class BookControllerJunitTest {
         verify(bookService).getBookById(bookId);
     }
 
+    // Test answering a conditional GET for an unchanged book without loading it
+    @Test
+    void whenGetBookByIdWithCurrentETag_thenReturnNotModified() {
+        when(bookService.findBookVersion(bookId)).thenReturn(Optional.of(new BookVersion(bookId, 3L)));
+
+        ResponseEntity<BookDto> response = bookController.getBookById(bookId, "\"" + bookId + "-2\", W/\"" + bookId + "-3\"");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + bookId + "-3\"");
+        assertThat(response.getBody()).isNull();
+        verify(bookService, never()).getBookById(any());
+    }
+
     // Test retrieving a book by ISBN and ensuring the correct book is returned
     @Test
     void whenGetBookByIsbn_thenReturnBook() {
         when(bookService.getBookByIsbn(testIsbn)).thenReturn(testBookDto);
 
-        ResponseEntity<BookDto> response = bookController.getBookByIsbn(testIsbn);
+        ResponseEntity<BookDto> response = bookController.getBookByIsbn(testIsbn, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
@@ -6,6 +6,7 @@ import com.library_user.model.dto.OverDueReportDto;
 import com.library_user.model.request.BorrowingCreateRequest;
 import com.library_user.model.request.ReturnBookRequest;
 import com.library_user.model.response.BorrowingResponse;
+import com.library_user.service.IdempotencyService;
 import com.library_user.service.Impl.BorrowingServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,10 +23,12 @@ import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +37,9 @@ class BorrowingControllerJunitTest {
     @Mock
     private BorrowingServiceImpl borrowingService;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
     @InjectMocks
     private BorrowingController borrowingController;
 
@@ -59,11 +65,15 @@ class BorrowingControllerJunitTest {
                 borrowingId,
                 userId,
                 bookId,
+                null,
                 LocalDate.now(),
                 LocalDate.now().plusDays(1),
                 null,
                 false
         );
+
+        lenient().when(idempotencyService.execute(any(), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
     }
 
     // Test the borrowing of a book
@@ -72,7 +82,7 @@ class BorrowingControllerJunitTest {
         when(borrowingService.borrowBook(any(BorrowingCreateRequest.class)))
                 .thenReturn(borrowingResponse);
 
-        ResponseEntity<BorrowingResponse> response = borrowingController.borrowBook(borrowRequest);
+        ResponseEntity<BorrowingResponse> response = borrowingController.borrowBook(null, borrowRequest);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
@@ -86,7 +96,7 @@ class BorrowingControllerJunitTest {
         when(borrowingService.returnBook(eq(borrowingId), any(ReturnBookRequest.class)))
                 .thenReturn(borrowingResponse);
 
-        ResponseEntity<BorrowingResponse> response = borrowingController.returnBook(borrowingId, returnRequest);
+        ResponseEntity<BorrowingResponse> response = borrowingController.returnBook(null, borrowingId, returnRequest);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
@@ -145,7 +155,7 @@ class BorrowingControllerJunitTest {
         when(borrowingService.borrowBook(any(BorrowingCreateRequest.class)))
                 .thenThrow(new CustomException("Book is not available", HttpStatus.BAD_REQUEST));
 
-        assertThatThrownBy(() -> borrowingController.borrowBook(borrowRequest))
+        assertThatThrownBy(() -> borrowingController.borrowBook(null, borrowRequest))
                 .isInstanceOf(CustomException.class)
                 .hasMessage("Book is not available");
     }
@@ -156,7 +166,7 @@ class BorrowingControllerJunitTest {
         when(borrowingService.returnBook(eq(borrowingId), any(ReturnBookRequest.class)))
                 .thenThrow(new CustomException("Book already returned", HttpStatus.CONFLICT));
 
-        assertThatThrownBy(() -> borrowingController.returnBook(borrowingId, returnRequest))
+        assertThatThrownBy(() -> borrowingController.returnBook(null, borrowingId, returnRequest))
                 .isInstanceOf(CustomException.class)
                 .hasMessage("Book already returned");
     }
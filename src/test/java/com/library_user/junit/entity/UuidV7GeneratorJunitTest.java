@@ -0,0 +1,34 @@
+package com.library_user.junit.entity;
+
+import com.library_user.model.entity.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorJunitTest {
+
+    // Generated ids carry version 7, the RFC variant and the current Unix time in milliseconds
+    @Test
+    void whenNext_thenVersion7WithCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isBetween(before, after + 1);
+    }
+
+    // Ids generated in a tight loop keep increasing, also in the unsigned byte order databases use
+    @Test
+    void whenGeneratedInSequence_thenStrictlyIncreasing() {
+        UUID previous = UuidV7Generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7Generator.next();
+            assertThat(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits())).isPositive();
+            previous = next;
+        }
+    }
+}
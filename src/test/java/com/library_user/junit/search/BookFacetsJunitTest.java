@@ -0,0 +1,101 @@
+package com.library_user.junit.search;
+
+import com.library_user.event.BookAvailabilityChangedEvent;
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
+import com.library_user.model.entity.Book;
+import com.library_user.model.response.FacetCounts;
+import com.library_user.search.BookFacets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookFacetsJunitTest {
+
+    private final BookFacets bookFacets = new BookFacets();
+
+    private Book gatsby;
+    private Book orwell;
+
+    @BeforeEach
+    void setUp() {
+        gatsby = book("Classic", LocalDate.of(1925, 4, 10), true);
+        orwell = book("Dystopian", LocalDate.of(1949, 6, 8), false);
+    }
+
+    private Book book(String genre, LocalDate publicationDate, boolean availability) {
+        return Book.builder().id(UUID.randomUUID()).genre(genre).publicationDate(publicationDate).availability(availability).build();
+    }
+
+    private void seed(Book... books) {
+        List.of(books).forEach(bookFacets::load);
+        bookFacets.loaded();
+    }
+
+    // Counts are not reported before they have been seeded
+    @Test
+    void whenNotSeeded_thenSnapshotIsNull() {
+        assertThat(bookFacets.snapshot()).isNull();
+    }
+
+    // Seeding counts every book once per facet
+    @Test
+    void whenSeeded_thenCountEveryFacet() {
+        seed(gatsby, orwell);
+
+        FacetCounts facets = bookFacets.snapshot();
+
+        assertThat(facets.genres()).isEqualTo(Map.of("Classic", 1L, "Dystopian", 1L));
+        assertThat(facets.availability()).isEqualTo(Map.of(true, 1L, false, 1L));
+        assertThat(facets.publicationYears()).containsExactly(Map.entry(1925, 1L), Map.entry(1949, 1L));
+    }
+
+    // A saved book moves from its old facet values to the new ones, and repeated events are not double counted
+    @Test
+    void whenBookSaved_thenCountsMoveToNewValues() {
+        seed(gatsby, orwell);
+
+        gatsby.setAvailability(false);
+        gatsby.setGenre("Dystopian");
+        bookFacets.onBookSaved(new BookSavedEvent(gatsby));
+        bookFacets.onBookSaved(new BookSavedEvent(gatsby));
+
+        FacetCounts facets = bookFacets.snapshot();
+        assertThat(facets.genres()).isEqualTo(Map.of("Dystopian", 2L));
+        assertThat(facets.availability()).isEqualTo(Map.of(false, 2L));
+    }
+
+    // An availability change moves only the availability count of a known book
+    @Test
+    void whenAvailabilityChanged_thenOnlyAvailabilityCountMoves() {
+        seed(gatsby, orwell);
+
+        bookFacets.onBookAvailabilityChanged(new BookAvailabilityChangedEvent(gatsby.getId(), false));
+        bookFacets.onBookAvailabilityChanged(new BookAvailabilityChangedEvent(gatsby.getId(), false));
+        bookFacets.onBookAvailabilityChanged(new BookAvailabilityChangedEvent(UUID.randomUUID(), true));
+
+        FacetCounts facets = bookFacets.snapshot();
+        assertThat(facets.genres()).isEqualTo(Map.of("Classic", 1L, "Dystopian", 1L));
+        assertThat(facets.availability()).isEqualTo(Map.of(false, 2L));
+    }
+
+    // Deleted books are no longer counted and empty values disappear
+    @Test
+    void whenBookDeleted_thenItIsNoLongerCounted() {
+        seed(gatsby, orwell);
+
+        bookFacets.onBookDeleted(new BookDeletedEvent(orwell.getId()));
+        bookFacets.onBookSaved(new BookSavedEvent(book("Classic", LocalDate.of(1925, 1, 1), true)));
+
+        FacetCounts facets = bookFacets.snapshot();
+        assertThat(facets.genres()).isEqualTo(Map.of("Classic", 2L));
+        assertThat(facets.availability()).isEqualTo(Map.of(true, 2L));
+        assertThat(facets.publicationYears()).isEqualTo(Map.of(1925, 2L));
+    }
+}
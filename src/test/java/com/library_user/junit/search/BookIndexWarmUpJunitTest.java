@@ -0,0 +1,100 @@
+package com.library_user.junit.search;
+
+import com.library_user.event.BookAvailabilityChangedEvent;
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.helper.Isbn;
+import com.library_user.model.entity.Book;
+import com.library_user.repository.BookRepository;
+import com.library_user.search.BookFacets;
+import com.library_user.search.BookIndexWarmUp;
+import com.library_user.search.BookSearchIndex;
+import com.library_user.search.IsbnIndex;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookIndexWarmUpJunitTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final BookSearchIndex bookSearchIndex = new BookSearchIndex();
+    private final BookFacets bookFacets = new BookFacets();
+    private IsbnIndex isbnIndex;
+    private BookIndexWarmUp bookIndexWarmUp;
+
+    private Book gatsby;
+    private Book orwell;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        isbnIndex = new IsbnIndex(bookRepository);
+        bookIndexWarmUp = new BookIndexWarmUp(bookRepository, entityManager, bookSearchIndex, bookFacets, isbnIndex,
+                transactionManager);
+        gatsby = book("The Great Gatsby", "978-0743273565", true);
+        orwell = book("Nineteen Eighty-Four", "978-0451524935", true);
+    }
+
+    private Book book(String title, String isbn, boolean availability) {
+        return Book.builder().id(UUID.randomUUID()).title(title).author("Author").isbn(isbn).genre("Classic")
+                .availability(availability).build();
+    }
+
+    // A book borrowed while the pass runs is skipped by the pass and read again afterwards, so it is still indexed
+    @Test
+    void whenBookBorrowedDuringPass_thenReloadedAfterCursorCloses() {
+        Book borrowed = book(orwell.getTitle(), orwell.getIsbn(), false);
+        borrowed.setId(orwell.getId());
+        when(bookRepository.streamAllByOrderById()).thenReturn(Stream.of(gatsby, orwell).peek(book -> {
+            if (book == gatsby) {
+                bookIndexWarmUp.onBookAvailabilityChanged(new BookAvailabilityChangedEvent(orwell.getId(), false));
+            }
+        }));
+        when(bookRepository.findAllById(List.of(orwell.getId()))).thenReturn(List.of(borrowed));
+
+        bookIndexWarmUp.warmUp();
+
+        assertThat(bookSearchIndex.searchTitles("eighty")).contains(List.of(orwell.getId()));
+        assertThat(isbnIndex.find(Isbn.toKey(orwell.getIsbn()))).contains(orwell.getId());
+        assertThat(bookFacets.snapshot().availability()).isEqualTo(Map.of(true, 1L, false, 1L));
+    }
+
+    // A book deleted while the pass runs is not found again and stays out of the indexes
+    @Test
+    void whenBookDeletedDuringPass_thenLeftOut() {
+        when(bookRepository.streamAllByOrderById()).thenReturn(Stream.of(gatsby, orwell).peek(book -> {
+            if (book == gatsby) {
+                bookIndexWarmUp.onBookDeleted(new BookDeletedEvent(orwell.getId()));
+            }
+        }));
+        when(bookRepository.findAllById(List.of(orwell.getId()))).thenReturn(List.of());
+
+        bookIndexWarmUp.warmUp();
+
+        assertThat(bookSearchIndex.searchTitles("eighty")).contains(List.of());
+        assertThat(isbnIndex.find(Isbn.toKey(orwell.getIsbn()))).isEmpty();
+        assertThat(bookFacets.snapshot().availability()).isEqualTo(Map.of(true, 1L));
+    }
+}
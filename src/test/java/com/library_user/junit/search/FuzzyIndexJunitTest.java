@@ -0,0 +1,79 @@
+package com.library_user.junit.search;
+
+import com.library_user.search.BkTree;
+import com.library_user.search.FuzzyIndex;
+import com.library_user.search.FuzzyIndex.Hit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FuzzyIndexJunitTest {
+
+    private FuzzyIndex index;
+    private UUID orwell;
+    private UUID eliot;
+    private UUID huxley;
+
+    @BeforeEach
+    void setUp() {
+        index = new FuzzyIndex();
+        orwell = UUID.randomUUID();
+        eliot = UUID.randomUUID();
+        huxley = UUID.randomUUID();
+
+        index.put(orwell, "George Orwell");
+        index.put(eliot, "George Eliot");
+        index.put(huxley, "Aldous Huxley");
+    }
+
+    // Levenshtein distance counts insertions, deletions and substitutions, and stops early past the limit
+    @Test
+    void whenDistanceComputed_thenCountEdits() {
+        assertThat(BkTree.distance("orwell", "orwel", 2)).isEqualTo(1);
+        assertThat(BkTree.distance("eliot", "elliott", 5)).isEqualTo(2);
+        assertThat(BkTree.distance("george", "aldous", 2)).isEqualTo(3);
+    }
+
+    // The BK-tree only returns terms within the requested distance
+    @Test
+    void whenBkTreeSearched_thenReturnTermsWithinDistance() {
+        BkTree tree = new BkTree();
+        tree.add("orwell");
+        tree.add("george");
+        tree.add("eliot");
+        tree.add("orwell");
+
+        assertThat(tree.size()).isEqualTo(3);
+        assertThat(tree.search("orwel", 1)).containsExactly(new BkTree.Match("orwell", 1));
+        assertThat(tree.search("xyz", 1)).isEmpty();
+    }
+
+    // Misspelled words still find the document, with the total distance as rank
+    @Test
+    void whenQueryHasTypos_thenReturnClosestDocuments() {
+        assertThat(index.search("gorge orwel")).containsExactly(new Hit(orwell, 2));
+        assertThat(index.search("huxly")).containsExactly(new Hit(huxley, 1));
+        assertThat(index.search("george")).containsExactlyInAnyOrder(new Hit(orwell, 0), new Hit(eliot, 0));
+    }
+
+    // Every query word must match, and words with no close term end the search
+    @Test
+    void whenOneWordHasNoMatch_thenReturnNothing() {
+        assertThat(index.search("george huxley")).isEmpty();
+        assertThat(index.search("tolkien")).isEmpty();
+    }
+
+    // Removed or renamed documents no longer match their old words
+    @Test
+    void whenDocumentRemovedOrUpdated_thenOldWordsDoNotMatch() {
+        index.remove(huxley);
+        index.put(eliot, "Mary Ann Evans");
+
+        assertThat(index.search("huxley")).isEmpty();
+        assertThat(index.search("eliot")).isEmpty();
+        assertThat(index.search("evens")).containsExactly(new Hit(eliot, 1));
+    }
+}
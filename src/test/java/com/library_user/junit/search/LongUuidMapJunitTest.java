@@ -0,0 +1,82 @@
+package com.library_user.junit.search;
+
+import com.library_user.helper.Isbn;
+import com.library_user.search.LongUuidMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongUuidMapJunitTest {
+
+    // Stored values are returned by key and replaced on a second put
+    @Test
+    void whenPutAndGet_thenReturnLatestValue() {
+        LongUuidMap map = new LongUuidMap();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        map.put(9780743273565L, first);
+        assertThat(map.get(9780743273565L)).isEqualTo(first);
+
+        map.put(9780743273565L, second);
+        assertThat(map.get(9780743273565L)).isEqualTo(second);
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.get(9780451524935L)).isNull();
+    }
+
+    // The map grows and stays consistent with a HashMap through random puts and removes
+    @Test
+    void whenManyPutsAndRemoves_thenMatchHashMap() {
+        LongUuidMap map = new LongUuidMap();
+        Map<Long, UUID> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                UUID value = UUID.randomUUID();
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+    }
+
+    // Key 0 marks empty slots and cannot be stored
+    @Test
+    void whenPutZeroKey_thenThrowException() {
+        assertThatThrownBy(() -> new LongUuidMap().put(Isbn.INVALID, UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ISBN-10 and ISBN-13 forms of the same book normalize to the same key
+    @Test
+    void whenIsbn10OrIsbn13_thenSameKey() {
+        assertThat(Isbn.toKey("0-7432-7356-7")).isEqualTo(9780743273565L);
+        assertThat(Isbn.toKey("978-0743273565")).isEqualTo(9780743273565L);
+        assertThat(Isbn.toKey("978 0 7432 7356 5")).isEqualTo(9780743273565L);
+        assertThat(Isbn.toKey("080442957X")).isEqualTo(9780804429573L);
+    }
+
+    // Wrong check digits, lengths and prefixes are not valid ISBNs
+    @Test
+    void whenIsbnInvalid_thenInvalidKey() {
+        assertThat(Isbn.toKey("978-0743273566")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("1234567890")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("754-0060853584")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("b2isbn")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey(null)).isEqualTo(Isbn.INVALID);
+    }
+}
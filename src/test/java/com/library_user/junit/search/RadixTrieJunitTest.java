@@ -0,0 +1,71 @@
+package com.library_user.junit.search;
+
+import com.library_user.search.RadixTrie;
+import com.library_user.search.RadixTrie.Suggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RadixTrieJunitTest {
+
+    private RadixTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new RadixTrie(2);
+        trie.adjust("George Orwell", 3);
+        trie.adjust("George Eliot", 1);
+        trie.adjust("Georges Simenon", 2);
+        trie.adjust("Gabriel García Márquez", 1);
+    }
+
+    // Prefixes are matched case-insensitively and the heaviest keys come first
+    @Test
+    void whenSuggestPrefix_thenReturnTopKeysByWeight() {
+        assertThat(trie.suggest("GEO", 10)).containsExactly(
+                new Suggestion("George Orwell", 3),
+                new Suggestion("Georges Simenon", 2));
+        assertThat(trie.suggest("g", 1)).containsExactly(new Suggestion("George Orwell", 3));
+    }
+
+    // A prefix ending in the middle of a compressed edge still finds the keys below it
+    @Test
+    void whenPrefixEndsInsideEdge_thenReturnKeysBelowIt() {
+        assertThat(trie.suggest("gab", 10)).containsExactly(new Suggestion("Gabriel García Márquez", 1));
+        assertThat(trie.suggest("george e", 10)).containsExactly(new Suggestion("George Eliot", 1));
+        assertThat(trie.suggest("gabe", 10)).isEmpty();
+    }
+
+    // Raising a weight moves a key into the top-k of every prefix above it
+    @Test
+    void whenWeightIncreased_thenRankingIsUpdated() {
+        trie.adjust("George Eliot", 4);
+
+        assertThat(trie.suggest("george", 10)).containsExactly(
+                new Suggestion("George Eliot", 5),
+                new Suggestion("George Orwell", 3));
+    }
+
+    // Keys whose weight drops to zero are removed and the next best key takes their place
+    @Test
+    void whenWeightDropsToZero_thenKeyIsRemoved() {
+        trie.adjust("george orwell", -3);
+
+        assertThat(trie.size()).isEqualTo(3);
+        assertThat(trie.suggest("george", 10)).containsExactly(
+                new Suggestion("Georges Simenon", 2),
+                new Suggestion("George Eliot", 1));
+        assertThat(trie.suggest("george o", 10)).isEmpty();
+    }
+
+    // Decrementing a key that was never added leaves the trie untouched
+    @Test
+    void whenUnknownKeyDecremented_thenNothingChanges() {
+        trie.adjust("Geo", -1);
+        trie.adjust("Virginia Woolf", -1);
+
+        assertThat(trie.size()).isEqualTo(4);
+        assertThat(trie.suggest("geo", 10)).hasSize(2);
+    }
+}
@@ -0,0 +1,120 @@
+package com.library_user.junit.search;
+
+import com.library_user.event.BookAvailabilityChangedEvent;
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
+import com.library_user.model.dto.BookSummaryDto;
+import com.library_user.model.entity.Book;
+import com.library_user.model.response.PageResponse;
+import com.library_user.model.response.SearchCacheStats;
+import com.library_user.search.SearchResultCache;
+import com.library_user.search.SearchResultCache.Key;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheJunitTest {
+
+    private static final Key GATSBY_QUERY = Key.of("title", "gatsby");
+    private static final Predicate<Book> GATSBY_MATCH = book -> book.getTitle().toLowerCase().contains("gatsby");
+
+    private SearchResultCache cache;
+    private AtomicInteger loads;
+    private UUID gatsbyId;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SearchResultCache();
+        loads = new AtomicInteger();
+        gatsbyId = UUID.randomUUID();
+    }
+
+    private Mono<PageResponse<BookSummaryDto>> load() {
+        loads.incrementAndGet();
+        BookSummaryDto gatsby = new BookSummaryDto(gatsbyId, "The Great Gatsby", null, null, null, null, true);
+        return Mono.just(new PageResponse<>(List.of(gatsby), false, null));
+    }
+
+    private void search() {
+        cache.get(GATSBY_QUERY, GATSBY_MATCH, this::load).block();
+    }
+
+    private Book book(UUID id, String title) {
+        return Book.builder().id(id).title(title).build();
+    }
+
+    // Repeated queries are served from the cache and counted as hits
+    @Test
+    void whenSameQueryRepeated_thenLoadOnce() {
+        search();
+        search();
+
+        SearchCacheStats stats = cache.stats();
+        assertThat(loads).hasValue(1);
+        assertThat(stats.hitCount()).isEqualTo(1);
+        assertThat(stats.missCount()).isEqualTo(1);
+    }
+
+    // A book that now matches the cached query invalidates it, an unrelated book does not
+    @Test
+    void whenSavedBookMatchesQuery_thenInvalidateOnlyThatQuery() {
+        search();
+
+        cache.onBookSaved(new BookSavedEvent(book(UUID.randomUUID(), "Nineteen Eighty-Four")));
+        search();
+        assertThat(loads).hasValue(1);
+
+        cache.onBookSaved(new BookSavedEvent(book(UUID.randomUUID(), "Gatsby Revisited")));
+        search();
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().invalidationCount()).isEqualTo(1);
+    }
+
+    // A cached book that no longer matches, or is deleted, invalidates the pages holding it
+    @Test
+    void whenCachedBookChangesOrIsDeleted_thenInvalidatePagesContainingIt() {
+        search();
+        cache.onBookSaved(new BookSavedEvent(book(gatsbyId, "Tender Is the Night")));
+        search();
+        cache.onBookDeleted(new BookDeletedEvent(gatsbyId));
+        search();
+
+        assertThat(loads).hasValue(3);
+    }
+
+    // An availability change evicts pages holding the book and pages filtering on availability, but not other pages
+    @Test
+    void whenAvailabilityChanges_thenInvalidateContainingAndAvailabilityPages() {
+        Key availableQuery = Key.of("availability", true);
+        cache.get(availableQuery, book -> book.isAvailability(), true, this::load).block();
+        search();
+
+        cache.onBookAvailabilityChanged(new BookAvailabilityChangedEvent(UUID.randomUUID(), true));
+        cache.get(availableQuery, book -> book.isAvailability(), true, this::load).block();
+        search();
+        assertThat(loads).hasValue(3);
+
+        cache.onBookAvailabilityChanged(new BookAvailabilityChangedEvent(gatsbyId, false));
+        search();
+        assertThat(loads).hasValue(4);
+    }
+
+    // A page loaded while a book changed is returned but not cached
+    @Test
+    void whenBookChangesDuringLoad_thenPageIsNotCached() {
+        cache.get(GATSBY_QUERY, GATSBY_MATCH, () -> {
+            cache.onBookDeleted(new BookDeletedEvent(UUID.randomUUID()));
+            return load();
+        }).block();
+        search();
+
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.library_user.junit.search;
+
+import com.library_user.search.TrigramIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrigramIndexJunitTest {
+
+    private TrigramIndex index;
+    private UUID gatsby;
+    private UUID orwell;
+    private UUID huxley;
+    private UUID hemingway;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        gatsby = UUID.randomUUID();
+        orwell = UUID.randomUUID();
+        huxley = UUID.randomUUID();
+        hemingway = UUID.randomUUID();
+
+        index.put(gatsby, "The Great Gatsby");
+        index.put(orwell, "Nineteen Eighty-Four");
+        index.put(huxley, "Brave New World");
+        index.put(hemingway, "The Sun Also Rises");
+    }
+
+    // Substring queries are matched case-insensitively
+    @Test
+    void whenSearchSubstring_thenReturnMatchingDocuments() {
+        assertThat(index.search("GREAT")).containsExactly(gatsby);
+        assertThat(index.search("THE ")).containsExactly(gatsby, hemingway);
+    }
+
+    // Documents that contain every trigram but not the full phrase are filtered out
+    @Test
+    void whenTrigramsMatchButPhraseDoesNot_thenDocumentIsExcluded() {
+        assertThat(index.search("the great")).containsExactly(gatsby);
+        assertThat(index.search("great the")).isEmpty();
+    }
+
+    // Replacing the text of a document removes its old trigrams
+    @Test
+    void whenDocumentUpdated_thenOldTextNoLongerMatches() {
+        index.put(gatsby, "Tender Is the Night");
+
+        assertThat(index.search("gatsby")).isEmpty();
+        assertThat(index.search("night")).containsExactly(gatsby);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    // Removed documents are no longer returned
+    @Test
+    void whenDocumentRemoved_thenItIsNotReturned() {
+        index.remove(huxley);
+
+        assertThat(index.search("world")).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    // Queries shorter than a trigram cannot be served by the index
+    @Test
+    void whenQueryTooShort_thenItIsNotSearchable() {
+        assertThat(TrigramIndex.isSearchable("ab")).isFalse();
+        assertThatThrownBy(() -> index.search("ab")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.library_user.junit.search;
+
+import com.library_user.search.UuidLongMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UuidLongMapJunitTest {
+
+    // Stored values are returned by key, a second put replaces the value and returns the previous one
+    @Test
+    void whenPutAndGet_thenReturnLatestValue() {
+        UuidLongMap map = new UuidLongMap();
+        UUID id = UUID.randomUUID();
+
+        assertThat(map.put(id, 9780743273565L)).isEqualTo(UuidLongMap.EMPTY);
+        assertThat(map.get(id)).isEqualTo(9780743273565L);
+
+        assertThat(map.put(id, 9780451524935L)).isEqualTo(9780743273565L);
+        assertThat(map.get(id)).isEqualTo(9780451524935L);
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.get(UUID.randomUUID())).isEqualTo(UuidLongMap.EMPTY);
+    }
+
+    // The map grows and stays consistent with a HashMap through random puts and removes
+    @Test
+    void whenManyPutsAndRemoves_thenMatchHashMap() {
+        UuidLongMap map = new UuidLongMap();
+        Map<UUID, Long> expected = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            UUID id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(id)).isEqualTo(expected.getOrDefault(id, UuidLongMap.EMPTY));
+                expected.remove(id);
+            } else {
+                long value = 1 + random.nextInt(1_000_000);
+                map.put(id, value);
+                expected.put(id, value);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (UUID id : ids) {
+            assertThat(map.get(id)).isEqualTo(expected.getOrDefault(id, UuidLongMap.EMPTY));
+        }
+    }
+
+    // Value 0 marks empty slots and cannot be stored
+    @Test
+    void whenPutZeroValue_thenThrowException() {
+        assertThatThrownBy(() -> new UuidLongMap().put(UUID.randomUUID(), UuidLongMap.EMPTY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,9 +1,19 @@
 package com.library_user.junit.service;
 
+import com.library_user.event.BookDeletedEvent;
+import com.library_user.event.BookSavedEvent;
 import com.library_user.exceptions.CustomException;
+import com.library_user.helper.ErrorMessages;
 import com.library_user.model.dto.BookDto;
 import com.library_user.model.entity.Book;
+import com.library_user.model.entity.BookCopy;
+import com.library_user.model.request.BulkAvailabilityRequest;
+import com.library_user.model.response.BulkAvailabilityResponse;
+import com.library_user.repository.BookCopyRepository;
 import com.library_user.repository.BookRepository;
+import com.library_user.search.GenreDictionary;
+import com.library_user.search.IsbnIndex;
+import com.library_user.service.BorrowingService;
 import com.library_user.service.Impl.BookServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,17 +21,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +45,21 @@ class BookServiceJunitTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookCopyRepository bookCopyRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private IsbnIndex isbnIndex;
+
+    @Mock
+    private GenreDictionary genreDictionary;
+
+    @Mock
+    private BorrowingService borrowingService;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -67,8 +97,8 @@ class BookServiceJunitTest {
     // Test case to add a new book to the library system
     @Test
     void whenAddBook_thenReturnSavedBook() {
-        when(bookRepository.findByIsbn(testBookDto.getIsbn())).thenReturn(Optional.empty());
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+        when(isbnIndex.find(9780743273565L)).thenReturn(Optional.empty());
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
 
         BookDto savedBook = bookService.addBook(testBookDto);
 
@@ -76,16 +106,56 @@ class BookServiceJunitTest {
         assertThat(savedBook.getTitle()).isEqualTo("The Great Gatsby");
         assertThat(savedBook.getAuthor()).isEqualTo("F. Scott Fitzgerald");
         assertThat(savedBook.getIsbn()).isEqualTo("978-0743273565");
-        verify(bookRepository).save(any(Book.class));
+        verify(bookRepository).saveAndFlush(any(Book.class));
+        verify(bookRepository, never()).findByIsbn(any());
+        verify(bookCopyRepository).saveAll(argThat((List<BookCopy> copies) -> copies.size() == 1 && copies.getFirst().isAvailable()));
+        verify(eventPublisher).publishEvent(any(BookSavedEvent.class));
     }
 
     // Test case to add a book with an existing ISBN and throw an exception
     @Test
     void whenAddBookWithExistingIsbn_thenThrowException() {
-        when(bookRepository.findByIsbn(testBookDto.getIsbn())).thenReturn(Optional.of(testBook));
+        when(isbnIndex.find(9780743273565L)).thenReturn(Optional.of(bookId));
+        when(bookRepository.existsById(bookId)).thenReturn(true);
+
+        assertThatThrownBy(() -> bookService.addBook(testBookDto))
+                .isInstanceOf(CustomException.class);
+    }
+
+    // An ISBN-10 and the hyphenated ISBN-13 of the same book are treated as the same ISBN
+    @Test
+    void whenAddBookWithIsbn10OfExistingBook_thenThrowException() {
+        testBookDto.setIsbn("0-7432-7356-7");
+        when(isbnIndex.find(9780743273565L)).thenReturn(Optional.of(bookId));
+        when(bookRepository.existsById(bookId)).thenReturn(true);
 
         assertThatThrownBy(() -> bookService.addBook(testBookDto))
                 .isInstanceOf(CustomException.class);
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+    }
+
+    // A duplicate only the unique ISBN key catches is reported as a conflict
+    @Test
+    void whenUniqueIsbnKeyViolated_thenThrowException() {
+        when(isbnIndex.find(9780743273565L)).thenReturn(Optional.empty());
+        when(bookRepository.saveAndFlush(any(Book.class))).thenThrow(new DataIntegrityViolationException("uk_books_isbn_key"));
+
+        assertThatThrownBy(() -> bookService.addBook(testBookDto))
+                .isInstanceOf(CustomException.class);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    // An index entry of a book deleted outside the service is dropped instead of blocking the ISBN
+    @Test
+    void whenIndexedBookNoLongerExists_thenAddBookAndForgetEntry() {
+        UUID staleId = UUID.randomUUID();
+        when(isbnIndex.find(9780743273565L)).thenReturn(Optional.of(staleId));
+        when(bookRepository.existsById(staleId)).thenReturn(false);
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
+
+        bookService.addBook(testBookDto);
+
+        verify(isbnIndex).forget(9780743273565L, staleId);
     }
 
     // Test case to update an existing book's details
@@ -102,12 +172,12 @@ class BookServiceJunitTest {
                 .build();
 
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
 
         BookDto result = bookService.updateBook(bookId, updatedDto);
 
         assertThat(result).isNotNull();
-        verify(bookRepository).save(any(Book.class));
+        verify(bookRepository).saveAndFlush(any(Book.class));
     }
 
     // Test case to update a book that doesn't exist and throw an exception
@@ -122,21 +192,24 @@ class BookServiceJunitTest {
     // Test case to delete an existing book from the library system
     @Test
     void whenDeleteBook_thenDeleteSuccessfully() {
-        when(bookRepository.existsById(bookId)).thenReturn(true);
-        doNothing().when(bookRepository).deleteById(bookId);
+        when(bookRepository.softDelete(eq(bookId), any(Instant.class))).thenReturn(1);
 
         bookService.deleteBook(bookId);
 
-        verify(bookRepository).deleteById(bookId);
+        verify(bookRepository, never()).existsById(bookId);
+        verify(bookRepository, never()).deleteById(bookId);
+        verify(borrowingService).cancelHolds(bookId);
+        verify(eventPublisher).publishEvent(new BookDeletedEvent(bookId));
     }
 
     // Test case to delete a book that does not exist and throw an exception
     @Test
     void whenDeleteNonExistentBook_thenThrowException() {
-        when(bookRepository.existsById(bookId)).thenReturn(false);
+        when(bookRepository.softDelete(eq(bookId), any(Instant.class))).thenReturn(0);
 
         assertThatThrownBy(() -> bookService.deleteBook(bookId))
                 .isInstanceOf(CustomException.class);
+        verifyNoInteractions(eventPublisher, borrowingService);
     }
 
     // Test case to get a book by its ID
@@ -154,24 +227,139 @@ class BookServiceJunitTest {
     // Test case to get a book by its ISBN
     @Test
     void whenGetBookByIsbn_thenReturnBook() {
-        when(bookRepository.findByIsbn(testBook.getIsbn())).thenReturn(Optional.of(testBook));
+        when(isbnIndex.find(9780743273565L)).thenReturn(Optional.of(bookId));
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
 
         BookDto found = bookService.getBookByIsbn(testBook.getIsbn());
 
         assertThat(found).isNotNull();
         assertThat(found.getIsbn()).isEqualTo("978-0743273565");
+        verify(bookRepository, never()).findByIsbn(any());
+    }
+
+    // An ISBN that is not a valid ISBN-10 or ISBN-13 is looked up as written
+    @Test
+    void whenGetBookByInvalidIsbn_thenLookUpRawIsbn() {
+        testBook.setIsbn("999888777");
+        when(bookRepository.findByIsbn("999888777")).thenReturn(Optional.of(testBook));
+
+        BookDto found = bookService.getBookByIsbn("999888777");
+
+        assertThat(found.getIsbn()).isEqualTo("999888777");
+        verifyNoInteractions(isbnIndex);
+    }
+
+    // An ISBN missing from the index is looked up by its ISBN key, never by the raw isbn column
+    @Test
+    void whenGetBookByUnknownIsbn_thenThrowException() {
+        when(isbnIndex.find(9780743273565L)).thenReturn(Optional.empty());
+        when(bookRepository.findByIsbnKey(9780743273565L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> bookService.getBookByIsbn("978-0743273565"))
+                .isInstanceOf(CustomException.class);
+        verify(bookRepository, never()).findByIsbn(any());
     }
 
     // Test case to update the availability status of a book
     @Test
     void whenUpdateBookAvailability_thenReturnUpdatedBook() {
+        testBook.setVersion(3L);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+        when(bookRepository.updateAvailabilityAtVersion(bookId, 3L, false)).thenReturn(1);
 
         BookDto result = bookService.updateBookAvailability(bookId, false);
 
         assertThat(result).isNotNull();
         assertThat(result.isAvailability()).isFalse();
-        verify(bookRepository).save(any(Book.class));
+        assertThat(result.getVersion()).isEqualTo(4L);
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(eventPublisher).publishEvent(any(BookSavedEvent.class));
+    }
+
+    // Setting the availability a book already has changes nothing and publishes no event
+    @Test
+    void whenBookAlreadyHasAvailability_thenUpdateBookAvailabilityIsNoOp() {
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
+
+        BookDto result = bookService.updateBookAvailability(bookId, true);
+
+        assertThat(result.isAvailability()).isTrue();
+        verify(bookRepository, never()).updateAvailabilityAtVersion(any(), any(), anyBoolean());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    // A book changed by another request after it was read is reported as a conflict
+    @Test
+    void whenBookChangedSinceRead_thenUpdateBookAvailabilityConflicts() {
+        testBook.setVersion(3L);
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
+        when(bookRepository.updateAvailabilityAtVersion(bookId, 3L, false)).thenReturn(0);
+
+        assertThatThrownBy(() -> bookService.updateBookAvailability(bookId, false))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.CONCURRENT_MODIFICATION);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    // Adding copies raises both counters and puts the new copies on the shelf
+    @Test
+    void whenAddCopies_thenCountersAndCopiesGrow() {
+        testBook.setAvailability(false);
+        testBook.setAvailableCopies(0);
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
+        when(bookRepository.saveAndFlush(testBook)).thenReturn(testBook);
+
+        BookDto result = bookService.addCopies(bookId, 2);
+
+        assertThat(result.getCopies()).isEqualTo(3);
+        assertThat(result.getAvailableCopies()).isEqualTo(2);
+        assertThat(result.isAvailability()).isTrue();
+        verify(bookCopyRepository).saveAll(argThat((List<BookCopy> copies) -> copies.size() == 2));
+    }
+
+    // Copy counts outside the allowed range are rejected before anything is read
+    @Test
+    void whenAddCopiesOutOfRange_thenThrowException() {
+        assertThatThrownBy(() -> bookService.addCopies(bookId, 0))
+                .isInstanceOf(CustomException.class);
+        verifyNoInteractions(bookRepository, bookCopyRepository);
+    }
+
+    // Bulk availability changes run one update per target state and report changed, unchanged and missing ids
+    @Test
+    void whenUpdateBooksAvailability_thenReportChangedUnchangedAndMissing() {
+        UUID unavailableId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        Book unavailable = Book.builder().id(unavailableId).title("Unavailable").isbn("111").availability(false).build();
+        testBook.setVersion(1L);
+        Book updated = Book.builder().id(bookId).title(testBook.getTitle()).isbn(testBook.getIsbn()).availability(false).version(2L).build();
+        when(bookRepository.findAllByIdForUpdate(List.of(bookId, unavailableId, missingId))).thenReturn(List.of(testBook, unavailable));
+        when(bookRepository.findAllById(List.of(bookId))).thenReturn(List.of(updated));
+
+        BulkAvailabilityResponse response = bookService.updateBooksAvailability(List.of(
+                new BulkAvailabilityRequest.Change(bookId, false),
+                new BulkAvailabilityRequest.Change(unavailableId, false),
+                new BulkAvailabilityRequest.Change(missingId, true)));
+
+        assertThat(response.changed()).containsExactly(bookId);
+        assertThat(response.unchanged()).containsExactly(unavailableId);
+        assertThat(response.missing()).containsExactly(missingId);
+        verify(bookRepository).updateAvailability(List.of(bookId), false);
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(eventPublisher).publishEvent(new BookSavedEvent(updated));
+    }
+
+    // A book the update did not change after all is reported unchanged and no event is published for it
+    @Test
+    void whenUpdateBooksAvailabilityLeavesBookAsIs_thenReportUnchanged() {
+        testBook.setVersion(1L);
+        when(bookRepository.findAllByIdForUpdate(List.of(bookId))).thenReturn(List.of(testBook));
+        when(bookRepository.findAllById(List.of(bookId))).thenReturn(List.of(testBook));
+
+        BulkAvailabilityResponse response = bookService.updateBooksAvailability(List.of(new BulkAvailabilityRequest.Change(bookId, false)));
+
+        assertThat(response.changed()).isEmpty();
+        assertThat(response.unchanged()).containsExactly(bookId);
+        verify(eventPublisher, never()).publishEvent(any(BookSavedEvent.class));
     }
 }
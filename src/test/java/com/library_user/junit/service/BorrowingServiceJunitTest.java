@@ -1,16 +1,27 @@
 package com.library_user.junit.service;
 
+import com.library_user.event.BookAvailabilityChangedEvent;
+import com.library_user.exceptions.BatchBorrowingException;
 import com.library_user.exceptions.CustomException;
+import com.library_user.helper.ErrorMessages;
+import com.library_user.model.dto.HoldQueue;
 import com.library_user.model.dto.OverDueReportDto;
+import com.library_user.model.dto.ShelvedCopy;
 import com.library_user.model.entity.Book;
 import com.library_user.model.entity.Borrowing;
+import com.library_user.model.entity.Hold;
 import com.library_user.model.entity.User;
 import com.library_user.model.entity.Role;
+import com.library_user.model.request.BatchBorrowingRequest;
 import com.library_user.model.request.BorrowingCreateRequest;
 import com.library_user.model.request.ReturnBookRequest;
+import com.library_user.model.response.BatchBorrowingResponse;
 import com.library_user.model.response.BorrowingResponse;
+import com.library_user.model.response.HoldResponse;
+import com.library_user.repository.BookCopyRepository;
 import com.library_user.repository.BookRepository;
 import com.library_user.repository.BorrowingRepository;
+import com.library_user.repository.HoldRepository;
 import com.library_user.repository.UserRepository;
 import com.library_user.service.Impl.BorrowingServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,14 +30,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -35,6 +52,9 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,9 +66,21 @@ class BorrowingServiceJunitTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookCopyRepository bookCopyRepository;
+
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private HoldRepository holdRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -142,31 +174,172 @@ class BorrowingServiceJunitTest {
         verify(userRepository).save(argThat(user -> user.getBorrowedBookCount() == 1));
     }
 
-    @Test
-    void whenChanceBookAvailability_thenBookAvailabilityShouldChange() {
-        // Tests that book availability status is toggled
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
-        borrowingService.chanceBookAvailability(bookId);
-        verify(bookRepository).save(argThat(book -> !book.isAvailability()));
-    }
-
-    // Tests successful book borrowing returns proper response
+    // Tests successful book borrowing claims a copy and returns proper response
     @Test
     void whenBorrowBook_thenReturnBorrowingResponse() {
+        UUID copyId = UUID.randomUUID();
         BorrowingCreateRequest request = new BorrowingCreateRequest(userId, bookId);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
-        when(bookRepository.existsByIdAndAvailabilityTrue(bookId)).thenReturn(true);
-        when(borrowingRepository.save(any(Borrowing.class))).thenReturn(testBorrowing);
+        when(userRepository.incrementBorrowedBookCount(userId, 5)).thenReturn(1);
+        when(bookRepository.claimCopy(bookId)).thenReturn(1);
+        when(bookRepository.findAvailableCopiesById(bookId)).thenReturn(Optional.of(2));
+        when(bookCopyRepository.findAvailableIds(eq(bookId), any(Limit.class))).thenReturn(List.of(copyId));
+        when(bookCopyRepository.claim(copyId)).thenReturn(1);
+        when(borrowingRepository.save(any(Borrowing.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         BorrowingResponse response = borrowingService.borrowBook(request);
 
         assertThat(response).isNotNull();
-        assertThat(response.id()).isEqualTo(borrowingId);
         assertThat(response.bookId()).isEqualTo(bookId);
+        assertThat(response.copyId()).isEqualTo(copyId);
         assertThat(response.userId()).isEqualTo(userId);
-        verify(bookRepository).save(any(Book.class));
-        verify(userRepository).save(any(User.class));
+        verify(userRepository, never()).save(any(User.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    // Tests that taking the last copy makes the book unavailable
+    @Test
+    void whenBorrowLastCopy_thenBookBecomesUnavailable() {
+        BorrowingCreateRequest request = new BorrowingCreateRequest(userId, bookId);
+        when(userRepository.incrementBorrowedBookCount(userId, 5)).thenReturn(1);
+        when(bookRepository.claimCopy(bookId)).thenReturn(1);
+        when(bookRepository.findAvailableCopiesById(bookId)).thenReturn(Optional.of(0));
+        when(bookCopyRepository.findAvailableIds(eq(bookId), any(Limit.class))).thenReturn(List.of());
+        when(borrowingRepository.save(any(Borrowing.class))).thenReturn(testBorrowing);
+
+        borrowingService.borrowBook(request);
+
+        verify(eventPublisher).publishEvent(new BookAvailabilityChangedEvent(bookId, false));
+    }
+
+    // Tests that a user at the limit is rejected before the book is touched
+    @Test
+    void whenUserAtLimit_thenBorrowBookConflicts() {
+        when(userRepository.incrementBorrowedBookCount(userId, 5)).thenReturn(0);
+        when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertThatThrownBy(() -> borrowingService.borrowBook(new BorrowingCreateRequest(userId, bookId)))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.USER_CAN_NOT_BORROW_5);
+        verifyNoInteractions(bookRepository, bookCopyRepository, borrowingRepository);
+    }
+
+    // Tests that borrowing for an unknown user is not found
+    @Test
+    void whenUserMissing_thenBorrowBookNotFound() {
+        when(userRepository.incrementBorrowedBookCount(userId, 5)).thenReturn(0);
+        when(userRepository.existsById(userId)).thenReturn(false);
+
+        assertThatThrownBy(() -> borrowingService.borrowBook(new BorrowingCreateRequest(userId, bookId)))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.USER_NOT_FOUND_ID);
+    }
+
+    // Tests that a book without copies on the shelf cannot be borrowed
+    @Test
+    void whenNoCopyLeft_thenBorrowBookConflicts() {
+        when(userRepository.incrementBorrowedBookCount(userId, 5)).thenReturn(1);
+        when(bookRepository.claimCopy(bookId)).thenReturn(0);
+        when(bookRepository.existsById(bookId)).thenReturn(true);
+
+        assertThatThrownBy(() -> borrowingService.borrowBook(new BorrowingCreateRequest(userId, bookId)))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.BOOK_NOT_AVAILABLE)
+                .extracting(e -> ((CustomException) e).getHttpStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(borrowingRepository, never()).save(any(Borrowing.class));
+    }
+
+    // Tests that borrowing a missing book names the book in the error
+    @Test
+    void whenBookMissing_thenBorrowBookNotFoundWithId() {
+        when(userRepository.incrementBorrowedBookCount(userId, 5)).thenReturn(1);
+        when(bookRepository.claimCopy(bookId)).thenReturn(0);
+        when(bookRepository.existsById(bookId)).thenReturn(false);
+
+        assertThatThrownBy(() -> borrowingService.borrowBook(new BorrowingCreateRequest(userId, bookId)))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(String.format(ErrorMessages.BOOK_NOT_FOUND_ID, bookId));
+    }
+
+    // Tests that a copy taken by a concurrent borrower is skipped for the next free one
+    @Test
+    void whenCopyTakenConcurrently_thenClaimAnotherCopy() {
+        UUID taken = UUID.randomUUID();
+        UUID free = UUID.randomUUID();
+        when(userRepository.incrementBorrowedBookCount(userId, 5)).thenReturn(1);
+        when(bookRepository.claimCopy(bookId)).thenReturn(1);
+        when(bookRepository.findAvailableCopiesById(bookId)).thenReturn(Optional.of(3));
+        when(bookCopyRepository.findAvailableIds(eq(bookId), any(Limit.class))).thenReturn(List.of(taken, free), List.of(free));
+        when(bookCopyRepository.claim(taken)).thenReturn(0);
+        when(bookCopyRepository.claim(free)).thenReturn(0, 1);
+        when(borrowingRepository.save(any(Borrowing.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BorrowingResponse response = borrowingService.borrowBook(new BorrowingCreateRequest(userId, bookId));
+
+        assertThat(response.copyId()).isEqualTo(free);
+    }
+
+    // Tests that a batch checkout counts the user once, claims every book and every copy in one update each and saves all borrowings together
+    @Test
+    void whenBorrowBooks_thenAllBooksBorrowedTogether() {
+        UUID secondBookId = UUID.randomUUID();
+        List<UUID> bookIds = List.of(bookId, secondBookId);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userRepository.addBorrowedBookCount(userId, 2, 5)).thenReturn(1);
+        when(bookRepository.findAllByIdForUpdate(bookIds))
+                .thenReturn(List.of(testBook, Book.builder().id(secondBookId).availability(true).build()));
+        when(bookRepository.claimCopies(bookIds)).thenReturn(2);
+        when(bookRepository.findIdsWithoutAvailableCopies(bookIds)).thenReturn(List.of(secondBookId));
+        UUID firstCopy = UUID.randomUUID();
+        UUID secondCopy = UUID.randomUUID();
+        when(bookCopyRepository.findAvailableCopies(bookIds)).thenReturn(List.of(new ShelvedCopy(bookId, firstCopy),
+                new ShelvedCopy(secondBookId, secondCopy), new ShelvedCopy(bookId, UUID.randomUUID())));
+        when(bookCopyRepository.claimAll(anyCollection())).thenReturn(2);
+        when(borrowingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchBorrowingResponse response = borrowingService.borrowBooks(new BatchBorrowingRequest(userId, bookIds));
+
+        assertThat(response.failures()).isEmpty();
+        assertThat(response.borrowings()).extracting(BorrowingResponse::bookId).containsExactly(bookId, secondBookId);
+        verify(borrowingRepository).saveAll(argThat((List<Borrowing> borrowings) -> borrowings.size() == 2
+                && borrowings.get(0).getCopyId().equals(firstCopy) && borrowings.get(1).getCopyId().equals(secondCopy)));
+        verify(bookCopyRepository).claimAll(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(firstCopy, secondCopy))));
+        verify(bookCopyRepository, never()).claim(any(UUID.class));
+        verify(eventPublisher).publishEvent(new BookAvailabilityChangedEvent(secondBookId, false));
+        verify(eventPublisher, never()).publishEvent(new BookAvailabilityChangedEvent(bookId, false));
+        verify(transactionManager).commit(any());
+    }
+
+    // Tests that one unavailable book rejects the whole checkout before any copy is taken and is reported with its reason
+    @Test
+    void whenOneBookOfBatchUnavailable_thenNothingBorrowedAndFailureReported() {
+        UUID unavailableId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        List<UUID> bookIds = List.of(bookId, unavailableId, missingId);
+        Book unavailable = Book.builder().id(unavailableId).availability(false).availableCopies(0).build();
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userRepository.addBorrowedBookCount(userId, 3, 5)).thenReturn(1);
+        when(bookRepository.findAllByIdForUpdate(bookIds)).thenReturn(List.of(testBook, unavailable));
+
+        assertThatThrownBy(() -> borrowingService.borrowBooks(new BatchBorrowingRequest(userId, bookIds)))
+                .isInstanceOf(BatchBorrowingException.class)
+                .extracting(e -> ((BatchBorrowingException) e).getFailures())
+                .isEqualTo(List.of(
+                        new BatchBorrowingResponse.Failure(unavailableId, 409, ErrorMessages.BOOK_NOT_AVAILABLE),
+                        new BatchBorrowingResponse.Failure(missingId, 404, String.format(ErrorMessages.BOOK_NOT_FOUND_ID, missingId))));
+        verify(transactionManager).rollback(any());
+        verify(bookRepository, never()).claimCopies(any());
+        verify(borrowingRepository, never()).saveAll(anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    // Tests that a book listed twice is rejected before anything is touched
+    @Test
+    void whenBookListedTwiceInBatch_thenRejected() {
+        assertThatThrownBy(() -> borrowingService.borrowBooks(new BatchBorrowingRequest(userId, List.of(bookId, bookId))))
+                .isInstanceOf(BatchBorrowingException.class)
+                .extracting(e -> ((BatchBorrowingException) e).getFailures())
+                .isEqualTo(List.of(new BatchBorrowingResponse.Failure(bookId, 400, ErrorMessages.BOOK_REQUESTED_TWICE)));
+        verifyNoInteractions(userRepository, bookRepository, transactionManager);
     }
 
     // Tests retrieving borrowing history for current user
@@ -220,16 +393,30 @@ class BorrowingServiceJunitTest {
     void whenReturnBook_thenReturnBorrowingResponse() {
         ReturnBookRequest request = new ReturnBookRequest(userId);
         when(borrowingRepository.findById(borrowingId)).thenReturn(Optional.of(testBorrowing));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(testBook));
+        when(borrowingRepository.markReturned(eq(borrowingId), any(LocalDate.class))).thenReturn(1);
+        when(userRepository.decrementBorrowedBookCount(userId)).thenReturn(1);
+        when(bookRepository.releaseCopy(bookId)).thenReturn(1);
+        when(bookRepository.findAvailableCopiesById(bookId)).thenReturn(Optional.of(1));
 
         BorrowingResponse response = borrowingService.returnBook(borrowingId, request);
 
         assertThat(response).isNotNull();
         assertThat(response.id()).isEqualTo(borrowingId);
         assertThat(response.returnDate()).isNotNull();
-        verify(bookRepository).save(any(Book.class));
-        verify(userRepository).save(any(User.class));
+        verify(userRepository, never()).save(any(User.class));
+        verify(eventPublisher).publishEvent(new BookAvailabilityChangedEvent(bookId, true));
+    }
+
+    // Tests that of two simultaneous returns the one that loses is rejected and puts nothing back
+    @Test
+    void whenBorrowingReturnedConcurrently_thenReturnBookConflicts() {
+        when(borrowingRepository.findById(borrowingId)).thenReturn(Optional.of(testBorrowing));
+        when(borrowingRepository.markReturned(eq(borrowingId), any(LocalDate.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> borrowingService.returnBook(borrowingId, new ReturnBookRequest(userId)))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.BOOK_ALREADY_RETURNED);
+        verifyNoInteractions(userRepository, bookRepository, bookCopyRepository);
     }
 
     // Tests returning book with incorrect user throws exception
@@ -253,4 +440,99 @@ class BorrowingServiceJunitTest {
         assertThatThrownBy(() -> borrowingService.returnBook(borrowingId, request))
                 .isInstanceOf(CustomException.class);
     }
+
+    // Tests that a returned copy is lent to the first patron in the hold queue instead of going back on the shelf
+    @Test
+    void whenReturnBookWithHold_thenCopyLentToFirstHold() {
+        UUID waitingUserId = UUID.randomUUID();
+        UUID copyId = UUID.randomUUID();
+        testBorrowing.setCopyId(copyId);
+        Hold hold = Hold.builder().id(UUID.randomUUID()).bookId(bookId).userId(waitingUserId).ticket(1).createdAt(Instant.now()).build();
+        when(borrowingRepository.findById(borrowingId)).thenReturn(Optional.of(testBorrowing));
+        when(borrowingRepository.markReturned(eq(borrowingId), any(LocalDate.class))).thenReturn(1);
+        when(userRepository.decrementBorrowedBookCount(userId)).thenReturn(1);
+        when(bookRepository.advanceHoldHead(bookId)).thenReturn(1);
+        when(bookRepository.findHoldQueueById(bookId)).thenReturn(Optional.of(new HoldQueue(1, 2)));
+        when(holdRepository.findByBookIdAndTicket(bookId, 1)).thenReturn(Optional.of(hold));
+        when(userRepository.incrementBorrowedBookCount(waitingUserId, 5)).thenReturn(1);
+
+        borrowingService.returnBook(borrowingId, new ReturnBookRequest(userId));
+
+        verify(holdRepository).delete(hold);
+        verify(borrowingRepository).save(argThat(borrowing ->
+                borrowing.getUserId().equals(waitingUserId) && copyId.equals(borrowing.getCopyId()) && borrowing.getReturnDate() == null));
+        verify(bookRepository, never()).releaseCopy(any());
+        verifyNoInteractions(bookCopyRepository, eventPublisher);
+    }
+
+    // Tests that a waiting patron who reached the limit loses the hold and the copy goes back on the shelf when nobody else waits
+    @Test
+    void whenReturnBookWithHoldOfPatronAtLimit_thenHoldDroppedAndCopyReleased() {
+        UUID waitingUserId = UUID.randomUUID();
+        Hold hold = Hold.builder().id(UUID.randomUUID()).bookId(bookId).userId(waitingUserId).ticket(1).createdAt(Instant.now()).build();
+        when(borrowingRepository.findById(borrowingId)).thenReturn(Optional.of(testBorrowing));
+        when(borrowingRepository.markReturned(eq(borrowingId), any(LocalDate.class))).thenReturn(1);
+        when(userRepository.decrementBorrowedBookCount(userId)).thenReturn(1);
+        when(bookRepository.advanceHoldHead(bookId)).thenReturn(1, 0);
+        when(bookRepository.findHoldQueueById(bookId)).thenReturn(Optional.of(new HoldQueue(1, 1)));
+        when(holdRepository.findByBookIdAndTicket(bookId, 1)).thenReturn(Optional.of(hold));
+        when(userRepository.incrementBorrowedBookCount(waitingUserId, 5)).thenReturn(0);
+        when(bookRepository.releaseCopy(bookId)).thenReturn(1);
+        when(bookRepository.findAvailableCopiesById(bookId)).thenReturn(Optional.of(1));
+
+        borrowingService.returnBook(borrowingId, new ReturnBookRequest(userId));
+
+        verify(holdRepository).delete(hold);
+        verify(borrowingRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(new BookAvailabilityChangedEvent(bookId, true));
+    }
+
+    // Tests that a hold gets the ticket at the end of the queue and reports the queue length as its position
+    @Test
+    void whenPlaceHold_thenQueuedAtTheEnd() {
+        authenticateAsTestUser();
+        when(bookRepository.issueHoldTicket(bookId)).thenReturn(1);
+        when(holdRepository.existsByUserIdAndBookId(userId, bookId)).thenReturn(false);
+        when(bookRepository.findHoldQueueById(bookId)).thenReturn(Optional.of(new HoldQueue(4, 7)));
+        when(holdRepository.save(any(Hold.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        HoldResponse response = borrowingService.placeHold(bookId);
+
+        assertThat(response.position()).isEqualTo(3);
+        verify(holdRepository).save(argThat(hold -> hold.getTicket() == 7 && hold.getUserId().equals(userId)));
+    }
+
+    // Tests that a book with a copy on the shelf can not be held
+    @Test
+    void whenPlaceHoldOnBorrowableBook_thenConflict() {
+        authenticateAsTestUser();
+        when(bookRepository.issueHoldTicket(bookId)).thenReturn(0);
+        when(bookRepository.existsById(bookId)).thenReturn(true);
+
+        assertThatThrownBy(() -> borrowingService.placeHold(bookId))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.BOOK_AVAILABLE_FOR_BORROWING);
+        verify(holdRepository, never()).save(any());
+    }
+
+    // Tests that a cancelled hold is removed and the holds behind it move up
+    @Test
+    void whenCancelHold_thenHoldsBehindMoveUp() {
+        authenticateAsTestUser();
+        Hold hold = Hold.builder().id(UUID.randomUUID()).bookId(bookId).userId(userId).ticket(5).createdAt(Instant.now()).build();
+        when(bookRepository.withdrawHoldTicket(bookId)).thenReturn(1);
+        when(holdRepository.findByUserIdAndBookId(userId, bookId)).thenReturn(Optional.of(hold));
+
+        borrowingService.cancelHold(bookId);
+
+        verify(holdRepository).delete(hold);
+        verify(holdRepository).moveUpBehind(bookId, 5);
+    }
+
+    private void authenticateAsTestUser() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getName()).thenReturn("john.doe@example.com");
+        SecurityContextHolder.setContext(securityContext);
+        when(userRepository.findByEmail("john.doe@example.com")).thenReturn(Optional.of(testUser));
+    }
 }
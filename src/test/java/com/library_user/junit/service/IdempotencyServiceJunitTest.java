@@ -0,0 +1,193 @@
+package com.library_user.junit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library_user.exceptions.CustomException;
+import com.library_user.helper.ErrorMessages;
+import com.library_user.model.entity.IdempotencyRecord;
+import com.library_user.model.request.BorrowingCreateRequest;
+import com.library_user.model.response.BorrowingResponse;
+import com.library_user.repository.IdempotencyRecordRepository;
+import com.library_user.service.Impl.IdempotencyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceJunitTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private static final String KIOSK_KEY_ID = sha256("anonymous:borrow:kiosk-1");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private IdempotencyServiceImpl idempotencyService;
+    private BorrowingCreateRequest request;
+    private BorrowingResponse response;
+    private AtomicInteger runs;
+    private Supplier<BorrowingResponse> action;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, objectMapper, transactionManager,
+                Duration.ofHours(1), 100);
+        request = new BorrowingCreateRequest(UUID.randomUUID(), UUID.randomUUID());
+        response = new BorrowingResponse(UUID.randomUUID(), request.userId(), request.bookId(), null,
+                LocalDate.now(), LocalDate.now().plusDays(1), null, false);
+        runs = new AtomicInteger();
+        action = () -> {
+            runs.incrementAndGet();
+            return response;
+        };
+    }
+
+    // Requests without a key run every time and store nothing
+    @Test
+    void whenNoKey_thenActionRunsWithoutStoring() {
+        idempotencyService.execute(null, "borrow", request, BorrowingResponse.class, action);
+        idempotencyService.execute(null, "borrow", request, BorrowingResponse.class, action);
+
+        assertThat(runs).hasValue(2);
+        verifyNoInteractions(idempotencyRecordRepository, transactionManager);
+    }
+
+    // A retry with the same key is answered from memory without running the action or querying the database again
+    @Test
+    void whenSameKeyRetried_thenResponseReplayedFromMemory() {
+        when(idempotencyRecordRepository.findByIdAndExpiresAtAfter(anyString(), any(Instant.class))).thenReturn(Optional.empty());
+
+        BorrowingResponse first = idempotencyService.execute("kiosk-1", "borrow", request, BorrowingResponse.class, action);
+        BorrowingResponse retry = idempotencyService.execute("kiosk-1", "borrow", request, BorrowingResponse.class, action);
+
+        assertThat(retry).isSameAs(first);
+        assertThat(runs).hasValue(1);
+        verify(idempotencyRecordRepository).claim(eq(KIOSK_KEY_ID), eq(request.toString()), any(Instant.class));
+        verify(idempotencyRecordRepository).complete(eq(KIOSK_KEY_ID), anyString());
+        verify(idempotencyRecordRepository, times(1)).findByIdAndExpiresAtAfter(anyString(), any(Instant.class));
+    }
+
+    // A response stored by another instance or before a restart is replayed from the database
+    @Test
+    void whenKeyStoredInDatabase_thenResponseReplayedFromDatabase() throws Exception {
+        IdempotencyRecord stored = new IdempotencyRecord(KIOSK_KEY_ID, request.toString(),
+                objectMapper.writeValueAsString(response), Instant.now().plusSeconds(60));
+        when(idempotencyRecordRepository.findByIdAndExpiresAtAfter(eq(KIOSK_KEY_ID), any(Instant.class)))
+                .thenReturn(Optional.of(stored));
+
+        BorrowingResponse replayed = idempotencyService.execute("kiosk-1", "borrow", request, BorrowingResponse.class, action);
+
+        assertThat(replayed).isEqualTo(response);
+        assertThat(runs).hasValue(0);
+        verify(idempotencyRecordRepository, never()).claim(anyString(), anyString(), any(Instant.class));
+    }
+
+    // Reusing a key for a different request is rejected instead of replaying an unrelated response
+    @Test
+    void whenKeyReusedForDifferentRequest_thenUnprocessable() {
+        when(idempotencyRecordRepository.findByIdAndExpiresAtAfter(anyString(), any(Instant.class))).thenReturn(Optional.empty());
+        idempotencyService.execute("kiosk-1", "borrow", request, BorrowingResponse.class, action);
+
+        BorrowingCreateRequest other = new BorrowingCreateRequest(request.userId(), UUID.randomUUID());
+        assertThatThrownBy(() -> idempotencyService.execute("kiosk-1", "borrow", other, BorrowingResponse.class, action))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.IDEMPOTENCY_KEY_REUSED)
+                .extracting(e -> ((CustomException) e).getHttpStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(runs).hasValue(1);
+    }
+
+    // When a copy of the request sent at the same time commits first, the loser is answered with the winner's response
+    @Test
+    void whenDuplicateCommittedFirst_thenItsResponseIsReplayed() throws Exception {
+        BorrowingResponse winner = new BorrowingResponse(UUID.randomUUID(), request.userId(), request.bookId(), null,
+                LocalDate.now(), LocalDate.now().plusDays(1), null, false);
+        IdempotencyRecord stored = new IdempotencyRecord(KIOSK_KEY_ID, request.toString(),
+                objectMapper.writeValueAsString(winner), Instant.now().plusSeconds(60));
+        when(idempotencyRecordRepository.findByIdAndExpiresAtAfter(anyString(), any(Instant.class)))
+                .thenReturn(Optional.empty(), Optional.of(stored));
+        when(idempotencyRecordRepository.claim(anyString(), anyString(), any(Instant.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        BorrowingResponse replayed = idempotencyService.execute("kiosk-1", "borrow", request, BorrowingResponse.class, action);
+
+        assertThat(replayed).isEqualTo(winner);
+        assertThat(runs).hasValue(0);
+        verify(transactionManager).rollback(any());
+    }
+
+    // While the copy that holds the key has not committed yet, the loser is told to retry later
+    @Test
+    void whenDuplicateStillRunning_thenConflict() {
+        when(idempotencyRecordRepository.findByIdAndExpiresAtAfter(anyString(), any(Instant.class))).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.claim(anyString(), anyString(), any(Instant.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertThatThrownBy(() -> idempotencyService.execute("kiosk-1", "borrow", request, BorrowingResponse.class, action))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        assertThat(runs).hasValue(0);
+    }
+
+    // A constraint violation of the action itself is its own error, not a taken key, and nothing is stored
+    @Test
+    void whenActionViolatesConstraint_thenErrorPropagates() {
+        when(idempotencyRecordRepository.findByIdAndExpiresAtAfter(anyString(), any(Instant.class))).thenReturn(Optional.empty());
+        DataIntegrityViolationException failure = new DataIntegrityViolationException("uk_borrowings_copy");
+
+        assertThatThrownBy(() -> idempotencyService.execute("kiosk-1", "borrow", request, BorrowingResponse.class, () -> {
+            throw failure;
+        })).isSameAs(failure);
+        verify(idempotencyRecordRepository, never()).complete(anyString(), anyString());
+        verify(idempotencyRecordRepository, times(1)).findByIdAndExpiresAtAfter(anyString(), any(Instant.class));
+        verify(transactionManager).rollback(any());
+    }
+
+    // Keys that are blank or too long are rejected
+    @Test
+    void whenKeyInvalid_thenBadRequest() {
+        assertThatThrownBy(() -> idempotencyService.execute(" ", "borrow", request, BorrowingResponse.class, action))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.INVALID_IDEMPOTENCY_KEY);
+        assertThatThrownBy(() -> idempotencyService.execute("k".repeat(256), "borrow", request, BorrowingResponse.class, action))
+                .isInstanceOf(CustomException.class);
+        assertThat(runs).hasValue(0);
+    }
+
+    private static String sha256(String id) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(id.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package com.library_user.junit.service;
 
-import com.library_user.model.dto.BookDto;
+import com.library_user.exceptions.CustomException;
+import com.library_user.helper.ErrorMessages;
+import com.library_user.helper.SeekCursor;
+import com.library_user.model.dto.BookSummaryDto;
 import com.library_user.model.entity.Book;
-import com.library_user.model.mapper.BookMapper;
+import com.library_user.model.request.BookSearchCriteria;
+import com.library_user.model.request.SearchMode;
+import com.library_user.model.response.PageResponse;
 import com.library_user.repository.BookRepository;
+import com.library_user.search.BookFacets;
+import com.library_user.search.BookSearchIndex;
+import com.library_user.search.GenreDictionary;
+import com.library_user.search.RadixTrie;
 import com.library_user.service.Impl.ReactiveBookServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,15 +24,23 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import reactor.core.publisher.Flux;
+import org.springframework.data.domain.SliceImpl;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,13 +50,22 @@ class ReactiveBookServiceJunitTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookFacets bookFacets;
+
+    @Mock
+    private GenreDictionary genreDictionary;
+
     @InjectMocks
     private ReactiveBookServiceImpl reactiveBookService;
 
     private Book book1;
     private Book book2;
-    private BookDto bookDto1;
-    private BookDto bookDto2;
+    private BookSummaryDto bookDto1;
+    private BookSummaryDto bookDto2;
     private Pageable pageable;
 
     @BeforeEach
@@ -51,8 +77,8 @@ class ReactiveBookServiceJunitTest {
         book1 = Book.builder().id(id1).title("Test Book 1").author("Author 1").isbn("111").genre("Genre 1").availability(true).build();
         book2 = Book.builder().id(id2).title("Another Test Book").author("Author 2").isbn("222").genre("Genre 2").availability(false).build();
 
-        bookDto1 = BookMapper.toDto(book1);
-        bookDto2 = BookMapper.toDto(book2);
+        bookDto1 = summary(book1);
+        bookDto2 = summary(book2);
 
         pageable = PageRequest.of(0, 10);
     }
@@ -61,117 +87,301 @@ class ReactiveBookServiceJunitTest {
      * Test case for searching books by title successfully.
      */
     @Test
-    void searchBooksByTitle_ShouldReturnFluxOfBookDto_WhenBooksFound() {
+    void searchBooksByTitle_ShouldReturnPageOfBookDto_WhenBooksFound() {
         String title = "Test";
-        List<Book> books = Arrays.asList(book1, book2);
-        Page<Book> bookPage = new PageImpl<>(books, pageable, books.size());
-        when(bookRepository.findByTitleContainingIgnoreCase(eq(title), eq(pageable))).thenReturn(bookPage);
+        List<BookSummaryDto> books = Arrays.asList(bookDto1, bookDto2);
+        Page<BookSummaryDto> bookPage = new PageImpl<>(books, pageable, books.size());
+        when(bookRepository.findByTitleContainingIgnoreCase(eq(title), eq(pageable), eq(BookSummaryDto.class))).thenReturn(bookPage);
 
-        Flux<BookDto> resultFlux = reactiveBookService.searchBooksByTitle(title, pageable);
+        Mono<PageResponse<BookSummaryDto>> resultMono = reactiveBookService.searchBooksByTitle(title, pageable);
 
-        StepVerifier.create(resultFlux)
-                .expectNext(bookDto1)
-                .expectNext(bookDto2)
+        StepVerifier.create(resultMono)
+                .assertNext(page -> assertThat(page.content()).containsExactly(bookDto1, bookDto2))
                 .verifyComplete();
 
-        verify(bookRepository).findByTitleContainingIgnoreCase(eq(title), eq(pageable));
+        verify(bookRepository).findByTitleContainingIgnoreCase(eq(title), eq(pageable), eq(BookSummaryDto.class));
     }
 
     /**
      * Test case for searching books by author successfully.
      */
     @Test
-    void searchBooksByAuthor_ShouldReturnFluxOfBookDto_WhenBooksFound() {
+    void searchBooksByAuthor_ShouldReturnPageOfBookDto_WhenBooksFound() {
         String author = "Author";
-        List<Book> books = Arrays.asList(book1, book2);
-        Page<Book> bookPage = new PageImpl<>(books, pageable, books.size());
-        when(bookRepository.findByAuthorContainingIgnoreCase(eq(author), eq(pageable))).thenReturn(bookPage);
+        List<BookSummaryDto> books = Arrays.asList(bookDto1, bookDto2);
+        Page<BookSummaryDto> bookPage = new PageImpl<>(books, pageable, books.size());
+        when(bookRepository.findByAuthorContainingIgnoreCase(eq(author), eq(pageable), eq(BookSummaryDto.class))).thenReturn(bookPage);
 
-        Flux<BookDto> resultFlux = reactiveBookService.searchBooksByAuthor(author, pageable);
+        Mono<PageResponse<BookSummaryDto>> resultMono = reactiveBookService.searchBooksByAuthor(author, pageable);
 
-        StepVerifier.create(resultFlux)
-                .expectNext(bookDto1)
-                .expectNext(bookDto2)
+        StepVerifier.create(resultMono)
+                .assertNext(page -> assertThat(page.content()).containsExactly(bookDto1, bookDto2))
                 .verifyComplete();
 
-        verify(bookRepository).findByAuthorContainingIgnoreCase(eq(author), eq(pageable));
+        verify(bookRepository).findByAuthorContainingIgnoreCase(eq(author), eq(pageable), eq(BookSummaryDto.class));
     }
 
     /**
      * Test case for searching books by genre successfully.
      */
     @Test
-    void searchBooksByGenre_ShouldReturnFluxOfBookDto_WhenBooksFound() {
+    void searchBooksByGenre_ShouldReturnPageOfBookDto_WhenBooksFound() {
         // Arrange
         String genre = "Genre";
-        List<Book> books = Collections.singletonList(book1);
-        Page<Book> bookPage = new PageImpl<>(books, pageable, books.size());
-        when(bookRepository.findByGenreContainingIgnoreCase(eq(genre), eq(pageable))).thenReturn(bookPage);
+        List<BookSummaryDto> books = Collections.singletonList(bookDto1);
+        Page<BookSummaryDto> bookPage = new PageImpl<>(books, pageable, books.size());
+        when(genreDictionary.matching(genre)).thenReturn(List.of("Genre 1", "Genre 2"));
+        when(bookRepository.findByGenreIn(eq(List.of("Genre 1", "Genre 2")), eq(pageable), eq(BookSummaryDto.class))).thenReturn(bookPage);
 
-        Flux<BookDto> resultFlux = reactiveBookService.searchBooksByGenre(genre, pageable);
+        Mono<PageResponse<BookSummaryDto>> resultMono = reactiveBookService.searchBooksByGenre(genre, pageable);
 
-        StepVerifier.create(resultFlux)
-                .expectNext(bookDto1)
+        StepVerifier.create(resultMono)
+                .assertNext(page -> assertThat(page.content()).containsExactly(bookDto1))
                 .verifyComplete();
 
-        verify(bookRepository).findByGenreContainingIgnoreCase(eq(genre), eq(pageable));
+        verify(bookRepository).findByGenreIn(eq(List.of("Genre 1", "Genre 2")), eq(pageable), eq(BookSummaryDto.class));
     }
 
     /**
      * Test case for searching available books by availability successfully.
      */
     @Test
-    void searchBooksByAvailability_ShouldReturnFluxOfBookDto_WhenSearchingForAvailable() {
+    void searchBooksByAvailability_ShouldReturnPageOfBookDto_WhenSearchingForAvailable() {
         // Arrange
         boolean availability = true;
-        List<Book> books = Collections.singletonList(book1);
-        Page<Book> bookPage = new PageImpl<>(books, pageable, books.size());
-        when(bookRepository.findByAvailability(eq(availability), eq(pageable))).thenReturn(bookPage);
+        List<BookSummaryDto> books = Collections.singletonList(bookDto1);
+        Page<BookSummaryDto> bookPage = new PageImpl<>(books, pageable, books.size());
+        when(bookRepository.findByAvailability(eq(availability), eq(pageable), eq(BookSummaryDto.class))).thenReturn(bookPage);
 
-        Flux<BookDto> resultFlux = reactiveBookService.searchBooksByAvailability(availability, pageable);
+        Mono<PageResponse<BookSummaryDto>> resultMono = reactiveBookService.searchBooksByAvailability(availability, pageable);
 
-        StepVerifier.create(resultFlux)
-                .expectNext(bookDto1)
+        StepVerifier.create(resultMono)
+                .assertNext(page -> assertThat(page.content()).containsExactly(bookDto1))
                 .verifyComplete();
 
-        verify(bookRepository).findByAvailability(eq(availability), eq(pageable));
+        verify(bookRepository).findByAvailability(eq(availability), eq(pageable), eq(BookSummaryDto.class));
     }
 
     /**
      * Test case for searching unavailable books by availability successfully.
      */
     @Test
-    void searchBooksByAvailability_ShouldReturnFluxOfBookDto_WhenSearchingForUnavailable() {
+    void searchBooksByAvailability_ShouldReturnPageOfBookDto_WhenSearchingForUnavailable() {
         boolean availability = false;
-        List<Book> books = Collections.singletonList(book2);
-        Page<Book> bookPage = new PageImpl<>(books, pageable, books.size());
-        when(bookRepository.findByAvailability(eq(availability), eq(pageable))).thenReturn(bookPage);
+        List<BookSummaryDto> books = Collections.singletonList(bookDto2);
+        Page<BookSummaryDto> bookPage = new PageImpl<>(books, pageable, books.size());
+        when(bookRepository.findByAvailability(eq(availability), eq(pageable), eq(BookSummaryDto.class))).thenReturn(bookPage);
 
-        Flux<BookDto> resultFlux = reactiveBookService.searchBooksByAvailability(availability, pageable);
+        Mono<PageResponse<BookSummaryDto>> resultMono = reactiveBookService.searchBooksByAvailability(availability, pageable);
 
-        StepVerifier.create(resultFlux)
-                .expectNext(bookDto2)
+        StepVerifier.create(resultMono)
+                .assertNext(page -> {
+                    assertThat(page.content()).containsExactly(bookDto2);
+                    assertThat(page.hasMore()).isFalse();
+                })
                 .verifyComplete();
 
-        verify(bookRepository).findByAvailability(eq(availability), eq(pageable));
+        verify(bookRepository).findByAvailability(eq(availability), eq(pageable), eq(BookSummaryDto.class));
     }
 
     /**
-     * Test case for ensuring an empty Flux is returned when no books match the search criteria.
+     * Test case for ensuring an empty page is returned when no books match the search criteria.
      */
     @Test
-    void searchBooksByTitle_ShouldReturnEmptyFlux_WhenNoBooksFound() {
+    void searchBooksByTitle_ShouldReturnEmptyPage_WhenNoBooksFound() {
         String title = "NonExistent";
-        Page<Book> emptyPage = Page.empty(pageable);
-        when(bookRepository.findByTitleContainingIgnoreCase(eq(title), eq(pageable))).thenReturn(emptyPage);
+        Page<BookSummaryDto> emptyPage = Page.empty(pageable);
+        when(bookRepository.findByTitleContainingIgnoreCase(eq(title), eq(pageable), eq(BookSummaryDto.class))).thenReturn(emptyPage);
 
-        Flux<BookDto> resultFlux = reactiveBookService.searchBooksByTitle(title, pageable);
+        Mono<PageResponse<BookSummaryDto>> resultMono = reactiveBookService.searchBooksByTitle(title, pageable);
 
-        StepVerifier.create(resultFlux)
-                .expectNextCount(0)
+        StepVerifier.create(resultMono)
+                .assertNext(page -> {
+                    assertThat(page.content()).isEmpty();
+                    assertThat(page.hasMore()).isFalse();
+                })
                 .verifyComplete();
 
-        verify(bookRepository).findByTitleContainingIgnoreCase(eq(title), eq(pageable));
+        verify(bookRepository).findByTitleContainingIgnoreCase(eq(title), eq(pageable), eq(BookSummaryDto.class));
     }
-}
 
+    /**
+     * Test case for serving a title search from the index and loading only the requested page by id.
+     */
+    @Test
+    void searchBooksByTitle_ShouldLoadIndexHitsById_WhenIndexCanServeQuery() {
+        String title = "Test";
+        when(bookSearchIndex.searchTitles(title)).thenReturn(Optional.of(List.of(book2.getId(), book1.getId())));
+        when(bookRepository.findByIdIn(List.of(book2.getId(), book1.getId()), BookSummaryDto.class)).thenReturn(List.of(bookDto1, bookDto2));
+
+        Mono<PageResponse<BookSummaryDto>> resultMono = reactiveBookService.searchBooksByTitle(title, pageable);
+
+        StepVerifier.create(resultMono)
+                .assertNext(page -> assertThat(page.content()).containsExactly(bookDto2, bookDto1))
+                .verifyComplete();
+
+        verify(bookRepository, never()).findByTitleContainingIgnoreCase(any(), any(Pageable.class), any());
+    }
+
+    /**
+     * Test case for applying the requested page to the index hits before loading them.
+     */
+    @Test
+    void searchBooksByAuthor_ShouldLoadOnlyRequestedPage_WhenIndexCanServeQuery() {
+        String author = "Author";
+        when(bookSearchIndex.searchAuthors(author)).thenReturn(Optional.of(List.of(book1.getId(), book2.getId())));
+        when(bookRepository.findByIdIn(List.of(book2.getId()), BookSummaryDto.class)).thenReturn(List.of(bookDto2));
+
+        Mono<PageResponse<BookSummaryDto>> resultMono = reactiveBookService.searchBooksByAuthor(author, PageRequest.of(1, 1));
+
+        StepVerifier.create(resultMono)
+                .assertNext(page -> {
+                    assertThat(page.content()).containsExactly(bookDto2);
+                    assertThat(page.hasMore()).isFalse();
+                })
+                .verifyComplete();
+
+        verify(bookRepository, never()).findByAuthorContainingIgnoreCase(any(), any(Pageable.class), any());
+    }
+
+    /**
+     * Test case for a keyset page narrowed by the index but ordered by the database, with a cursor pointing at the last returned book.
+     */
+    @Test
+    void seekBooksByTitle_ShouldReturnNextCursor_WhenIndexHasMoreHits() {
+        String title = "Test";
+        SeekCursor after = new SeekCursor(book1.getTitle(), book1.getId());
+        when(bookSearchIndex.searchTitles(title)).thenReturn(Optional.of(List.of(book2.getId(), book1.getId())));
+        when(bookRepository.findSummaries(any(), eq(after), eq(2))).thenReturn(List.of(bookDto2, bookDto1));
+
+        StepVerifier.create(reactiveBookService.seekBooksByTitle(title, after.encode(), 1))
+                .assertNext(page -> {
+                    assertThat(page.content()).containsExactly(bookDto2);
+                    assertThat(page.hasMore()).isTrue();
+                    assertThat(SeekCursor.decode(page.nextCursor()))
+                            .contains(new SeekCursor(book2.getTitle(), book2.getId()));
+                })
+                .verifyComplete();
+        verify(bookRepository, never()).findByIdIn(any(), any());
+    }
+
+    /**
+     * Test case for reporting a following page from the slice without running a count query.
+     */
+    @Test
+    void searchBooksByGenre_ShouldReportHasMore_WhenSliceHasNext() {
+        String genre = "Genre";
+        when(genreDictionary.matching(genre)).thenReturn(List.of("Genre 1"));
+        when(bookRepository.findByGenreIn(eq(List.of("Genre 1")), eq(PageRequest.of(0, 1)), eq(BookSummaryDto.class)))
+                .thenReturn(new SliceImpl<>(List.of(bookDto1), PageRequest.of(0, 1), true));
+
+        StepVerifier.create(reactiveBookService.searchBooksByGenre(genre, PageRequest.of(0, 1)))
+                .assertNext(page -> {
+                    assertThat(page.content()).containsExactly(bookDto1);
+                    assertThat(page.hasMore()).isTrue();
+                    assertThat(page.nextCursor()).isNull();
+                })
+                .verifyComplete();
+    }
+
+    /**
+     * Test case for a genre keyword that matches no dictionary entry, which never reaches the books table.
+     */
+    @Test
+    void searchBooksByGenre_ShouldNotQueryRepository_WhenNoGenreMatches() {
+        when(genreDictionary.matching("Poetry")).thenReturn(List.of());
+
+        StepVerifier.create(reactiveBookService.searchBooksByGenre("Poetry", pageable))
+                .assertNext(page -> assertThat(page.content()).isEmpty())
+                .verifyComplete();
+
+        verifyNoInteractions(bookRepository);
+    }
+
+    /**
+     * Test case for skipping the database when the title and author index hits do not overlap.
+     */
+    @Test
+    void searchBooks_ShouldReturnEmptyPage_WhenIndexHitsDoNotIntersect() {
+        BookSearchCriteria criteria = new BookSearchCriteria("Test", "Author 2", null, true, null, null);
+        when(bookSearchIndex.searchTitles("Test")).thenReturn(Optional.of(List.of(book1.getId())));
+        when(bookSearchIndex.searchAuthors("Author 2")).thenReturn(Optional.of(List.of(book2.getId())));
+
+        StepVerifier.create(reactiveBookService.searchBooks(criteria, null, 10))
+                .assertNext(page -> {
+                    assertThat(page.content()).isEmpty();
+                    assertThat(page.hasMore()).isFalse();
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(bookRepository);
+    }
+
+    /**
+     * Test case for rejecting a publication date range whose start is after its end.
+     */
+    @Test
+    void searchBooks_ShouldThrowBadRequest_WhenPublicationRangeIsReversed() {
+        BookSearchCriteria criteria = new BookSearchCriteria(null, null, null, null,
+                LocalDate.of(2000, 1, 1), LocalDate.of(1990, 1, 1));
+
+        assertThatThrownBy(() -> reactiveBookService.searchBooks(criteria, null, 10))
+                .isInstanceOf(CustomException.class)
+                .hasMessage(ErrorMessages.INVALID_PUBLICATION_RANGE);
+    }
+
+    /**
+     * Test case for suggestions, which are served from the index without touching the repository.
+     */
+    @Test
+    void suggest_ShouldReturnTitlesAndAuthorsFromIndex() {
+        when(bookSearchIndex.suggestTitles("te", 10)).thenReturn(List.of(new RadixTrie.Suggestion("Test Book 1", 1)));
+        when(bookSearchIndex.suggestAuthors("te", 10)).thenReturn(List.of());
+
+        StepVerifier.create(reactiveBookService.suggest("te", 50))
+                .assertNext(suggestions -> {
+                    assertThat(suggestions.titles()).containsExactly(new RadixTrie.Suggestion("Test Book 1", 1));
+                    assertThat(suggestions.authors()).isEmpty();
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(bookRepository);
+    }
+
+    /**
+     * Test case for a fuzzy author search, which loads only the ranked index hits.
+     */
+    @Test
+    void searchBooksByAuthor_ShouldLoadRankedHits_WhenFuzzyModeRequested() {
+        when(bookSearchIndex.fuzzyAuthors("Auhtor")).thenReturn(Optional.of(List.of(book2.getId(), book1.getId())));
+        when(bookRepository.findByIdIn(List.of(book2.getId(), book1.getId()), BookSummaryDto.class)).thenReturn(List.of(bookDto1, bookDto2));
+
+        StepVerifier.create(reactiveBookService.searchBooksByAuthor("Auhtor", SearchMode.FUZZY, pageable))
+                .assertNext(page -> assertThat(page.content()).containsExactly(bookDto2, bookDto1))
+                .verifyComplete();
+
+        verify(bookRepository, never()).findByAuthorContainingIgnoreCase(any(), any(Pageable.class), any());
+    }
+
+    /**
+     * Test case for a fuzzy title search without any close match, which never reaches the repository.
+     */
+    @Test
+    void searchBooksByTitle_ShouldNotQueryRepository_WhenFuzzySearchHasNoHits() {
+        when(bookSearchIndex.fuzzyTitles("Xyzzy")).thenReturn(Optional.of(List.of()));
+
+        StepVerifier.create(reactiveBookService.searchBooksByTitle("Xyzzy", SearchMode.FUZZY, pageable))
+                .assertNext(page -> {
+                    assertThat(page.content()).isEmpty();
+                    assertThat(page.hasMore()).isFalse();
+                })
+                .verifyComplete();
+
+        verify(bookRepository, never()).findByTitleContainingIgnoreCase(any(), any(Pageable.class), any());
+    }
+
+    private static BookSummaryDto summary(Book book) {
+        return new BookSummaryDto(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getPublicationDate(), book.getGenre(), book.isAvailability());
+    }
+}